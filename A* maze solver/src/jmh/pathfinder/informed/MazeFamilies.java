@@ -0,0 +1,180 @@
+package jmh.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Seeded generators of synthetic mazes for benchmarking, one per family of maze
+ * the pathfinder meets in practice. The same family, size, and seed always give
+ * the same maze, so results are comparable from run to run. Every maze has a
+ * border of walls, the initial cell near its top-left corner, the key near its
+ * center, and a goal near its bottom-right corner.
+ */
+public class MazeFamilies {
+
+    /**
+     * Families of generated mazes.
+     */
+    public enum Family {
+        /** Square rooms of open floor, each joined to its neighbors by one door. */
+        OPEN_ROOMS,
+        /** A perfect labyrinth of 1-cell corridors, carved by a recursive backtracker. */
+        LABYRINTH,
+        /** Open terrain scattered with walls and, over 40% of it, mud. */
+        MUD,
+        /** Open rooms with goals scattered through them, one per 100 cells of width. */
+        MULTI_GOAL
+    }
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // The spacing of room walls
+    private static final int ROOM = 16;
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Generates a maze of the given family.
+     *
+     * @param family The family of maze to generate.
+     * @param rows The maze's number of rows, at least 5.
+     * @param cols The maze's number of columns, at least 5.
+     * @param seed The seed of the maze's random layout.
+     * @return The maze, in the format MazeProblem takes.
+     */
+    public static String[] generate (Family family, int rows, int cols, long seed) {
+        if (rows < 5 || cols < 5) { throw new IllegalArgumentException("Generated mazes must be at least 5 x 5"); }
+        Random random = new Random(seed);
+        char[][] maze;
+        switch (family) {
+        case LABYRINTH:
+            maze = labyrinth(rows, cols, random);
+            break;
+        case MUD:
+            maze = mud(rows, cols, random);
+            break;
+        default:
+            maze = rooms(rows, cols, random);
+            break;
+        }
+        boolean clear = family == Family.MUD;
+        place(maze, 1, 1, 'I', clear);
+        place(maze, rows / 2, cols / 2, 'K', clear);
+        place(maze, rows - 2, cols - 2, 'G', clear);
+        if (family == Family.MULTI_GOAL) {
+            for (int goals = cols / 100; goals > 0; ) {
+                int row = 1 + random.nextInt(rows - 2), col = 1 + random.nextInt(cols - 2);
+                if (maze[row][col] == '.') {
+                    maze[row][col] = 'G';
+                    goals--;
+                }
+            }
+        }
+        String[] result = new String[rows];
+        for (int row = 0; row < rows; row++) { result[row] = new String(maze[row]); }
+        return result;
+    }
+
+    /**
+     * Divides the maze into rooms with a door through each wall between two.
+     */
+    private static char[][] rooms (int rows, int cols, Random random) {
+        // Room walls leave at least one open row or column before the border
+        char[][] maze = walled(rows, cols, '.');
+        for (int row = ROOM; row < rows - 2; row += ROOM) { Arrays.fill(maze[row], 'X'); }
+        for (int col = ROOM; col < cols - 2; col += ROOM) {
+            for (int row = 0; row < rows; row++) { maze[row][col] = 'X'; }
+        }
+        // Each room's doors to the right and below, anywhere along the shared wall
+        for (int top = 0; top < rows - 2; top += ROOM) {
+            int bottom = (top + ROOM < rows - 2) ? top + ROOM : rows - 1;
+            for (int left = 0; left < cols - 2; left += ROOM) {
+                int right = (left + ROOM < cols - 2) ? left + ROOM : cols - 1;
+                if (right < cols - 1) { maze[top + 1 + random.nextInt(bottom - top - 1)][right] = '.'; }
+                if (bottom < rows - 1) { maze[bottom][left + 1 + random.nextInt(right - left - 1)] = '.'; }
+            }
+        }
+        return maze;
+    }
+
+    /**
+     * Carves a perfect labyrinth through the cells at odd coordinates, by a
+     * depth-first walk that knocks down the wall to a random unvisited neighbor,
+     * backtracking from dead ends.
+     */
+    private static char[][] labyrinth (int rows, int cols, Random random) {
+        char[][] maze = walled(rows, cols, 'X');
+        int cellRows = (rows - 1) / 2, cellCols = (cols - 1) / 2;
+        int[] stack = new int[cellRows * cellCols], candidates = new int[4];
+        int depth = 0;
+        maze[1][1] = '.';
+        stack[depth++] = 0;
+        while (depth > 0) {
+            int cell = stack[depth - 1], row = cell / cellCols, col = cell % cellCols, count = 0;
+            if (row > 0 && maze[2 * row - 1][2 * col + 1] == 'X') { candidates[count++] = cell - cellCols; }
+            if (row < cellRows - 1 && maze[2 * row + 3][2 * col + 1] == 'X') { candidates[count++] = cell + cellCols; }
+            if (col > 0 && maze[2 * row + 1][2 * col - 1] == 'X') { candidates[count++] = cell - 1; }
+            if (col < cellCols - 1 && maze[2 * row + 1][2 * col + 3] == 'X') { candidates[count++] = cell + 1; }
+            if (count == 0) {
+                depth--;
+                continue;
+            }
+            int next = candidates[random.nextInt(count)], nextRow = next / cellCols, nextCol = next % cellCols;
+            maze[row + nextRow + 1][col + nextCol + 1] = '.';
+            maze[2 * nextRow + 1][2 * nextCol + 1] = '.';
+            stack[depth++] = next;
+        }
+        return maze;
+    }
+
+    /**
+     * Scatters walls over 8% of the maze and mud over 40%.
+     */
+    private static char[][] mud (int rows, int cols, Random random) {
+        char[][] maze = walled(rows, cols, '.');
+        for (int row = 1; row < rows - 1; row++) {
+            for (int col = 1; col < cols - 1; col++) {
+                double roll = random.nextDouble();
+                maze[row][col] = (roll < 0.08) ? 'X' : (roll < 0.48) ? 'M' : '.';
+            }
+        }
+        return maze;
+    }
+
+    /**
+     * @return A maze bordered by walls and filled with the given symbol.
+     */
+    private static char[][] walled (int rows, int cols, char fill) {
+        char[][] maze = new char[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            boolean edge = row == 0 || row == rows - 1;
+            Arrays.fill(maze[row], edge ? 'X' : fill);
+            maze[row][0] = maze[row][cols - 1] = 'X';
+        }
+        return maze;
+    }
+
+    /**
+     * Places a symbol on the nearest open cell along the diagonal from the given
+     * position toward the maze's center.
+     *
+     * @param clear Whether to open any walls around the placed cell, so that
+     * scattered walls cannot wall it in.
+     */
+    private static void place (char[][] maze, int row, int col, char symbol, boolean clear) {
+        int rows = maze.length, cols = maze[0].length;
+        int dRow = (row < rows / 2) ? 1 : -1, dCol = (col < cols / 2) ? 1 : -1;
+        while (maze[row][col] != '.' && maze[row][col] != 'M') {
+            if (row + dRow > 0 && row + dRow < rows - 1) { row += dRow; }
+            if (col + dCol > 0 && col + dCol < cols - 1) { col += dCol; }
+        }
+        maze[row][col] = symbol;
+        if (!clear) { return; }
+        for (int[] step : new int[][] { {-1, 0}, {1, 0}, {0, -1}, {0, 1} }) {
+            int r = row + step[0], c = col + step[1];
+            if (r > 0 && r < rows - 1 && c > 0 && c < cols - 1 && maze[r][c] == 'X') { maze[r][c] = '.'; }
+        }
+    }
+
+}
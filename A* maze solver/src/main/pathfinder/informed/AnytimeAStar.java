@@ -0,0 +1,276 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Anytime Repairing A* (ARA*) over the (cell, hasKey) state space of a compiled
+ * maze. A first, quick solution comes from a weighted A* search ordered by
+ * g + epsilon * h, whose cost is at most epsilon times the optimal one. Each
+ * following pass lowers epsilon and repairs the previous search rather than
+ * starting over: states whose g improved after they had been expanded in the
+ * current pass are set aside (INCONS) instead of being reopened, and seed the
+ * next pass together with the open list, so every state is expanded at most once
+ * per pass. Passes continue until epsilon reaches 1 or the deadline passes, and
+ * the best route found is returned with a proven bound on its suboptimality.
+ */
+class AnytimeAStar {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // Fixed-point scale of the weighted f values, the amount by which epsilon is
+    // lowered between passes, and how many expansions happen between clock reads
+    private static final int SCALE = 16;
+    private static final double EPSILON_STEP = 0.5;
+    private static final int CLOCK_INTERVAL = 64;
+
+    private final MazeGrid grid;
+    private final int size;
+    private final int[] g, parent, incons;
+    private final boolean[] inIncons;
+    private final IndexedHeap open;
+
+    // Generation stamps: reached marks the g entries written by the current search,
+    // and closed the states expanded in the current pass; passes are numbered
+    // across searches, so that neither array is ever cleared
+    private final int[] reached, closed;
+    private int search;
+
+    // Per-search state: the guiding heuristic, the current pass and its weight,
+    // and the best goal state found so far
+    private Heuristic heuristic;
+    private int key, keyToGoal, pass, inconsCount, best;
+    private double epsilon;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new AnytimeAStar over the given compiled maze, allocating the
+     * per-state arrays for both layers of the state space.
+     *
+     * @param grid The compiled maze to search.
+     */
+    AnytimeAStar (MazeGrid grid) {
+        this.grid = grid;
+        this.size = grid.size();
+        this.g = new int[2 * size];
+        this.parent = new int[2 * size];
+        this.reached = new int[2 * size];
+        this.closed = new int[2 * size];
+        this.incons = new int[2 * size];
+        this.inIncons = new boolean[2 * size];
+        this.open = new IndexedHeap(2 * size);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The compiled maze this search runs on.
+     */
+    MazeGrid getGrid () {
+        return this.grid;
+    }
+
+    /**
+     * Finds a route from the initial cell, through the key, to any goal, improving
+     * it until it is optimal or the deadline passes. The first pass always runs to
+     * completion, so that some bounded solution is returned whenever one exists.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @param initialEpsilon The weight of the first pass, at least 1.
+     * @param deadline The System.nanoTime() value after which no further passes
+     * are run, and the pass in progress is abandoned.
+     * @return The best route found with its bound, or null if no route exists.
+     */
+    Pathfinder.AnytimeResult solve (int initial, int key, Heuristic heuristic, double initialEpsilon, long deadline) {
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        if (heuristic.toGoal(key) == Heuristic.UNREACHABLE) { return null; }
+        this.heuristic = heuristic;
+        this.key = key;
+        this.keyToGoal = heuristic.toGoal(key);
+        this.epsilon = initialEpsilon;
+        this.best = -1;
+        nextSearch();
+        for (int i = 0; i < inconsCount; i++) { inIncons[incons[i]] = false; }
+        inconsCount = 0;
+        open.clear();
+
+        int start = (initial == key) ? initial + size : initial;
+        reached[start] = search;
+        g[start] = 0;
+        parent[start] = -1;
+        reachGoal(start);
+        open.offer(start, priority(start));
+
+        // lowerBound is the largest proven lower bound on the optimal cost
+        double lowerBound = 0;
+        for (int passes = 1; true; passes++) {
+            nextPass();
+            boolean finished = improvePath((passes == 1) ? Long.MAX_VALUE : deadline);
+            if (best < 0) { return null; }
+            if (!finished) { break; }
+            int[] seeds = collectSeeds();
+            long passBound = g[best];
+            for (int state : seeds) { passBound = Math.min(passBound, (long) g[state] + estimate(state)); }
+            lowerBound = Math.max(lowerBound, Math.max(g[best] / epsilon, passBound));
+            if (epsilon <= 1 || g[best] <= lowerBound || System.nanoTime() - deadline >= 0) { break; }
+            epsilon = Math.max(1.0, Math.min(g[best] / lowerBound, epsilon - EPSILON_STEP));
+            for (int state : seeds) { open.offer(state, priority(state)); }
+        }
+        CompactPath path = tracePath(best);
+        int cost = pathCost(best);
+        return new Pathfinder.AnytimeResult(path, cost, (cost == 0) ? 1.0 : Math.max(1.0, cost / lowerBound));
+    }
+
+    /**
+     * Starts a new search, invalidating every g entry at once.
+     */
+    private void nextSearch () {
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            search = 1;
+        }
+    }
+
+    /**
+     * Starts a new pass, reopening every state at once.
+     */
+    private void nextPass () {
+        if (++pass == Integer.MAX_VALUE) {
+            Arrays.fill(closed, 0);
+            pass = 1;
+        }
+    }
+
+    /**
+     * Runs one pass of weighted A*, expanding states until none left in the open
+     * list could improve on the best goal under the current weight.
+     *
+     * @param deadline The System.nanoTime() value at which to abandon the pass.
+     * @return Whether the pass finished before its deadline.
+     */
+    private boolean improvePath (long deadline) {
+        int expansions = 0;
+        while (!open.isEmpty() && (best < 0 || open.peekPriority() < goalPriority())) {
+            if (++expansions % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) { return false; }
+            int state = open.pop();
+            closed[state] = pass;
+            boolean hasKey = state >= size;
+            int cell = hasKey ? state - size : state;
+            if (hasKey && grid.isGoal(cell)) { continue; }
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next < 0) { continue; }
+                int stepCost = grid.getCost(next);
+                if (hasKey || next == key) { next += size; }
+                if (estimate(next) == Heuristic.UNREACHABLE) { continue; }
+                int cost = g[state] + stepCost;
+                if (reached[next] == search && cost >= g[next]) { continue; }
+                reached[next] = search;
+                g[next] = cost;
+                parent[next] = state;
+                reachGoal(next);
+                if (closed[next] == pass) {
+                    if (!inIncons[next]) {
+                        inIncons[next] = true;
+                        incons[inconsCount++] = next;
+                    }
+                } else {
+                    open.offer(next, priority(next));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Empties the open list and INCONS at the end of a pass; together they seed
+     * the next pass. No route can be cheaper than the smallest unweighted g + h
+     * among them, which bounds the suboptimality of the pass's solution.
+     *
+     * @return Every state that was in the open list or INCONS.
+     */
+    private int[] collectSeeds () {
+        int[] seeds = new int[open.size() + inconsCount];
+        int count = 0;
+        while (!open.isEmpty()) { seeds[count++] = open.pop(); }
+        for (int i = 0; i < inconsCount; i++) {
+            inIncons[incons[i]] = false;
+            seeds[count++] = incons[i];
+        }
+        inconsCount = 0;
+        return seeds;
+    }
+
+    /**
+     * Records the given state as the best goal reached, if it is a goal state that
+     * is cheaper than the current best.
+     *
+     * @param state A state whose g was just lowered.
+     */
+    private void reachGoal (int state) {
+        if (state >= size && grid.isGoal(state - size) && (best < 0 || g[state] < g[best])) { best = state; }
+    }
+
+    /**
+     * @param state A state ID.
+     * @return The state's open-list priority: its weighted f in fixed point, ties
+     * broken toward the smaller h (i.e., the larger g).
+     */
+    private long priority (int state) {
+        int h = estimate(state);
+        long f = (long) Math.floor((g[state] + epsilon * h) * SCALE);
+        return (f << 20) | Math.min(h, 0xFFFFF);
+    }
+
+    /**
+     * @return The priority that a goal state with the best goal's cost would have.
+     */
+    private long goalPriority () {
+        return ((long) g[best] * SCALE) << 20;
+    }
+
+    /**
+     * @param state A state ID.
+     * @return The heuristic estimate of the state's cost to a goal, through the
+     * key if it is not yet held, or UNREACHABLE.
+     */
+    private int estimate (int state) {
+        if (state >= size) { return heuristic.toGoal(state - size); }
+        return heuristic.between(state, key) + keyToGoal;
+    }
+
+    /**
+     * @param end The state at which a path ends.
+     * @return The cost of the path traced back from it through the parent array,
+     * which may be below g[end] if its ancestors improved after it was reached.
+     */
+    private int pathCost (int end) {
+        int cost = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) { cost += grid.getCost(state % size); }
+        return cost;
+    }
+
+    /**
+     * Backtracks from the given state through the parent array, packing the moves
+     * that led to it in start-to-end order.
+     *
+     * @param end The state at which the path ends.
+     * @return CompactPath of the directions taken to go from the initial to the end state.
+     */
+    private CompactPath tracePath (int end) {
+        int length = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) { length++; }
+        CompactPath path = new CompactPath(length);
+        for (int state = end, i = length - 1; parent[state] >= 0; state = parent[state], i--) {
+            path.set(i, grid.direction(parent[state] % size, state % size));
+        }
+        return path;
+    }
+
+}
@@ -0,0 +1,218 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
+
+/**
+ * Solves a batch of MazeProblems on a fixed number of worker tasks, each of which
+ * claims the next unsolved problem from a shared counter until none are left.
+ * Submitting one task per worker rather than per problem keeps a batch of
+ * thousands of small mazes from allocating thousands of futures, and lets each
+ * worker keep one A* engine whose score arrays and frontier are reused from
+ * maze to maze, growing only when a larger maze comes along. Workers guide their
+ * searches by Manhattan estimates, skipping the goal-field pass a MazeIndex
+ * would add to every maze.
+ * <p>
+ * Results are delivered either into a list in the order of the problems, or,
+ * as each is solved, into a bounded queue drained by a stream: workers wait
+ * whenever the queue is full, so a slow consumer holds back the workers rather
+ * than letting solved paths pile up.
+ */
+class BatchSolver {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // Marks the end of a completion-order stream
+    private static final Object DONE = new Object();
+
+    private final MazeProblem[] problems;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger running;
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new BatchSolver over the given problems.
+     *
+     * @param problems The problems to solve.
+     * @param workers The number of worker tasks to solve them on.
+     */
+    private BatchSolver (Collection<MazeProblem> problems, int workers) {
+        if (workers < 1) { throw new IllegalArgumentException("Worker count must be positive"); }
+        this.problems = problems.toArray(new MazeProblem[0]);
+        for (MazeProblem problem : this.problems) {
+            if (problem == null) { throw new IllegalArgumentException("Batch contains a null problem"); }
+        }
+        this.running = new AtomicInteger(workers);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Solves every problem, the calling thread acting as one of the workers, and
+     * waits for the rest to finish.
+     *
+     * @param problems The problems to solve.
+     * @param executor The executor to run all but one of the workers on.
+     * @param workers The number of worker tasks to solve on.
+     * @return Each problem's path, or null if it has none, in the problems' order.
+     */
+    static List<ArrayList<String>> solveOrdered (Collection<MazeProblem> problems, Executor executor, int workers) {
+        BatchSolver batch = new BatchSolver(problems, workers);
+        // Workers set distinct elements, which needs no locking
+        List<ArrayList<String>> paths = new ArrayList<>(Collections.nCopies(batch.problems.length, null));
+        CountDownLatch finished = new CountDownLatch(workers);
+        Runnable worker = () -> {
+            try {
+                batch.work(paths::set);
+            } finally {
+                finished.countDown();
+            }
+        };
+        int submitted = 0;
+        try {
+            for (; submitted < workers - 1; submitted++) { executor.execute(worker); }
+        } finally {
+            // Workers that could not be submitted will never count down
+            for (int i = submitted; i < workers - 1; i++) { finished.countDown(); }
+        }
+        worker.run();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            batch.cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving", e);
+        }
+        if (batch.failure != null) { throw new IllegalStateException("Batch worker failed", batch.failure); }
+        // The latch's happens-before edge makes every worker's writes visible here
+        return paths;
+    }
+
+    /**
+     * Starts solving every problem on the executor, streaming the results as
+     * they are solved. Closing the stream stops the workers after the problems
+     * they are on.
+     *
+     * @param problems The problems to solve.
+     * @param executor The executor to run the workers on.
+     * @param workers The number of worker tasks to solve on.
+     * @param buffer The most solved results to hold before workers wait.
+     * @return A stream of results in completion order.
+     */
+    static Stream<Pathfinder.BatchResult> solveUnordered (Collection<MazeProblem> problems, Executor executor, int workers, int buffer) {
+        if (buffer < 1) { throw new IllegalArgumentException("Buffer size must be positive"); }
+        BatchSolver batch = new BatchSolver(problems, workers);
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(buffer);
+        Runnable worker = () -> {
+            try {
+                batch.work((index, path) -> batch.offer(queue, new Pathfinder.BatchResult(index, path)));
+            } finally {
+                // The last worker out ends the stream
+                if (batch.running.decrementAndGet() == 0) { batch.offer(queue, DONE); }
+            }
+        };
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RuntimeException e) {
+                batch.cancelled = true;
+                throw e;
+            }
+        }
+        Iterator<Pathfinder.BatchResult> results = new Iterator<Pathfinder.BatchResult>() {
+            private Object ahead;
+
+            @Override
+            public boolean hasNext () {
+                if (ahead == null) {
+                    try {
+                        ahead = queue.take();
+                    } catch (InterruptedException e) {
+                        batch.cancelled = true;
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while solving", e);
+                    }
+                }
+                if (ahead == DONE) {
+                    // Leave the marker for any later call
+                    if (batch.failure != null) { throw new IllegalStateException("Batch worker failed", batch.failure); }
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public Pathfinder.BatchResult next () {
+                if (!hasNext()) { throw new NoSuchElementException(); }
+                Pathfinder.BatchResult result = (Pathfinder.BatchResult) ahead;
+                ahead = null;
+                return result;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.NONNULL), false)
+            .onClose(() -> {
+                batch.cancelled = true;
+                queue.clear();
+            });
+    }
+
+    /**
+     * Runs one worker: claims problems until none are left, solving each with an
+     * engine reused from the worker's previous maze.
+     *
+     * @param sink Receives each problem's index and path.
+     */
+    private void work (Sink sink) {
+        GridAStar engine = null;
+        try {
+            for (int index = next.getAndIncrement(); index < problems.length && !cancelled; index = next.getAndIncrement()) {
+                MazeProblem problem = problems[index];
+                ArrayList<String> path;
+                if (problem.isOutOfCore()) {
+                    path = Pathfinder.solve(problem);
+                } else {
+                    MazeGrid grid = MazeGrid.compile(problem);
+                    engine = GridAStar.reuse(engine, grid);
+                    path = engine.solve(grid.getInitial(), grid.getKey(), Heuristic.manhattan(grid));
+                }
+                sink.accept(index, path);
+            }
+        } catch (Throwable e) {
+            if (failure == null) { failure = e; }
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Puts an item on the queue, waiting while it is full unless the batch is
+     * cancelled, in which case the item is dropped.
+     */
+    private void offer (BlockingQueue<Object> queue, Object item) {
+        try {
+            while (!queue.offer(item, 10, TimeUnit.MILLISECONDS)) {
+                if (cancelled && item != DONE) { return; }
+                if (cancelled) { queue.clear(); }
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Receiver of a worker's solved paths.
+     */
+    private interface Sink {
+        void accept (int index, ArrayList<String> path);
+    }
+
+}
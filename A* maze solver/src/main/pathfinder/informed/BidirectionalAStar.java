@@ -0,0 +1,210 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Bidirectional A* search engine over a compiled MazeGrid. The route is split at
+ * the key into two legs, each searched from both ends at once:
+ * <ul>
+ *   <li>Initial to key: forward from the initial cell, and backward from the key.</li>
+ *   <li>Key to goal: forward from the key, and backward from every goal together,
+ *   as a single multi-source frontier.</li>
+ * </ul>
+ * Since the key must be collected before any goal counts, the cheapest route is
+ * exactly the cheapest first leg followed by the cheapest second leg. Each
+ * iteration expands the side with the smaller frontier; every cell generated
+ * by one side that the other side has already reached closes a path, and the
+ * cheapest one found (mu) is final once either side's smallest f reaches it,
+ * which the consistency of both heuristics guarantees.
+ */
+class BidirectionalAStar {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final MazeGrid grid;
+    private final int[] gForward, gBackward, parentForward, parentBackward;
+    private final boolean[] closedForward, closedBackward;
+    private final Frontier forward, backward;
+
+    // The current leg's source and heuristic; toKey is true for the first leg
+    private Heuristic heuristic;
+    private int source, key;
+    private boolean toKey;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new BidirectionalAStar over the given compiled maze, allocating
+     * the per-cell score arrays and frontier of each direction.
+     *
+     * @param grid The compiled maze to search.
+     */
+    BidirectionalAStar (MazeGrid grid) {
+        int size = grid.size();
+        this.grid = grid;
+        this.gForward = new int[size];
+        this.gBackward = new int[size];
+        this.parentForward = new int[size];
+        this.parentBackward = new int[size];
+        this.closedForward = new boolean[size];
+        this.closedBackward = new boolean[size];
+        this.forward = Frontier.forGrid(grid, size);
+        this.backward = Frontier.forGrid(grid, size);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the initial cell, through the key, to any goal.
+     * The first leg is guided by the heuristic's between estimates in both
+     * directions; the second by its toGoal estimate forward, and by between
+     * estimates from the key backward.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists.
+     */
+    ArrayList<String> solve (int initial, int key, Heuristic heuristic) {
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        if (heuristic.toGoal(key) == Heuristic.UNREACHABLE) { return null; }
+        this.heuristic = heuristic;
+        this.key = key;
+        ArrayList<String> path = new ArrayList<String>();
+        if (!searchLeg(initial, new int[] { key }, true, path)) { return null; }
+        if (!searchLeg(key, grid.getGoals(), false, path)) { return null; }
+        return path;
+    }
+
+    /**
+     * Completes a bidirectional A* search from the source to the nearest of the
+     * targets, appending the actions of the path found onto the given list.
+     *
+     * @param source The cell from which the leg starts.
+     * @param targets The cells at which the leg may end.
+     * @param toKey Whether this is the first (initial to key) leg.
+     * @param path The list of actions to append onto.
+     * @return Whether or not a path was found.
+     */
+    private boolean searchLeg (int source, int[] targets, boolean toKey, ArrayList<String> path) {
+        this.source = source;
+        this.toKey = toKey;
+        Arrays.fill(gForward, INF);
+        Arrays.fill(gBackward, INF);
+        Arrays.fill(closedForward, false);
+        Arrays.fill(closedBackward, false);
+        forward.clear();
+        backward.clear();
+
+        gForward[source] = 0;
+        parentForward[source] = -1;
+        forward.offer(source, forwardEstimate(source), 0);
+        int forwardCount = 1, backwardCount = 0, mu = INF, meet = -1;
+        for (int target : targets) {
+            if (target == source) { return true; }
+            gBackward[target] = 0;
+            parentBackward[target] = -1;
+            backward.offer(target, backwardEstimate(target), 0);
+            backwardCount++;
+        }
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            if (forwardCount <= backwardCount) {
+                int cell = forward.pop();
+                forwardCount--;
+                if (gForward[cell] + forwardEstimate(cell) >= mu) { break; }
+                closedForward[cell] = true;
+                for (int dir = 0; dir < 4; dir++) {
+                    int next = grid.neighbor(cell, dir);
+                    if (next < 0 || closedForward[next]) { continue; }
+                    int h = forwardEstimate(next);
+                    if (h == Heuristic.UNREACHABLE) { continue; }
+                    int cost = gForward[cell] + grid.getCost(next);
+                    if (cost < gForward[next]) {
+                        if (gForward[next] == INF) { forwardCount++; }
+                        gForward[next] = cost;
+                        parentForward[next] = cell;
+                        forward.offer(next, cost + h, cost);
+                    }
+                    if (gBackward[next] != INF && gForward[next] + gBackward[next] < mu) {
+                        mu = gForward[next] + gBackward[next];
+                        meet = next;
+                    }
+                }
+            } else {
+                // Moving backward from a cell reaches its neighbors at the cost
+                // of entering the cell itself
+                int cell = backward.pop();
+                backwardCount--;
+                if (gBackward[cell] + backwardEstimate(cell) >= mu) { break; }
+                closedBackward[cell] = true;
+                int cost = gBackward[cell] + grid.getCost(cell);
+                for (int dir = 0; dir < 4; dir++) {
+                    int prev = grid.neighbor(cell, dir);
+                    if (prev < 0 || closedBackward[prev]) { continue; }
+                    if (cost < gBackward[prev]) {
+                        if (gBackward[prev] == INF) { backwardCount++; }
+                        gBackward[prev] = cost;
+                        parentBackward[prev] = cell;
+                        backward.offer(prev, cost + backwardEstimate(prev), cost);
+                    }
+                    if (gForward[prev] != INF && gForward[prev] + gBackward[prev] < mu) {
+                        mu = gForward[prev] + gBackward[prev];
+                        meet = prev;
+                    }
+                }
+            }
+        }
+        if (meet < 0) { return false; }
+        tracePath(meet, path);
+        return true;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The forward search's estimate of the cost from the cell to the
+     * current leg's end.
+     */
+    private int forwardEstimate (int cell) {
+        return toKey ? heuristic.between(cell, key) : heuristic.toGoal(cell);
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The backward search's estimate of the cost from the current leg's
+     * source to the cell.
+     */
+    private int backwardEstimate (int cell) {
+        return heuristic.between(source, cell);
+    }
+
+    /**
+     * Appends the actions of the path through the meeting cell: backtracked from
+     * it to the source through the forward parents, then followed from it to a
+     * target through the backward parents.
+     *
+     * @param meet The cell at which the cheapest path was closed.
+     * @param path The list of actions to append onto.
+     */
+    private void tracePath (int meet, ArrayList<String> path) {
+        int length = 0;
+        for (int cell = meet; parentForward[cell] >= 0; cell = parentForward[cell]) { length++; }
+        String[] actions = new String[length];
+        for (int cell = meet, i = length - 1; parentForward[cell] >= 0; cell = parentForward[cell], i--) {
+            actions[i] = MazeGrid.ACTIONS[grid.direction(parentForward[cell], cell)];
+        }
+        path.addAll(Arrays.asList(actions));
+        for (int cell = meet; parentBackward[cell] >= 0; cell = parentBackward[cell]) {
+            path.add(MazeGrid.ACTIONS[grid.direction(cell, parentBackward[cell])]);
+        }
+    }
+
+}
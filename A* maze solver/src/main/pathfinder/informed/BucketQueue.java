@@ -0,0 +1,226 @@
+package main.pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Dial-style bucket queue frontier for searches whose f-scores are small-range
+ * integers, as they are for MazeProblem's unit and mud costs. States are kept in
+ * a circular array of buckets indexed by f; since a consistent heuristic never
+ * lets a child's f exceed its parent's by more than the largest step cost plus
+ * one, only a few buckets are ever in use and both insertion and removal take
+ * amortized O(1) rather than the O(log n) of a heap.
+ *
+ * Within the active (lowest) f bucket, states are further bucketed by h so that
+ * ties are broken toward the larger g, as Frontier specifies.
+ */
+class BucketQueue implements Frontier {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int NONE = -1;
+
+    // Every queued state sits in exactly one doubly linked list: the outer bucket
+    // for its f, or the inner bucket for its h if its f is the current minimum
+    private final int[] next, prev, fOf, hOf;
+    private final boolean[] queued;
+    private int[] outer, inner;
+    private int mask, current, minH, maxH, innerCount, size;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new, empty BucketQueue able to hold the states 0 .. capacity-1.
+     *
+     * @param capacity The number of distinct states that may be queued.
+     * @param span The expected largest gap between the smallest and largest
+     * queued f; the queue grows past it if need be.
+     */
+    BucketQueue (int capacity, int span) {
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.fOf = new int[capacity];
+        this.hOf = new int[capacity];
+        this.queued = new boolean[capacity];
+        this.outer = newBuckets(Integer.highestOneBit(Math.max(2, span) * 2 - 1));
+        this.mask = outer.length - 1;
+        this.inner = newBuckets(64);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    @Override
+    public boolean isEmpty () {
+        return size == 0;
+    }
+
+    @Override
+    public void offer (int state, int f, int g) {
+        int h = f - g;
+        if (queued[state]) {
+            if (f > fOf[state] || (f == fOf[state] && h >= hOf[state])) { return; }
+            unlink(state);
+        } else {
+            queued[state] = true;
+            if (size++ == 0) { current = f; }
+        }
+        fOf[state] = f;
+        hOf[state] = h;
+        if (f < current || f - current > mask) {
+            rebuild(Math.min(f, current), f);
+        }
+        place(state);
+    }
+
+    @Override
+    public int pop () {
+        // Advance to the next nonempty f bucket, splitting it by h
+        while (innerCount == 0) {
+            current++;
+            int bucket = current & mask, state = outer[bucket];
+            outer[bucket] = NONE;
+            while (state != NONE) {
+                int following = next[state];
+                linkInner(state);
+                state = following;
+            }
+        }
+        while (inner[minH] == NONE) { minH++; }
+        int state = inner[minH];
+        unlink(state);
+        queued[state] = false;
+        size--;
+        return state;
+    }
+
+    @Override
+    public void clear () {
+        for (int bucket = 0; bucket < outer.length; bucket++) {
+            for (int state = outer[bucket]; state != NONE; state = next[state]) { queued[state] = false; }
+            outer[bucket] = NONE;
+        }
+        for (int h = minH; h <= maxH && innerCount > 0; h++) {
+            for (int state = inner[h]; state != NONE; state = next[state]) {
+                queued[state] = false;
+                innerCount--;
+            }
+            inner[h] = NONE;
+        }
+        innerCount = size = 0;
+    }
+
+    /**
+     * Links a state into the bucket matching its f and h; its f must lie within
+     * the current window of outer buckets.
+     *
+     * @param state The state to link.
+     */
+    private void place (int state) {
+        if (fOf[state] == current) {
+            linkInner(state);
+        } else {
+            int bucket = fOf[state] & mask;
+            link(state, outer[bucket]);
+            outer[bucket] = state;
+        }
+    }
+
+    /**
+     * Links a state whose f is the current minimum into the inner bucket for its h.
+     *
+     * @param state The state to link.
+     */
+    private void linkInner (int state) {
+        int h = hOf[state];
+        if (h >= inner.length) {
+            int[] grown = newBuckets(Math.max(h + 1, inner.length * 2));
+            System.arraycopy(inner, 0, grown, 0, inner.length);
+            inner = grown;
+        }
+        if (innerCount++ == 0) {
+            minH = maxH = h;
+        } else {
+            minH = Math.min(minH, h);
+            maxH = Math.max(maxH, h);
+        }
+        link(state, inner[h]);
+        inner[h] = state;
+    }
+
+    /**
+     * Pushes a state onto the front of the list whose current head is given; the
+     * caller is responsible for storing the state as the list's new head.
+     *
+     * @param state The state to link.
+     * @param head The list's current head, or NONE.
+     */
+    private void link (int state, int head) {
+        next[state] = head;
+        prev[state] = NONE;
+        if (head != NONE) { prev[head] = state; }
+    }
+
+    /**
+     * Removes a queued state from whichever bucket list it currently sits in.
+     *
+     * @param state The state to unlink.
+     */
+    private void unlink (int state) {
+        int before = prev[state], after = next[state];
+        if (after != NONE) { prev[after] = before; }
+        if (before != NONE) {
+            next[before] = after;
+        } else if (fOf[state] == current) {
+            inner[hOf[state]] = after;
+        } else {
+            outer[fOf[state] & mask] = after;
+        }
+        if (fOf[state] == current) { innerCount--; }
+    }
+
+    /**
+     * Re-buckets every queued state so that the window of outer buckets starts at
+     * low and covers every queued f; used when an offered f falls outside it.
+     *
+     * @param low The new current (minimum) f.
+     * @param high The offered f, which must also fit in the window.
+     */
+    private void rebuild (int low, int high) {
+        int[] states = new int[size];
+        int count = 0;
+        high = Math.max(high, current);
+        for (int bucket = 0; bucket < outer.length; bucket++) {
+            for (int state = outer[bucket]; state != NONE; state = next[state]) {
+                states[count++] = state;
+                high = Math.max(high, fOf[state]);
+            }
+        }
+        for (int h = minH; h <= maxH && innerCount > 0; h++) {
+            for (int state = inner[h]; state != NONE; state = next[state]) { states[count++] = state; }
+            inner[h] = NONE;
+        }
+        if (high - low > mask) {
+            outer = newBuckets(Integer.highestOneBit((high - low + 1) * 2 - 1));
+            mask = outer.length - 1;
+        } else {
+            Arrays.fill(outer, NONE);
+        }
+        current = low;
+        innerCount = 0;
+        for (int i = 0; i < count; i++) { place(states[i]); }
+    }
+
+    /**
+     * @param length The number of buckets.
+     * @return A new array of empty bucket heads.
+     */
+    private static int[] newBuckets (int length) {
+        int[] buckets = new int[length];
+        Arrays.fill(buckets, NONE);
+        return buckets;
+    }
+
+}
@@ -0,0 +1,206 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Compact, immutable sequence of maze moves that packs each move into 2 bits of
+ * a long[] (32 moves per long), using MazeGrid's direction codes UP, DOWN, LEFT,
+ * RIGHT; a path of 10^5 moves takes about 25 KB rather than one String
+ * reference per move. For callers that expect actions as Strings, asList()
+ * offers a read-only view that decodes each action as it is read, and
+ * MazeProblem.testSolution accepts a CompactPath directly. Paths made of long
+ * straight runs can be stored even smaller with toRuns().
+ */
+public class CompactPath {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int MOVES_PER_WORD = 32;
+
+    // Longest run that fits in one int of a run-length encoding
+    private static final int MAX_RUN = Integer.MAX_VALUE >>> 2;
+
+    private final long[] moves;
+    private final int length;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new CompactPath of the given length whose moves are all UP,
+     * to be filled in with set() by the search that traced it.
+     *
+     * @param length The number of moves in the path.
+     */
+    CompactPath (int length) {
+        this.moves = new long[(length + MOVES_PER_WORD - 1) / MOVES_PER_WORD];
+        this.length = length;
+    }
+
+    /**
+     * Packs the given actions into a new CompactPath.
+     *
+     * @param actions A list of actions of the format: ["R", "R", "L", ...]
+     * @return The new CompactPath.
+     */
+    public static CompactPath of (List<String> actions) {
+        CompactPath path = new CompactPath(actions.size());
+        int i = 0;
+        for (String action : actions) { path.set(i++, parseAction(action)); }
+        return path;
+    }
+
+    /**
+     * Unpacks a run-length encoding produced by toRuns().
+     *
+     * @param runs The encoded runs.
+     * @return The decoded CompactPath.
+     */
+    public static CompactPath fromRuns (int[] runs) {
+        long length = 0;
+        for (int run : runs) { length += run >>> 2; }
+        if (length > Integer.MAX_VALUE) { throw new IllegalArgumentException("Runs are too long for one path"); }
+        CompactPath path = new CompactPath((int) length);
+        int i = 0;
+        for (int run : runs) {
+            for (int count = run >>> 2; count > 0; count--) { path.set(i++, run & 3); }
+        }
+        return path;
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of moves in the path.
+     */
+    public int length () {
+        return this.length;
+    }
+
+    /**
+     * @param i The index of a move in the path.
+     * @return The move's direction, one of MazeGrid's UP, DOWN, LEFT, RIGHT codes
+     * (0 to 3, in the order "U", "D", "L", "R").
+     */
+    public int getMove (int i) {
+        if (i < 0 || i >= length) { throw new IndexOutOfBoundsException("Move " + i + " of " + length); }
+        return (int) (moves[i / MOVES_PER_WORD] >>> (2 * (i % MOVES_PER_WORD))) & 3;
+    }
+
+    /**
+     * @param i The index of a move in the path.
+     * @return The move as an action String, e.g., "U".
+     */
+    public String getAction (int i) {
+        return MazeGrid.ACTIONS[getMove(i)];
+    }
+
+    /**
+     * Returns a read-only List view of the path's actions, decoded on access; it
+     * allocates nothing per element, since every action is a shared constant.
+     *
+     * @return The path as a list of actions of the format: ["R", "R", "L", ...]
+     */
+    public List<String> asList () {
+        return new ActionList();
+    }
+
+    /**
+     * Run-length encodes the path: each maximal run of identical moves becomes one
+     * int, its length shifted left by 2 bits plus its direction code.
+     *
+     * @return The encoded runs, in path order.
+     */
+    public int[] toRuns () {
+        int[] runs = new int[getRunCount()];
+        for (int i = 0, r = 0, end; i < length; i = end) {
+            end = runEnd(i);
+            runs[r++] = ((end - i) << 2) | getMove(i);
+        }
+        return runs;
+    }
+
+    /**
+     * @return The number of runs that toRuns() encodes the path into.
+     */
+    public int getRunCount () {
+        int count = 0;
+        for (int i = 0; i < length; i = runEnd(i)) { count++; }
+        return count;
+    }
+
+    /**
+     * @param i The index of the first move of a run.
+     * @return The index just past the end of the run.
+     */
+    private int runEnd (int i) {
+        int move = getMove(i), end = i + 1;
+        while (end < length && end - i < MAX_RUN && getMove(end) == move) { end++; }
+        return end;
+    }
+
+    /**
+     * @param action An action String, e.g., "U".
+     * @return The action's direction code.
+     */
+    private static int parseAction (String action) {
+        switch (action) {
+        case "U": return MazeGrid.UP;
+        case "D": return MazeGrid.DOWN;
+        case "L": return MazeGrid.LEFT;
+        case "R": return MazeGrid.RIGHT;
+        default: throw new IllegalArgumentException("Unknown action: " + action);
+        }
+    }
+
+    /**
+     * Sets one move while the path is being traced.
+     *
+     * @param i The index of the move.
+     * @param move The move's direction code.
+     */
+    void set (int i, int move) {
+        int word = i / MOVES_PER_WORD, shift = 2 * (i % MOVES_PER_WORD);
+        moves[word] = (moves[word] & ~(3L << shift)) | ((long) move << shift);
+    }
+
+    @Override
+    public boolean equals (Object other) {
+        if (!(other instanceof CompactPath)) { return false; }
+        CompactPath path = (CompactPath) other;
+        return length == path.length && Arrays.equals(moves, path.moves);
+    }
+
+    @Override
+    public int hashCode () {
+        return 31 * length + Arrays.hashCode(moves);
+    }
+
+    @Override
+    public String toString () {
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) { result.append(getAction(i)); }
+        return result.toString();
+    }
+
+    /**
+     * Read-only List view over the path's actions.
+     */
+    private class ActionList extends AbstractList<String> implements RandomAccess {
+
+        @Override
+        public String get (int i) {
+            return getAction(i);
+        }
+
+        @Override
+        public int size () {
+            return length;
+        }
+
+    }
+
+}
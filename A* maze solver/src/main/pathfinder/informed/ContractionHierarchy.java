@@ -0,0 +1,273 @@
+package main.pathfinder.informed;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Contraction hierarchy over the cell graph of a static maze, for services that
+ * answer very many queries against a maze that never changes. Every open cell
+ * is ranked by importance, and shortcut edges preserve shortest-path costs among
+ * the more important cells as the less important ones are contracted away; a
+ * query then only searches upward in rank from both of its ends, settling a few
+ * hundred cells even on mazes of millions. Shortcuts remember the two edges they
+ * span, so routes unpack back into one move per cell.
+ *
+ * Building a hierarchy is an offline step (see build); the result can be saved
+ * in a compact binary format and loaded again at service start. Queries run on
+ * HierarchyQuery objects, any number of which may share one hierarchy. The
+ * hierarchy describes the maze's walls and costs as they were when it was built,
+ * so it must be rebuilt after any MazeGrid.setCell.
+ */
+public class ContractionHierarchy {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // Leading bytes ("MZCH") and version of the persisted format
+    private static final int MAGIC = 0x4D5A4348, VERSION = 1;
+
+    private final MazeGrid grid;
+    private final int[] rank;
+
+    // Every edge, original or shortcut; a shortcut's children are the two edges it
+    // spans, and an original edge has first == -1
+    private final int[] from, to, weight, first, second;
+
+    // Upward graphs in CSR form: edges out of each cell to higher-ranked cells, and
+    // edges into each cell from higher-ranked cells
+    private final int[] upStart, upEdges, downStart, downEdges;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new ContractionHierarchy from its ranks and edges, indexing the
+     * edges into its upward graphs.
+     */
+    ContractionHierarchy (MazeGrid grid, int[] rank, int[] from, int[] to, int[] weight, int[] first, int[] second) {
+        this.grid = grid;
+        this.rank = rank;
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+        this.first = first;
+        this.second = second;
+        int size = grid.size();
+        this.upStart = new int[size + 1];
+        this.downStart = new int[size + 1];
+        int ups = 0;
+        for (int e = 0; e < from.length; e++) {
+            if (rank[to[e]] > rank[from[e]]) {
+                upStart[from[e] + 1]++;
+                ups++;
+            } else {
+                downStart[to[e] + 1]++;
+            }
+        }
+        for (int cell = 0; cell < size; cell++) {
+            upStart[cell + 1] += upStart[cell];
+            downStart[cell + 1] += downStart[cell];
+        }
+        this.upEdges = new int[ups];
+        this.downEdges = new int[from.length - ups];
+        int[] upFill = Arrays.copyOf(upStart, size), downFill = Arrays.copyOf(downStart, size);
+        for (int e = 0; e < from.length; e++) {
+            if (rank[to[e]] > rank[from[e]]) {
+                upEdges[upFill[from[e]]++] = e;
+            } else {
+                downEdges[downFill[to[e]]++] = e;
+            }
+        }
+    }
+
+    /**
+     * Builds the contraction hierarchy of the given maze. This takes seconds on
+     * mazes of millions of cells, and is meant to run offline.
+     *
+     * @param grid The compiled maze to preprocess.
+     * @return The new ContractionHierarchy.
+     */
+    public static ContractionHierarchy build (MazeGrid grid) {
+        return new HierarchyBuilder(grid).build();
+    }
+
+    /**
+     * Loads a hierarchy saved by save(), checking that it was built for a maze
+     * with the same walls and costs as the given one.
+     *
+     * @param in The stream to read the hierarchy from; it is not closed.
+     * @param grid The compiled maze the hierarchy was built for.
+     * @return The loaded ContractionHierarchy.
+     * @throws IOException If the stream cannot be read or does not hold a valid hierarchy.
+     * @throws IllegalArgumentException If the hierarchy was built for a different maze.
+     */
+    public static ContractionHierarchy load (InputStream in, MazeGrid grid) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) { throw new IOException("Not a contraction hierarchy"); }
+        int version = data.readInt();
+        if (version != VERSION) { throw new IOException("Unsupported contraction hierarchy version " + version); }
+        if (data.readInt() != grid.getRows() || data.readInt() != grid.getCols() || data.readLong() != grid.fingerprint()) {
+            throw new IllegalArgumentException("Contraction hierarchy was built for a different maze");
+        }
+        int size = grid.size();
+        int[] rank = new int[size];
+        for (int cell = 0; cell < size; cell++) {
+            rank[cell] = data.readInt();
+            if (rank[cell] < -1 || rank[cell] >= size) { throw new IOException("Corrupt rank of cell " + cell); }
+        }
+        int edges = data.readInt();
+        if (edges < 0) { throw new IOException("Corrupt edge count " + edges); }
+        int[] from = new int[edges], to = new int[edges], weight = new int[edges], first = new int[edges], second = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            from[e] = data.readInt();
+            to[e] = data.readInt();
+            weight[e] = data.readInt();
+            first[e] = data.readInt();
+            second[e] = data.readInt();
+
+            // Endpoints must be ranked cells, and children must precede their shortcut
+            if (from[e] < 0 || from[e] >= size || to[e] < 0 || to[e] >= size || rank[from[e]] < 0 || rank[to[e]] < 0
+                    || first[e] < -1 || first[e] >= e || second[e] < -1 || second[e] >= e || (first[e] < 0) != (second[e] < 0)) {
+                throw new IOException("Corrupt edge " + e);
+            }
+        }
+        return new ContractionHierarchy(grid, rank, from, to, weight, first, second);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Saves the hierarchy in a binary format: a header identifying the format and
+     * the maze it was built for, the rank of every cell, and every edge.
+     *
+     * @param out The stream to write the hierarchy to; it is flushed but not closed.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void save (OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(grid.getRows());
+        data.writeInt(grid.getCols());
+        data.writeLong(grid.fingerprint());
+        for (int r : rank) { data.writeInt(r); }
+        data.writeInt(from.length);
+        for (int e = 0; e < from.length; e++) {
+            data.writeInt(from[e]);
+            data.writeInt(to[e]);
+            data.writeInt(weight[e]);
+            data.writeInt(first[e]);
+            data.writeInt(second[e]);
+        }
+        data.flush();
+    }
+
+    /**
+     * @return The compiled maze this hierarchy was built for.
+     */
+    public MazeGrid getGrid () {
+        return this.grid;
+    }
+
+    /**
+     * @return The number of shortcut edges added while building the hierarchy.
+     */
+    public int getShortcutCount () {
+        int count = 0;
+        for (int child : first) {
+            if (child >= 0) { count++; }
+        }
+        return count;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The index of the cell's first edge to a higher-ranked cell.
+     */
+    int upStart (int cell) {
+        return upStart[cell];
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return One past the index of the cell's last edge to a higher-ranked cell.
+     */
+    int upEnd (int cell) {
+        return upStart[cell + 1];
+    }
+
+    /**
+     * @param i An index into the upward graph.
+     * @return The ID of the edge stored there.
+     */
+    int upEdge (int i) {
+        return upEdges[i];
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The index of the cell's first edge from a higher-ranked cell.
+     */
+    int downStart (int cell) {
+        return downStart[cell];
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return One past the index of the cell's last edge from a higher-ranked cell.
+     */
+    int downEnd (int cell) {
+        return downStart[cell + 1];
+    }
+
+    /**
+     * @param i An index into the downward graph.
+     * @return The ID of the edge stored there.
+     */
+    int downEdge (int i) {
+        return downEdges[i];
+    }
+
+    /**
+     * @param edge An edge ID.
+     * @return The cell at which the edge starts.
+     */
+    int from (int edge) {
+        return from[edge];
+    }
+
+    /**
+     * @param edge An edge ID.
+     * @return The cell at which the edge ends.
+     */
+    int to (int edge) {
+        return to[edge];
+    }
+
+    /**
+     * @param edge An edge ID.
+     * @return The cost of the path the edge stands for.
+     */
+    int weight (int edge) {
+        return weight[edge];
+    }
+
+    /**
+     * @param edge An edge ID.
+     * @return The first of the two edges a shortcut spans, or -1 for an original edge.
+     */
+    int first (int edge) {
+        return first[edge];
+    }
+
+    /**
+     * @param edge A shortcut's edge ID.
+     * @return The second of the two edges the shortcut spans.
+     */
+    int second (int edge) {
+        return second[edge];
+    }
+
+}
@@ -0,0 +1,137 @@
+package main.pathfinder.informed;
+
+/**
+ * A* search engine over a CorridorGraph. States are (node, hasKey) pairs,
+ * node + hasKey * nodeCount, and each expansion relaxes whole corridors at once,
+ * so the search touches only the graph's junctions and special cells. The route
+ * found is expanded back into one move per cell as it is traced.
+ */
+class CorridorAStar {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final CorridorGraph graph;
+    private final MazeGrid grid;
+    private final int nodes;
+    private final int[] g, parent, parentEdge;
+    private final boolean[] reached, expanded;
+    private final IndexedHeap frontier;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new CorridorAStar over the given graph, allocating the
+     * per-state arrays for both layers of its state space.
+     *
+     * @param graph The corridor graph to search.
+     */
+    CorridorAStar (CorridorGraph graph) {
+        this.graph = graph;
+        this.grid = graph.getGrid();
+        this.nodes = graph.getNodeCount();
+        this.g = new int[2 * nodes];
+        this.parent = new int[2 * nodes];
+        this.parentEdge = new int[2 * nodes];
+        this.reached = new boolean[2 * nodes];
+        this.expanded = new boolean[2 * nodes];
+        this.frontier = new IndexedHeap(2 * nodes);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the maze's initial cell, through its key, to
+     * any goal; the heuristic estimates node cells as GridAStar estimates cells.
+     *
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return The path leading from the initial state to a goal after collecting
+     * the key, or null if no such path exists.
+     */
+    CompactPath solveCompact (Heuristic heuristic) {
+        int initial = grid.getInitial(), key = grid.getKey();
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        if (heuristic.toGoal(key) == Heuristic.UNREACHABLE) { return null; }
+        int end = search(graph.nodeOf(initial), graph.nodeOf(key), heuristic);
+        return (end < 0) ? null : tracePath(end);
+    }
+
+    /**
+     * Completes an A* search over the (node, hasKey) state space, relaxing each
+     * corridor out of an expanded node as a single weighted edge.
+     *
+     * @param initial The node from which the search begins.
+     * @param key The node holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return The state at which the search ended, or -1 if no path exists.
+     */
+    private int search (int initial, int key, Heuristic heuristic) {
+        int keyCell = graph.cellOf(key), keyToGoal = heuristic.toGoal(keyCell);
+        int start = (initial == key) ? initial + nodes : initial;
+        reached[start] = true;
+        g[start] = 0;
+        parent[start] = -1;
+        frontier.offer(start, rank((start >= nodes) ? keyToGoal : heuristic.between(graph.cellOf(initial), keyCell) + keyToGoal, 0));
+        while (!frontier.isEmpty()) {
+            int state = frontier.pop();
+            boolean hasKey = state >= nodes;
+            int node = hasKey ? state - nodes : state;
+            if (hasKey && grid.isGoal(graph.cellOf(node))) { return state; }
+            expanded[state] = true;
+            for (int edge = graph.firstEdge(node); edge < graph.endEdge(node); edge++) {
+                int next = graph.target(edge), cell = graph.cellOf(next), h;
+                if (hasKey || next == key) {
+                    h = heuristic.toGoal(cell);
+                    if (h == Heuristic.UNREACHABLE) { continue; }
+                    next += nodes;
+                } else {
+                    h = heuristic.between(cell, keyCell) + keyToGoal;
+                }
+                if (expanded[next]) { continue; }
+                int cost = g[state] + graph.weight(edge);
+                if (!reached[next] || cost < g[next]) {
+                    reached[next] = true;
+                    g[next] = cost;
+                    parent[next] = state;
+                    parentEdge[next] = edge;
+                    frontier.offer(next, rank(cost + h, cost));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Packs a state's scores into its heap priority, ordering states by f and
+     * breaking ties toward the larger g, as GridAStar's frontier does.
+     *
+     * @param f The state's evaluation, g + h.
+     * @param g The cost of reaching the state.
+     * @return The state's priority.
+     */
+    private static long rank (int f, int g) {
+        return ((long) f << 32) | (Integer.MAX_VALUE - g);
+    }
+
+    /**
+     * Backtracks from the given state through the parent array, expanding each
+     * corridor taken into its moves, in start-to-end order.
+     *
+     * @param end The state at which the path ends.
+     * @return CompactPath of the directions taken to go from the initial to the end state.
+     */
+    private CompactPath tracePath (int end) {
+        int length = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) { length += graph.length(parentEdge[state]); }
+        CompactPath path = new CompactPath(length);
+        for (int state = end, at = length; parent[state] >= 0; state = parent[state]) {
+            at -= graph.length(parentEdge[state]);
+            graph.expand(parent[state] % nodes, parentEdge[state], path, at);
+        }
+        return path;
+    }
+
+}
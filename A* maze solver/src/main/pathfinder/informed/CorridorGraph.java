@@ -0,0 +1,268 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Sparse graph preprocessed from a compiled maze, for labyrinth-style mazes made
+ * mostly of 1-wide corridors and dead ends. Building it:
+ * <ul>
+ *   <li>Prunes dead-end pockets: open cells with at most one open neighbor are
+ *   peeled away repeatedly, unless they hold the initial state, the key, or a
+ *   goal, since no cheapest route ever enters such a pocket.</li>
+ *   <li>Keeps as nodes the remaining cells that are junctions (three or four open
+ *   neighbors), ends, or the initial, key, and goal cells.</li>
+ *   <li>Contracts each chain of corridor cells between two nodes into a pair of
+ *   directed edges, weighted by the accumulated cost of the cells entered along
+ *   them; corridors may run through mud and round corners.</li>
+ * </ul>
+ * Each edge remembers its first move and length, so that a route over the graph
+ * expands back into the full list of actions by walking its corridors again.
+ */
+public class CorridorGraph {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeGrid grid;
+    private final boolean[] pruned;
+    private final int[] cellNode, nodeCell;
+
+    // Edges out of node n are edgeStart[n] .. edgeStart[n + 1] - 1, in CSR form
+    private final int[] edgeStart, edgeTarget, edgeWeight, edgeLength;
+    private final byte[] edgeDirection;
+    private final int prunedCount;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new CorridorGraph from its precomputed tables.
+     */
+    private CorridorGraph (MazeGrid grid, boolean[] pruned, int prunedCount, int[] cellNode, int[] nodeCell,
+            int[] edgeStart, int[] edgeTarget, int[] edgeWeight, int[] edgeLength, byte[] edgeDirection) {
+        this.grid = grid;
+        this.pruned = pruned;
+        this.prunedCount = prunedCount;
+        this.cellNode = cellNode;
+        this.nodeCell = nodeCell;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeWeight = edgeWeight;
+        this.edgeLength = edgeLength;
+        this.edgeDirection = edgeDirection;
+    }
+
+    /**
+     * Builds the corridor graph of the given maze, for routes from its initial
+     * cell through its key to any of its goals.
+     *
+     * @param grid The compiled maze to preprocess.
+     * @return The new CorridorGraph.
+     */
+    public static CorridorGraph build (MazeGrid grid) {
+        int size = grid.size();
+        boolean[] kept = new boolean[size];
+        if (grid.getInitial() >= 0) { kept[grid.getInitial()] = true; }
+        if (grid.getKey() >= 0) { kept[grid.getKey()] = true; }
+        for (int goal : grid.getGoals()) { kept[goal] = true; }
+
+        // Peel dead ends until every unkept cell has at least two open neighbors
+        int[] degree = new int[size], stack = new int[size];
+        int top = 0, prunedCount = 0;
+        for (int cell = 0; cell < size; cell++) {
+            if (grid.isWall(cell)) { continue; }
+            for (int dir = 0; dir < 4; dir++) {
+                if (grid.neighbor(cell, dir) >= 0) { degree[cell]++; }
+            }
+            if (degree[cell] <= 1 && !kept[cell]) { stack[top++] = cell; }
+        }
+        boolean[] pruned = new boolean[size];
+        while (top > 0) {
+            int cell = stack[--top];
+            pruned[cell] = true;
+            prunedCount++;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next < 0 || pruned[next]) { continue; }
+                if (--degree[next] == 1 && !kept[next]) { stack[top++] = next; }
+            }
+        }
+
+        // Every remaining cell that is not a plain corridor cell becomes a node
+        int[] cellNode = new int[size];
+        Arrays.fill(cellNode, -1);
+        int nodes = 0, maxEdges = 0;
+        for (int cell = 0; cell < size; cell++) {
+            if (grid.isWall(cell) || pruned[cell] || (degree[cell] == 2 && !kept[cell])) { continue; }
+            cellNode[cell] = nodes++;
+            maxEdges += degree[cell];
+        }
+        int[] nodeCell = new int[nodes];
+        for (int cell = 0; cell < size; cell++) {
+            if (cellNode[cell] >= 0) { nodeCell[cellNode[cell]] = cell; }
+        }
+
+        // Walk each corridor out of each node to the node at its other end
+        int[] edgeStart = new int[nodes + 1], edgeTarget = new int[maxEdges], edgeWeight = new int[maxEdges],
+              edgeLength = new int[maxEdges];
+        byte[] edgeDirection = new byte[maxEdges];
+        int edges = 0;
+        for (int node = 0; node < nodes; node++) {
+            edgeStart[node] = edges;
+            int from = nodeCell[node];
+            for (int dir = 0; dir < 4; dir++) {
+                int prev = from, cell = next(grid, pruned, from, dir), weight = 0, length = 1;
+                if (cell < 0) { continue; }
+                while (cellNode[cell] < 0) {
+                    weight += grid.getCost(cell);
+                    int step = corridorStep(grid, pruned, cell, prev);
+                    prev = cell;
+                    cell = step;
+                    length++;
+                }
+                if (cell == from) { continue; }
+                edgeTarget[edges] = cellNode[cell];
+                edgeWeight[edges] = weight + grid.getCost(cell);
+                edgeLength[edges] = length;
+                edgeDirection[edges] = (byte) dir;
+                edges++;
+            }
+        }
+        edgeStart[nodes] = edges;
+        return new CorridorGraph(grid, pruned, prunedCount, cellNode, nodeCell, edgeStart,
+            Arrays.copyOf(edgeTarget, edges), Arrays.copyOf(edgeWeight, edges),
+            Arrays.copyOf(edgeLength, edges), Arrays.copyOf(edgeDirection, edges));
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The compiled maze this graph was built from.
+     */
+    public MazeGrid getGrid () {
+        return this.grid;
+    }
+
+    /**
+     * @return The number of nodes in the graph.
+     */
+    public int getNodeCount () {
+        return this.nodeCell.length;
+    }
+
+    /**
+     * @return The number of directed edges in the graph.
+     */
+    public int getEdgeCount () {
+        return this.edgeTarget.length;
+    }
+
+    /**
+     * @return The number of open cells removed as parts of dead-end pockets.
+     */
+    public int getPrunedCount () {
+        return this.prunedCount;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The cell's node, or -1 if it is not a node.
+     */
+    int nodeOf (int cell) {
+        return cellNode[cell];
+    }
+
+    /**
+     * @param node A node.
+     * @return The node's cell index.
+     */
+    int cellOf (int node) {
+        return nodeCell[node];
+    }
+
+    /**
+     * @param node A node.
+     * @return The index of the node's first outgoing edge.
+     */
+    int firstEdge (int node) {
+        return edgeStart[node];
+    }
+
+    /**
+     * @param node A node.
+     * @return One past the index of the node's last outgoing edge.
+     */
+    int endEdge (int node) {
+        return edgeStart[node + 1];
+    }
+
+    /**
+     * @param edge An edge index.
+     * @return The node at which the edge ends.
+     */
+    int target (int edge) {
+        return edgeTarget[edge];
+    }
+
+    /**
+     * @param edge An edge index.
+     * @return The total cost of the cells entered along the edge.
+     */
+    int weight (int edge) {
+        return edgeWeight[edge];
+    }
+
+    /**
+     * Appends the moves along the given edge, walking its corridor again.
+     *
+     * @param from The node at which the edge starts.
+     * @param edge The index of the edge.
+     * @param path The path being traced.
+     * @param at The index in the path of the edge's first move.
+     * @return The index just past the edge's last move.
+     */
+    int expand (int from, int edge, CompactPath path, int at) {
+        int prev = nodeCell[from], dir = edgeDirection[edge], cell = next(grid, pruned, prev, dir);
+        path.set(at++, dir);
+        for (int i = 1; i < edgeLength[edge]; i++) {
+            int step = corridorStep(grid, pruned, cell, prev);
+            path.set(at++, grid.direction(cell, step));
+            prev = cell;
+            cell = step;
+        }
+        return at;
+    }
+
+    /**
+     * @param edge An edge index.
+     * @return The number of moves along the edge.
+     */
+    int length (int edge) {
+        return edgeLength[edge];
+    }
+
+    /**
+     * @return The neighbor of the cell in the given direction if it is open and
+     * was not pruned, otherwise -1.
+     */
+    private static int next (MazeGrid grid, boolean[] pruned, int cell, int dir) {
+        int next = grid.neighbor(cell, dir);
+        return (next < 0 || pruned[next]) ? -1 : next;
+    }
+
+    /**
+     * @param cell A corridor cell, which has exactly two unpruned open neighbors.
+     * @param prev The neighbor it was entered from.
+     * @return Its other unpruned open neighbor.
+     */
+    private static int corridorStep (MazeGrid grid, boolean[] pruned, int cell, int prev) {
+        for (int dir = 0; dir < 4; dir++) {
+            int next = next(grid, pruned, cell, dir);
+            if (next >= 0 && next != prev) { return next; }
+        }
+        throw new IllegalStateException("Corridor cell " + cell + " has no way onward");
+    }
+
+}
@@ -0,0 +1,132 @@
+package main.pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Exact distance field over a compiled maze, computed by a Dijkstra search from
+ * a set of source cells. Fields are stored compactly: as 16-bit values whenever
+ * every finite distance fits, and as full ints otherwise.
+ */
+class DistanceField {
+
+    // Distance reported for cells that are cut off from every source
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // Sentinel used in place of UNREACHABLE by the 16-bit encoding
+    private static final int NARROW_UNREACHABLE = 0xFFFF;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final short[] narrow;
+    private final int[] wide;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new DistanceField around the given distances, narrowing them
+     * to 16 bits each if they all fit.
+     *
+     * @param dist Array indexed by cell of distances, UNREACHABLE where infinite.
+     */
+    DistanceField (int[] dist) {
+        int max = 0;
+        for (int d : dist) {
+            if (d != UNREACHABLE) { max = Math.max(max, d); }
+        }
+        if (max < NARROW_UNREACHABLE) {
+            this.narrow = new short[dist.length];
+            for (int cell = 0; cell < dist.length; cell++) {
+                this.narrow[cell] = (short) ((dist[cell] == UNREACHABLE) ? NARROW_UNREACHABLE : dist[cell]);
+            }
+            this.wide = null;
+        } else {
+            this.narrow = null;
+            this.wide = dist;
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @param cell A cell index.
+     * @return The distance recorded for that cell, or UNREACHABLE.
+     */
+    int get (int cell) {
+        if (wide != null) { return wide[cell]; }
+        int d = narrow[cell] & 0xFFFF;
+        return (d == NARROW_UNREACHABLE) ? UNREACHABLE : d;
+    }
+
+    /**
+     * Computes the cost of the cheapest path from every cell to the nearest of
+     * the given sources, where each step costs the cost of the cell entered.
+     *
+     * @param grid The compiled maze.
+     * @param sources The cells to measure distances to.
+     * @return The field of distances from each cell to the nearest source.
+     */
+    static DistanceField toSources (MazeGrid grid, int[] sources) {
+        return new DistanceField(dijkstra(grid, sources, true));
+    }
+
+    /**
+     * Computes the cost of the cheapest path from the nearest of the given
+     * sources to every cell.
+     *
+     * @param grid The compiled maze.
+     * @param sources The cells to measure distances from.
+     * @return The field of distances from the nearest source to each cell.
+     */
+    static DistanceField fromSources (MazeGrid grid, int[] sources) {
+        return new DistanceField(dijkstra(grid, sources, false));
+    }
+
+    /**
+     * Computes the cost of the cheapest path from every cell to the nearest goal.
+     *
+     * @param grid The compiled maze.
+     * @return The field of distances from each cell to the nearest goal.
+     */
+    static DistanceField toGoals (MazeGrid grid) {
+        return toSources(grid, grid.getGoals());
+    }
+
+    /**
+     * Multi-source Dijkstra search over the grid.
+     *
+     * @param grid The compiled maze.
+     * @param sources The cells at distance 0.
+     * @param reverse If true, measures paths from each cell to the sources,
+     * otherwise from the sources to each cell.
+     * @return Array indexed by cell of distances, with UNREACHABLE for walls and
+     * cells not connected to any source.
+     */
+    static int[] dijkstra (MazeGrid grid, int[] sources, boolean reverse) {
+        int[] dist = new int[grid.size()];
+        Arrays.fill(dist, UNREACHABLE);
+        Frontier frontier = Frontier.forGrid(grid, grid.size());
+        for (int source : sources) {
+            dist[source] = 0;
+            frontier.offer(source, 0, 0);
+        }
+        while (!frontier.isEmpty()) {
+            int cell = frontier.pop();
+            for (int dir = 0; dir < 4; dir++) {
+                int other = grid.neighbor(cell, dir);
+                if (other < 0) { continue; }
+                // A step always costs the cost of the cell being entered
+                int cost = dist[cell] + grid.getCost(reverse ? cell : other);
+                if (cost < dist[other]) {
+                    dist[other] = cost;
+                    frontier.offer(other, cost, cost);
+                }
+            }
+        }
+        return dist;
+    }
+
+}
@@ -0,0 +1,239 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offline builder of a FirstMoveDatabase. Open cells are first ordered by a
+ * depth-first traversal, which numbers cells close together in the maze close
+ * together in the order, and labels each connected component. Then, from every
+ * source cell, a Dijkstra search finds the set of moves that start a cheapest
+ * path to each target; the row of first moves over all targets, in that order,
+ * is compressed greedily into runs, each run covering as many consecutive
+ * targets as share at least one optimal first move. Rows are independent, so
+ * they are built on several threads at once.
+ */
+class FirstMoveBuilder {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // A first-move set allowing every move, for targets where any move will do
+    private static final int ANY = 0xF;
+
+    private final MazeGrid grid;
+    private final int size, count;
+    private final int[] rank, order, component;
+
+    // The maze's open cells relabeled by rank, so that searches touch memory in
+    // the same order-friendly way the rows are laid out: each cell's neighbor
+    // in each direction (-1 if none), and the cost of entering it
+    private final int[] adjacent;
+    private final byte[] cost;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new FirstMoveBuilder over the given maze, ordering its cells.
+     *
+     * @param grid The compiled maze to build a database for.
+     */
+    FirstMoveBuilder (MazeGrid grid) {
+        this.grid = grid;
+        this.size = grid.size();
+        this.rank = new int[size];
+        Arrays.fill(rank, -1);
+        int open = 0;
+        for (int cell = 0; cell < size; cell++) {
+            if (!grid.isWall(cell)) { open++; }
+        }
+        if (open > 1 << 30) { throw new IllegalArgumentException("Maze has too many open cells for a first-move database"); }
+        this.count = open;
+        this.order = new int[open];
+        this.component = new int[open];
+
+        // Number cells in depth-first preorder, one component at a time
+        int[] stack = new int[16];
+        int next = 0, components = 0;
+        for (int root = 0; root < size; root++) {
+            if (grid.isWall(root) || rank[root] >= 0) { continue; }
+            int depth = 0;
+            stack[depth++] = root;
+            while (depth > 0) {
+                int cell = stack[--depth];
+                if (rank[cell] >= 0) { continue; }
+                rank[cell] = next;
+                order[next] = cell;
+                component[next++] = components;
+                for (int dir = 3; dir >= 0; dir--) {
+                    int neighbor = grid.neighbor(cell, dir);
+                    if (neighbor < 0 || rank[neighbor] >= 0) { continue; }
+                    if (depth == stack.length) { stack = Arrays.copyOf(stack, 2 * depth); }
+                    stack[depth++] = neighbor;
+                }
+            }
+            components++;
+        }
+        this.adjacent = new int[4 * open];
+        this.cost = new byte[open];
+        for (int i = 0; i < open; i++) {
+            cost[i] = (byte) grid.getCost(order[i]);
+            for (int dir = 0; dir < 4; dir++) {
+                int neighbor = grid.neighbor(order[i], dir);
+                adjacent[4 * i + dir] = (neighbor < 0) ? -1 : rank[neighbor];
+            }
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Builds the first-move rows of every source cell.
+     *
+     * @param threads The number of threads to build rows on.
+     * @return The finished FirstMoveDatabase.
+     */
+    FirstMoveDatabase build (int threads) {
+        if (threads < 1) { throw new IllegalArgumentException("Thread count must be positive"); }
+        int[][] rows = new int[count][];
+        AtomicInteger nextSource = new AtomicInteger();
+        Throwable[] failure = new Throwable[1];
+        Runnable worker = () -> {
+            try {
+                RowSearch search = new RowSearch();
+                for (int source = nextSource.getAndIncrement(); source < count; source = nextSource.getAndIncrement()) {
+                    rows[source] = search.row(source);
+                }
+            } catch (Throwable e) {
+                synchronized (failure) { failure[0] = e; }
+                nextSource.set(count);
+            }
+        };
+        Thread[] running = new Thread[threads - 1];
+        for (int i = 0; i < running.length; i++) {
+            running[i] = new Thread(worker, "first-move-builder-" + i);
+            running[i].start();
+        }
+        worker.run();
+        try {
+            for (Thread thread : running) { thread.join(); }
+        } catch (InterruptedException e) {
+            nextSource.set(count);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building", e);
+        }
+        synchronized (failure) {
+            if (failure[0] != null) { throw new IllegalStateException("Builder thread failed", failure[0]); }
+        }
+
+        // Concatenate the rows into one run array
+        long[] rowStart = new long[count + 1];
+        for (int source = 0; source < count; source++) {
+            rowStart[source + 1] = rowStart[source] + rows[source].length;
+        }
+        if (rowStart[count] > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Maze needs too many runs for a first-move database");
+        }
+        int[] runs = new int[(int) rowStart[count]];
+        for (int source = 0; source < count; source++) {
+            System.arraycopy(rows[source], 0, runs, (int) rowStart[source], rows[source].length);
+            rows[source] = null;
+        }
+        return new FirstMoveDatabase(grid, rank, component, rowStart, runs);
+    }
+
+    /**
+     * A single thread's scratch space for searching from sources and compressing
+     * their rows.
+     */
+    private class RowSearch {
+
+        private final int[] dist = new int[count], reached = new int[count];
+        private final byte[] moves = new byte[count];
+        private final int[][] buckets = new int[4][16];
+        private final int[] bucketSize = new int[4];
+        private int[] row = new int[16];
+        private int search;
+
+        /**
+         * Runs a Dijkstra search from the given source, over cells by rank, with
+         * one bucket per distance modulo 4 since no move costs more than 3, and
+         * compresses the optimal first moves to every target.
+         *
+         * @param source The source cell's rank.
+         * @return The source's row of runs.
+         */
+        int[] row (int source) {
+            search++;
+            int queued = 1;
+            reached[source] = search;
+            dist[source] = 0;
+            moves[source] = 0;
+            push(0, source);
+            for (int d = 0; queued > 0; d++) {
+                int bucket = d & 3;
+                while (bucketSize[bucket] > 0) {
+                    int cell = buckets[bucket][--bucketSize[bucket]];
+                    queued--;
+                    if (dist[cell] != d) { continue; }
+                    for (int dir = 0; dir < 4; dir++) {
+                        int next = adjacent[4 * cell + dir];
+                        if (next < 0) { continue; }
+                        int total = d + cost[next], first = (cell == source) ? 1 << dir : moves[cell];
+                        if (reached[next] != search || total < dist[next]) {
+                            reached[next] = search;
+                            dist[next] = total;
+                            moves[next] = (byte) first;
+                            push(total & 3, next);
+                            queued++;
+                        } else if (total == dist[next]) {
+                            // Another cheapest path: any of its first moves is optimal too
+                            moves[next] |= first;
+                        }
+                    }
+                }
+            }
+
+            // Greedily extend each run while its targets share an optimal move
+            int runs = 0, shared = ANY, runStart = 0;
+            for (int target = 0; target < count; target++) {
+                int allowed = (target == source || component[target] != component[source]) ? ANY : moves[target];
+                if ((shared & allowed) == 0) {
+                    runs = emit(runs, runStart, shared);
+                    runStart = target;
+                    shared = allowed;
+                } else {
+                    shared &= allowed;
+                }
+            }
+            runs = emit(runs, runStart, shared);
+            return Arrays.copyOf(row, runs);
+        }
+
+        /**
+         * Appends a run to the row being compressed.
+         *
+         * @return The new number of runs in the row.
+         */
+        private int emit (int runs, int start, int shared) {
+            if (runs == row.length) { row = Arrays.copyOf(row, 2 * runs); }
+            row[runs] = (start << 2) | Integer.numberOfTrailingZeros(shared);
+            return runs + 1;
+        }
+
+        /**
+         * Adds a cell to one of the distance buckets.
+         */
+        private void push (int bucket, int cell) {
+            if (bucketSize[bucket] == buckets[bucket].length) {
+                buckets[bucket] = Arrays.copyOf(buckets[bucket], 2 * bucketSize[bucket]);
+            }
+            buckets[bucket][bucketSize[bucket]++] = cell;
+        }
+
+    }
+
+}
@@ -0,0 +1,294 @@
+package main.pathfinder.informed;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Compressed path database (CPD) of the optimal first move from every open cell
+ * to every other, for simulators that move many agents across a static maze and
+ * need each agent's next move every tick. Queries do no search at all: the next
+ * move toward a target is looked up by a binary search among the runs of its
+ * source's row, and a whole path is streamed by following next moves.
+ * <p>
+ * Each source's row lists a first move for every target, with targets ordered
+ * depth-first through the maze so that nearby targets, which tend to share a
+ * first move, sit next to each other; rows are stored run-length encoded, and
+ * most mazes compress to a few runs per row. Building a database runs one
+ * Dijkstra search per open cell, and is meant to run offline; the result can be
+ * saved to a file and mapped straight into memory at service start:
+ * <pre>
+ * int  magic ("MCPD")     int  version
+ * int  rows               int  cols          long fingerprint of the maze
+ * int  open cells         int  padding       long run count
+ * int  rank[rows * cols]                     (the cell's place in the order, -1 for walls)
+ * int  component[open cells]                 (by rank; cells in different components are unreachable)
+ * int  padding, if needed to align what follows to 8 bytes
+ * long row start[open cells + 1]             (by rank, indices into the runs)
+ * int  runs[run count]                       (the run's first target rank &lt;&lt; 2 | move)
+ * </pre>
+ * A database describes the maze's walls and costs as they were when it was
+ * built, so it must be rebuilt after any MazeGrid.setCell. Queries may be made
+ * from any number of threads at once.
+ */
+public class FirstMoveDatabase {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int MAGIC = 0x4D435044, VERSION = 1, HEADER = 40;
+
+    private final MazeGrid grid;
+    private final IntBuffer rank, component, runs;
+    private final LongBuffer rowStart;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new FirstMoveDatabase around built arrays.
+     */
+    FirstMoveDatabase (MazeGrid grid, int[] rank, int[] component, long[] rowStart, int[] runs) {
+        this(grid, IntBuffer.wrap(rank), IntBuffer.wrap(component), LongBuffer.wrap(rowStart), IntBuffer.wrap(runs));
+    }
+
+    /**
+     * Constructs a new FirstMoveDatabase around its tables, in memory or mapped.
+     */
+    private FirstMoveDatabase (MazeGrid grid, IntBuffer rank, IntBuffer component, LongBuffer rowStart, IntBuffer runs) {
+        this.grid = grid;
+        this.rank = rank;
+        this.component = component;
+        this.rowStart = rowStart;
+        this.runs = runs;
+    }
+
+    /**
+     * Builds the first-move database of the given maze on one thread per
+     * available processor. This costs a Dijkstra search per open cell, so grows
+     * with the square of the maze's size, and is meant to run offline.
+     *
+     * @param grid The compiled maze to preprocess.
+     * @return The new FirstMoveDatabase.
+     */
+    public static FirstMoveDatabase build (MazeGrid grid) {
+        return build(grid, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds the first-move database of the given maze on the given number of
+     * threads.
+     *
+     * @param grid The compiled maze to preprocess.
+     * @param threads The number of threads to build on.
+     * @return The new FirstMoveDatabase.
+     */
+    public static FirstMoveDatabase build (MazeGrid grid, int threads) {
+        return new FirstMoveBuilder(grid).build(threads);
+    }
+
+    /**
+     * Opens a database saved by save, mapping its tables into memory rather than
+     * reading them, and checking that it was built for a maze with the same walls
+     * and costs as the given one.
+     *
+     * @param file The database file to open.
+     * @param grid The compiled maze the database was built for.
+     * @return The mapped FirstMoveDatabase.
+     * @throws IOException If the file cannot be read or is not a valid database.
+     * @throws IllegalArgumentException If the database was built for a different maze.
+     */
+    public static FirstMoveDatabase open (Path file, MazeGrid grid) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) { throw new IOException("First-move database is truncated"); }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC) { throw new IOException(file + " is not a first-move database"); }
+            int version = header.getInt();
+            if (version != VERSION) { throw new IOException("Unsupported first-move database version " + version); }
+            if (header.getInt() != grid.getRows() || header.getInt() != grid.getCols() || header.getLong() != grid.fingerprint()) {
+                throw new IllegalArgumentException("First-move database was built for a different maze");
+            }
+            int count = header.getInt();
+            header.getInt();
+            long runCount = header.getLong();
+            if (count < 0 || runCount < 0) { throw new IOException("Corrupt first-move database header"); }
+
+            long rankAt = HEADER, componentAt = rankAt + 4L * grid.size(), rowStartAt = componentAt + 4L * count;
+            rowStartAt += rowStartAt & 4;
+            long runsAt = rowStartAt + 8L * (count + 1);
+            if (channel.size() < runsAt + 4 * runCount) { throw new IOException("First-move database is truncated"); }
+            LongBuffer rowStart = map(channel, rowStartAt, 8L * (count + 1)).asLongBuffer();
+            if (rowStart.get(0) != 0 || rowStart.get(count) != runCount) { throw new IOException("Corrupt first-move database rows"); }
+            return new FirstMoveDatabase(grid, map(channel, rankAt, 4L * grid.size()).asIntBuffer(),
+                map(channel, componentAt, 4L * count).asIntBuffer(), rowStart, map(channel, runsAt, 4 * runCount).asIntBuffer());
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Writes this database to a file in the format that open maps.
+     *
+     * @param file The file to write, replacing any existing file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save (Path file) throws IOException {
+        int count = component.limit();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(grid.getRows());
+            data.writeInt(grid.getCols());
+            data.writeLong(grid.fingerprint());
+            data.writeInt(count);
+            data.writeInt(0);
+            data.writeLong(runs.limit());
+            for (int i = 0; i < rank.limit(); i++) { data.writeInt(rank.get(i)); }
+            for (int i = 0; i < count; i++) { data.writeInt(component.get(i)); }
+            if (((grid.size() + count) & 1) != 0) { data.writeInt(0); }
+            for (int i = 0; i <= count; i++) { data.writeLong(rowStart.get(i)); }
+            for (int i = 0; i < runs.limit(); i++) { data.writeInt(runs.get(i)); }
+            data.flush();
+        }
+    }
+
+    /**
+     * @return The compiled maze this database was built for.
+     */
+    public MazeGrid getGrid () {
+        return this.grid;
+    }
+
+    /**
+     * @return The total number of runs over every source's row; divided by the
+     * number of open cells, the average cost of a row.
+     */
+    public long getRunCount () {
+        return runs.limit();
+    }
+
+    /**
+     * Looks up the first move of a cheapest path between two cells.
+     *
+     * @param source Cell index (see MazeGrid.index) of the open cell to move from.
+     * @param target Cell index of the open cell to move toward.
+     * @return The move's direction, one of MazeGrid's UP, DOWN, LEFT, and RIGHT,
+     * or -1 if the cells are the same or no path connects them.
+     */
+    public int nextMove (int source, int target) {
+        checkCell(source);
+        checkCell(target);
+        return move(source, target);
+    }
+
+    /**
+     * Looks up the first action of a cheapest path between two cells.
+     *
+     * @param source Cell index (see MazeGrid.index) of the open cell to move from.
+     * @param target Cell index of the open cell to move toward.
+     * @return The action, one of "U", "D", "L", and "R", or null if the cells are
+     * the same or no path connects them.
+     */
+    public String nextAction (int source, int target) {
+        int move = nextMove(source, target);
+        return (move < 0) ? null : MazeGrid.ACTIONS[move];
+    }
+
+    /**
+     * Streams the moves of a cheapest path between two cells, looking each up as
+     * the stream is consumed.
+     *
+     * @param source Cell index (see MazeGrid.index) of the open cell to start from.
+     * @param target Cell index of the open cell to end at.
+     * @return The path's move directions (see nextMove), empty if the cells are
+     * the same or no path connects them.
+     */
+    public IntStream moves (int source, int target) {
+        checkCell(source);
+        checkCell(target);
+        PrimitiveIterator.OfInt iterator = new PrimitiveIterator.OfInt() {
+            private int cell = source, next = move(source, target);
+
+            @Override
+            public boolean hasNext () {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt () {
+                if (next < 0) { throw new NoSuchElementException(); }
+                int result = next;
+                cell = grid.neighbor(cell, result);
+                next = (cell == target) ? -1 : move(cell, target);
+                return result;
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Looks up every move of a cheapest path between two cells.
+     *
+     * @param source Cell index (see MazeGrid.index) of the open cell to start from.
+     * @param target Cell index of the open cell to end at.
+     * @return The path, empty if the cells are the same, or null if no path
+     * connects them.
+     */
+    public CompactPath path (int source, int target) {
+        checkCell(source);
+        checkCell(target);
+        int from = rank.get(source), to = rank.get(target);
+        if (component.get(from) != component.get(to)) { return null; }
+        byte[] moves = new byte[16];
+        int length = 0;
+        for (int cell = source; cell != target; length++) {
+            if (length == moves.length) { moves = Arrays.copyOf(moves, 2 * length); }
+            moves[length] = (byte) move(cell, target);
+            cell = grid.neighbor(cell, moves[length]);
+        }
+        CompactPath path = new CompactPath(length);
+        for (int i = 0; i < length; i++) { path.set(i, moves[i]); }
+        return path;
+    }
+
+    /**
+     * Finds the run of the source's row that covers the target.
+     *
+     * @return The first move, or -1 if the cells are the same or disconnected.
+     */
+    private int move (int source, int target) {
+        int from = rank.get(source), to = rank.get(target);
+        if (from == to || component.get(from) != component.get(to)) { return -1; }
+        int lo = (int) rowStart.get(from), hi = (int) rowStart.get(from + 1) - 1;
+        // The last run starting at or before the target; the first run starts at 0
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if ((runs.get(mid) >>> 2) <= to) { lo = mid; } else { hi = mid - 1; }
+        }
+        return runs.get(lo) & 3;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the cell is not an open cell of the maze.
+     */
+    private void checkCell (int cell) {
+        if (cell < 0 || cell >= grid.size() || grid.isWall(cell)) {
+            throw new IllegalArgumentException("Query cell " + cell + " is not an open cell of the maze");
+        }
+    }
+
+    /**
+     * Maps a section of the database file.
+     */
+    private static ByteBuffer map (FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) { throw new IOException("First-move database section is too large to map"); }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+}
@@ -0,0 +1,200 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Fringe Search over a MazeProblem's cells: visits states in the same order as
+ * IDA*, but keeps the fringe of each iteration in a linked list, so that the
+ * next iteration resumes from it instead of restarting from the root. There is
+ * no priority queue and nothing is sorted; each reached state costs a cache
+ * entry holding its g-score, parent, and list links, in a LongMap-indexed slot
+ * as in SparseAStar. The cache may be capped, for when the search must fit in
+ * a memory budget: a capped search that reaches more states gives up.
+ */
+class FringeSearch {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final int rows, cols, maxStates;
+    private boolean overBudget;
+
+    // The cache, by slot: each reached state, its g-score and parent slot, and its
+    // links in the fringe list (inList marks whether it is still on it)
+    private final LongMap slotOf = new LongMap(-1);
+    private long[] stateOf = new long[64];
+    private int[] g = new int[64], parent = new int[64], prev = new int[64], next = new int[64];
+    private boolean[] inList = new boolean[64];
+    private int slots, head = -1;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new FringeSearch over the given maze.
+     *
+     * @param problem The maze to search.
+     * @param maxStates The most states the search may cache before giving up.
+     */
+    FringeSearch (MazeProblem problem, int maxStates) {
+        if (maxStates <= 0) { throw new IllegalArgumentException("State limit must be positive"); }
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.maxStates = maxStates;
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the initial cell, through the key, to any goal.
+     *
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists or the search went over its state limit.
+     */
+    ArrayList<String> solve () {
+        MazeState initial = problem.getInitialState(), key = problem.getKeyState();
+        if (initial == null || key == null || problem.getGoalStates().isEmpty()) { return null; }
+        int end = search(initial, initial.equals(key), new ManhattanEstimate(problem));
+        return (end < 0) ? null : tracePath(end);
+    }
+
+    /**
+     * @return Whether the last solve gave up on reaching its state limit.
+     */
+    boolean isOverBudget () {
+        return this.overBudget;
+    }
+
+    /**
+     * Runs the search's iterations: each pass over the fringe expands, in list
+     * order, every state whose f-score is within the threshold, inserting its
+     * children right after it so that they are visited in the same pass, and
+     * raises the threshold to the smallest f-score it passed over.
+     *
+     * @return The slot of the goal reached, or -1 if there is none.
+     */
+    private int search (MazeState initial, boolean startHasKey, ManhattanEstimate heuristic) {
+        int start = reach(state(initial.col, initial.row, startHasKey), 0, -1);
+        if (start < 0) { return -1; }
+        link(start, -1);
+        long threshold = heuristic.estimate(initial.col, initial.row, startHasKey);
+        while (head >= 0) {
+            long nextThreshold = Long.MAX_VALUE;
+            for (int slot = head; slot >= 0; ) {
+                long state = stateOf[slot], cell = state >>> 1;
+                boolean hasKey = (state & 1) != 0;
+                int col = (int) (cell % cols), row = (int) (cell / cols);
+                long f = (long) g[slot] + heuristic.estimate(col, row, hasKey);
+                if (f > threshold) {
+                    nextThreshold = Math.min(nextThreshold, f);
+                    slot = next[slot];
+                    continue;
+                }
+                if (hasKey && problem.getCell(col, row) == 'G') { return slot; }
+                for (int dir = 3; dir >= 0; dir--) {
+                    int nextCol = col + MazeGrid.DCOL[dir], nextRow = row + MazeGrid.DROW[dir];
+                    if (nextRow < 0 || nextRow >= rows || nextCol < 0 || nextCol >= cols) { continue; }
+                    char symbol = problem.getCell(nextCol, nextRow);
+                    if (symbol == 'X') { continue; }
+                    long child = state(nextCol, nextRow, hasKey || symbol == 'K');
+                    int cost = g[slot] + MazeProblem.costOf(symbol), childSlot = slotOf.get(child);
+                    if (childSlot >= 0) {
+                        if (g[childSlot] <= cost) { continue; }
+                        g[childSlot] = cost;
+                        parent[childSlot] = slot;
+                        if (inList[childSlot]) { unlink(childSlot); }
+                    } else {
+                        childSlot = reach(child, cost, slot);
+                        if (childSlot < 0) { return -1; }
+                    }
+                    link(childSlot, slot);
+                }
+                int following = next[slot];
+                unlink(slot);
+                slot = following;
+            }
+            threshold = nextThreshold;
+        }
+        return -1;
+    }
+
+    /**
+     * Gives a newly reached state a slot in the cache.
+     *
+     * @return The state's slot, or -1 if the cache is at its limit.
+     */
+    private int reach (long state, int cost, int from) {
+        if (slots == maxStates) {
+            overBudget = true;
+            return -1;
+        }
+        if (slots == stateOf.length) {
+            int capacity = (int) Math.min(maxStates, 2L * slots);
+            stateOf = Arrays.copyOf(stateOf, capacity);
+            g = Arrays.copyOf(g, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+            inList = Arrays.copyOf(inList, capacity);
+        }
+        int slot = slots++;
+        slotOf.put(state, slot);
+        stateOf[slot] = state;
+        g[slot] = cost;
+        parent[slot] = from;
+        return slot;
+    }
+
+    /**
+     * Inserts a slot into the fringe list right after another.
+     *
+     * @param slot The slot to insert.
+     * @param after The slot to insert it after, or -1 to insert it at the head.
+     */
+    private void link (int slot, int after) {
+        int following = (after < 0) ? head : next[after];
+        prev[slot] = after;
+        next[slot] = following;
+        if (following >= 0) { prev[following] = slot; }
+        if (after >= 0) { next[after] = slot; } else { head = slot; }
+        inList[slot] = true;
+    }
+
+    /**
+     * Removes a slot from the fringe list.
+     */
+    private void unlink (int slot) {
+        if (prev[slot] >= 0) { next[prev[slot]] = next[slot]; } else { head = next[slot]; }
+        if (next[slot] >= 0) { prev[next[slot]] = prev[slot]; }
+        inList[slot] = false;
+    }
+
+    /**
+     * Walks the parent slots back from the given slot to the start.
+     *
+     * @param end The slot of the final state.
+     * @return The actions leading to the final state.
+     */
+    private ArrayList<String> tracePath (int end) {
+        ArrayList<String> path = new ArrayList<>();
+        for (int slot = end; parent[slot] >= 0; slot = parent[slot]) {
+            long delta = (stateOf[slot] >>> 1) - (stateOf[parent[slot]] >>> 1);
+            path.add((delta == -cols) ? "U" : (delta == cols) ? "D" : (delta == -1) ? "L" : "R");
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @return The state ID of the given cell and key layer.
+     */
+    private long state (int col, int row, boolean hasKey) {
+        return (((long) row * cols + col) << 1) | (hasKey ? 1 : 0);
+    }
+
+}
@@ -0,0 +1,52 @@
+package main.pathfinder.informed;
+
+/**
+ * Open list of an A* search over int state IDs, ordered by f = g + h with ties
+ * broken toward the larger g. Each state is held at most once: offering a state
+ * that is already queued replaces its entry only if the new one ranks earlier.
+ */
+interface Frontier {
+
+    /**
+     * @return Whether or not the frontier is empty.
+     */
+    boolean isEmpty ();
+
+    /**
+     * Inserts the state with the given scores, or moves it forward if it is
+     * already queued with a worse (f, g) ranking.
+     *
+     * @param state The state to insert or update.
+     * @param f The state's evaluation, g + h.
+     * @param g The cost of reaching the state.
+     */
+    void offer (int state, int f, int g);
+
+    /**
+     * Removes and returns the state with the smallest f, preferring larger g.
+     *
+     * @return The removed state.
+     */
+    int pop ();
+
+    /**
+     * Removes every state from the frontier in time proportional to its size.
+     */
+    void clear ();
+
+    /**
+     * Creates the frontier for searching the given grid, which is always a
+     * bucket queue: a MazeGrid stores each cell's cost in the 4 bits of
+     * MazeGrid.COST_MASK, so no step raises f by more than 16 and the queue
+     * never needs more than a few dozen buckets. An indexed heap would only pay
+     * off for cost ranges too wide for that encoding to express.
+     *
+     * @param grid The compiled maze that will be searched.
+     * @param capacity The number of distinct states that may be queued.
+     * @return The new, empty frontier.
+     */
+    static Frontier forGrid (MazeGrid grid, int capacity) {
+        return new BucketQueue(capacity, grid.getMaxCost() + 2);
+    }
+
+}
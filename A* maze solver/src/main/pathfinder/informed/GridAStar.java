@@ -0,0 +1,257 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * A* search engine that runs directly on a compiled MazeGrid. States are int IDs
+ * in the layered (cell, hasKey) product space, cell + hasKey * size, so the whole
+ * initial-to-key-to-goal route is found by a single search. g-scores, parents,
+ * and closed flags live in primitive arrays, so a search does not allocate
+ * anything per generated node. The arrays are never cleared between searches:
+ * each entry is stamped with the generation of the search that wrote it, and
+ * entries from older generations read as unset, so starting a search is O(1).
+ */
+class GridAStar {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeGrid grid;
+    private final int size;
+    private final int[] g, parent;
+    private final Frontier frontier;
+
+    // Generation stamps marking which g entries and closed flags belong to the
+    // current search
+    private final int[] reached, expanded;
+    private int generation;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new GridAStar over the given compiled maze, allocating the
+     * per-state score arrays for both layers of the state space.
+     *
+     * @param grid The compiled maze to search.
+     */
+    GridAStar (MazeGrid grid) {
+        this.grid = grid;
+        this.size = grid.size();
+        this.g = new int[2 * size];
+        this.parent = new int[2 * size];
+        this.reached = new int[2 * size];
+        this.expanded = new int[2 * size];
+        this.frontier = Frontier.forGrid(grid, 2 * size);
+    }
+
+    /**
+     * Constructs a new GridAStar over the given compiled maze that takes over the
+     * score arrays, frontier, and generation counter of an engine no longer in
+     * use, whose arrays cover both layers of this maze's state space.
+     *
+     * @param grid The compiled maze to search.
+     * @param scratch The engine whose arrays to take over.
+     */
+    private GridAStar (MazeGrid grid, GridAStar scratch) {
+        this.grid = grid;
+        this.size = grid.size();
+        this.g = scratch.g;
+        this.parent = scratch.parent;
+        this.reached = scratch.reached;
+        this.expanded = scratch.expanded;
+        this.frontier = scratch.frontier;
+        this.generation = scratch.generation;
+    }
+
+    /**
+     * Returns an engine over the given maze, reusing the arrays of a previous
+     * engine if they are large enough and its frontier suits the maze's costs,
+     * so that solving a run of similar mazes allocates no search state; the
+     * previous engine must not be used again.
+     *
+     * @param previous An engine no longer in use, or null.
+     * @param grid The compiled maze to search.
+     * @return An engine over the given maze.
+     */
+    static GridAStar reuse (GridAStar previous, MazeGrid grid) {
+        if (previous != null && previous.g.length >= 2 * grid.size() && previous.grid.getMaxCost() == grid.getMaxCost()) {
+            return new GridAStar(grid, previous);
+        }
+        return new GridAStar(grid);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the initial cell, through the key, to any goal.
+     * With the key in hand, a state is estimated by the heuristic's distance to
+     * the nearest goal; without it, by the estimated distance to the key plus the
+     * key's own estimated distance to the nearest goal.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists.
+     */
+    ArrayList<String> solve (int initial, int key, Heuristic heuristic) {
+        return solve(initial, key, heuristic, null);
+    }
+
+    /**
+     * Finds the same path as solve, recording the search's counters and timings.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists.
+     */
+    ArrayList<String> solve (int initial, int key, Heuristic heuristic, SearchStats stats) {
+        CompactPath path = solveCompact(initial, key, heuristic, stats);
+        return (path == null) ? null : new ArrayList<String>(path.asList());
+    }
+
+    /**
+     * Finds the same path as solve, returned in packed form.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return The path leading from the initial state to a goal after collecting
+     * the key, or null if no such path exists.
+     */
+    CompactPath solveCompact (int initial, int key, Heuristic heuristic) {
+        return solveCompact(initial, key, heuristic, null);
+    }
+
+    /**
+     * Finds the same path as solveCompact, recording the search's counters and
+     * timings.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return The path leading from the initial state to a goal after collecting
+     * the key, or null if no such path exists.
+     */
+    CompactPath solveCompact (int initial, int key, Heuristic heuristic, SearchStats stats) {
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        if (heuristic.toGoal(key) == Heuristic.UNREACHABLE) { return null; }
+        int end = search(initial, key, heuristic, stats);
+        if (end < 0) { return null; }
+        if (stats == null) { return tracePath(end); }
+        long traced = System.nanoTime();
+        CompactPath path = tracePath(end);
+        stats.addTrace(System.nanoTime() - traced);
+        return path;
+    }
+
+    /**
+     * Completes an A* search over the (cell, hasKey) state space from the given
+     * initial cell to any goal reached while holding the key. The g array
+     * doubles as the best-g table: a state is only (re)queued when it is
+     * reached more cheaply than before, and then by moving its existing entry.
+     *
+     * @param initial The cell from which the search begins.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return The state at which the search ended, or -1 if no path exists.
+     */
+    private int search (int initial, int key, Heuristic heuristic, SearchStats stats) {
+        // Counted in locals either way, and only handed to the stats at the end
+        long started = (stats == null) ? 0 : System.nanoTime(), keyExpanded = 0;
+        int expansions = 0, pushes = 1, decreases = 0, queued = 1, peak = 1, end = -1;
+        int keyToGoal = heuristic.toGoal(key);
+        nextGeneration();
+        frontier.clear();
+        int start = (initial == key) ? initial + size : initial;
+        reached[start] = generation;
+        g[start] = 0;
+        parent[start] = -1;
+        frontier.offer(start, (start >= size) ? keyToGoal : heuristic.between(initial, key) + keyToGoal, 0);
+        while (!frontier.isEmpty()) {
+            int state = frontier.pop();
+            queued--;
+            boolean hasKey = state >= size;
+            if (hasKey && keyExpanded == 0) { keyExpanded = (stats == null) ? 1 : System.nanoTime(); }
+            int cell = hasKey ? state - size : state;
+            if (hasKey && grid.isGoal(cell)) {
+                end = state;
+                break;
+            }
+            expanded[state] = generation;
+            expansions++;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next < 0) { continue; }
+                int stepCost = grid.getCost(next), h;
+                if (hasKey || next == key) {
+                    // Cells that cannot reach any goal are dead ends once the key is held
+                    h = heuristic.toGoal(next);
+                    if (h == Heuristic.UNREACHABLE) { continue; }
+                    next += size;
+                } else {
+                    h = heuristic.between(next, key) + keyToGoal;
+                }
+                if (expanded[next] == generation) { continue; }
+                int cost = g[state] + stepCost;
+                if (reached[next] != generation) {
+                    if (++queued > peak) { peak = queued; }
+                } else if (cost < g[next]) {
+                    decreases++;
+                } else {
+                    continue;
+                }
+                reached[next] = generation;
+                g[next] = cost;
+                parent[next] = state;
+                frontier.offer(next, cost + h, cost);
+                pushes++;
+            }
+        }
+        if (stats != null) {
+            long ended = System.nanoTime(), split = (keyExpanded == 0) ? ended : keyExpanded;
+            stats.addSearch(expansions, pushes, decreases, peak, split - started, ended - split);
+        }
+        return end;
+    }
+
+    /**
+     * Starts a new search generation, invalidating every g entry and closed flag
+     * at once; the stamps are only actually cleared when the counter wraps.
+     */
+    private void nextGeneration () {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(expanded, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Backtracks from the given state through the parent array, packing the
+     * moves that led to it in start-to-end order.
+     *
+     * @param end The state at which the path ends.
+     * @return CompactPath of the directions taken to go from the initial to the end state.
+     */
+    private CompactPath tracePath (int end) {
+        int length = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) { length++; }
+        CompactPath path = new CompactPath(length);
+        for (int state = end, i = length - 1; parent[state] >= 0; state = parent[state], i--) {
+            path.set(i, grid.direction(parent[state] % size, state % size));
+        }
+        return path;
+    }
+
+}
@@ -0,0 +1,319 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel, hash-distributed A* (HDA*) over the (cell, hasKey) state space of a
+ * compiled maze. Every state is owned by one worker thread, chosen by a hash of
+ * its ID, and only its owner ever reads or writes its g-score and parent:
+ * <ul>
+ *   <li>Each worker keeps its own open list and expands its own states in f order.</li>
+ *   <li>Successors owned by other workers are batched and sent to their owner's
+ *   lock-free inbox, where they are merged into its open list.</li>
+ *   <li>States are reopened whenever a cheaper g arrives, since the workers only
+ *   approximate a global f order.</li>
+ * </ul>
+ * Goals reached lower a shared incumbent cost, and states whose f reaches it are
+ * discarded. The search ends when every worker is idle and no batch is in
+ * flight, which a single counter of busy workers plus unprocessed batches
+ * detects; the incumbent is then optimal.
+ */
+class HashDistributedAStar {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int INF = Integer.MAX_VALUE;
+
+    // States per batch sent between workers, and expansions between flushes of
+    // the partially filled batches
+    private static final int BATCH = 256, SLICE = 1024;
+
+    private final MazeGrid grid;
+    private final int size, threads;
+    private final int[] g, parent;
+
+    // Per-search state shared by the workers
+    private Heuristic heuristic;
+    private int key, keyToGoal;
+    private ConcurrentLinkedQueue<int[]>[] inboxes;
+    private AtomicLong incumbent, work;
+    private volatile boolean done;
+    private volatile Throwable failure;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new HashDistributedAStar over the given compiled maze.
+     *
+     * @param grid The compiled maze to search.
+     * @param threads The number of worker threads to search with.
+     */
+    HashDistributedAStar (MazeGrid grid, int threads) {
+        if (threads < 1) { throw new IllegalArgumentException("Thread count must be positive"); }
+        this.grid = grid;
+        this.size = grid.size();
+        this.threads = threads;
+        this.g = new int[2 * size];
+        this.parent = new int[2 * size];
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the initial cell, through the key, to any goal,
+     * returning once every worker has finished.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search; it is called
+     * from every worker, so it must be safe to read concurrently.
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists.
+     */
+    @SuppressWarnings("unchecked")
+    ArrayList<String> solve (int initial, int key, Heuristic heuristic) {
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        if (heuristic.toGoal(key) == Heuristic.UNREACHABLE) { return null; }
+        this.heuristic = heuristic;
+        this.key = key;
+        this.keyToGoal = heuristic.toGoal(key);
+        this.inboxes = (ConcurrentLinkedQueue<int[]>[]) new ConcurrentLinkedQueue<?>[threads];
+        this.incumbent = new AtomicLong(Long.MAX_VALUE);
+        this.work = new AtomicLong(threads);
+        this.done = false;
+        this.failure = null;
+        Arrays.fill(g, INF);
+
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            inboxes[i] = new ConcurrentLinkedQueue<int[]>();
+            workers[i] = new Worker(i);
+        }
+        int start = (initial == key) ? initial + size : initial;
+        g[start] = 0;
+        parent[start] = -1;
+        workers[owner(start)].open.push(LongHeap.entry(estimate(start), start));
+
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            running[i] = new Thread(workers[i], "hda-worker-" + i);
+            running[i].start();
+        }
+        try {
+            for (Thread thread : running) { thread.join(); }
+        } catch (InterruptedException e) {
+            done = true;
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching", e);
+        }
+        if (failure != null) { throw new IllegalStateException("Search worker failed", failure); }
+        long best = incumbent.get();
+        return (best == Long.MAX_VALUE) ? null : tracePath((int) best);
+    }
+
+    /**
+     * @param state A state ID.
+     * @return The index of the worker that owns the state.
+     */
+    private int owner (int state) {
+        int h = state * 0x9E3779B9;
+        h ^= h >>> 16;
+        return (int) (((h & 0xFFFFFFFFL) * threads) >>> 32);
+    }
+
+    /**
+     * @param state A state ID.
+     * @return The heuristic estimate of the state's cost to a goal, through the
+     * key if it is not yet held, or UNREACHABLE.
+     */
+    private int estimate (int state) {
+        if (state >= size) { return heuristic.toGoal(state - size); }
+        return heuristic.between(state, key) + keyToGoal;
+    }
+
+    /**
+     * Backtracks from the given state through the parent array, collecting the
+     * actions that led to it in start-to-end order. Every parent link was written
+     * when its child's g improved, so g strictly decreases along the chain.
+     *
+     * @param end The state at which the path ends.
+     * @return ArrayList of the directions taken to go from the initial to the end state.
+     */
+    private ArrayList<String> tracePath (int end) {
+        int length = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) { length++; }
+        String[] actions = new String[length];
+        for (int state = end, i = length - 1; parent[state] >= 0; state = parent[state], i--) {
+            actions[i] = MazeGrid.ACTIONS[grid.direction(parent[state] % size, state % size)];
+        }
+        return new ArrayList<String>(Arrays.asList(actions));
+    }
+
+    /**
+     * One worker of the search, owning the states that hash to its index.
+     */
+    private class Worker implements Runnable {
+
+        private final int id;
+        private final LongHeap open = new LongHeap();
+
+        // Outgoing batches, one per worker: [count, (state, g, parent) * count]
+        private final int[][] outgoing = new int[threads][];
+
+        Worker (int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run () {
+            try {
+                while (!done) {
+                    drainInbox();
+                    if (hasWork()) {
+                        for (int i = 0; i < SLICE && hasWork(); i++) { expand(); }
+                        flushAll();
+                    } else {
+                        flushAll();
+                        idle();
+                    }
+                }
+            } catch (Throwable t) {
+                failure = t;
+                done = true;
+            }
+        }
+
+        /**
+         * @return Whether this worker has a queued state that could still lead to
+         * a route cheaper than the incumbent; the rest of its open list is dropped
+         * once it does not, since the incumbent only ever decreases.
+         */
+        private boolean hasWork () {
+            if (open.isEmpty()) { return false; }
+            if (LongHeap.priority(open.peek()) >= (incumbent.get() >>> 32)) {
+                open.clear();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Expands the cheapest queued state, skipping stale duplicates.
+         */
+        private void expand () {
+            long entry = open.pop();
+            int state = LongHeap.state(entry), cost = g[state];
+            if (cost + estimate(state) != LongHeap.priority(entry)) { return; }
+            boolean hasKey = state >= size;
+            int cell = hasKey ? state - size : state;
+            if (hasKey && grid.isGoal(cell)) {
+                long candidate = ((long) cost << 32) | state;
+                incumbent.accumulateAndGet(candidate, Math::min);
+                return;
+            }
+            long bound = incumbent.get() >>> 32;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next < 0) { continue; }
+                if (hasKey || next == key) { next += size; }
+                int h = estimate(next);
+                if (h == Heuristic.UNREACHABLE) { continue; }
+                int nextCost = cost + grid.getCost(next % size);
+                if (nextCost + h >= bound) { continue; }
+                int to = owner(next);
+                if (to == id) {
+                    relax(next, nextCost, state);
+                } else {
+                    send(to, next, nextCost, state);
+                }
+            }
+        }
+
+        /**
+         * Records a cheaper way of reaching one of this worker's states.
+         */
+        private void relax (int state, int cost, int from) {
+            if (cost >= g[state]) { return; }
+            g[state] = cost;
+            parent[state] = from;
+            open.push(LongHeap.entry(cost + estimate(state), state));
+        }
+
+        /**
+         * Appends a generated state to the batch bound for its owner, sending the
+         * batch once it is full.
+         */
+        private void send (int to, int state, int cost, int from) {
+            int[] batch = outgoing[to];
+            if (batch == null) {
+                batch = new int[1 + 3 * BATCH];
+                outgoing[to] = batch;
+            }
+            int at = 1 + 3 * batch[0]++;
+            batch[at] = state;
+            batch[at + 1] = cost;
+            batch[at + 2] = from;
+            if (batch[0] == BATCH) { flush(to); }
+        }
+
+        /**
+         * Sends every partially filled batch.
+         */
+        private void flushAll () {
+            for (int to = 0; to < threads; to++) {
+                if (outgoing[to] != null) { flush(to); }
+            }
+        }
+
+        /**
+         * Sends the batch bound for the given worker. The batch is counted as
+         * outstanding work before it becomes visible, and stays counted until its
+         * receiver has merged it, so the search cannot appear finished meanwhile.
+         */
+        private void flush (int to) {
+            work.incrementAndGet();
+            inboxes[to].add(outgoing[to]);
+            outgoing[to] = null;
+        }
+
+        /**
+         * Merges every batch waiting in this worker's inbox into its open list.
+         */
+        private void drainInbox () {
+            for (int[] batch = inboxes[id].poll(); batch != null; batch = inboxes[id].poll()) {
+                for (int i = 0, at = 1; i < batch[0]; i++, at += 3) {
+                    relax(batch[at], batch[at + 1], batch[at + 2]);
+                }
+                work.decrementAndGet();
+            }
+        }
+
+        /**
+         * Waits, no longer counted as busy, until either a batch arrives or no
+         * worker is busy and no batch is outstanding, which ends the search.
+         */
+        private void idle () {
+            work.decrementAndGet();
+            while (!done) {
+                if (!inboxes[id].isEmpty()) {
+                    work.incrementAndGet();
+                    return;
+                }
+                if (work.get() == 0) {
+                    done = true;
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+
+    }
+
+}
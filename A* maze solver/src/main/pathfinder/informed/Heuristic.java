@@ -0,0 +1,59 @@
+package main.pathfinder.informed;
+
+/**
+ * Provides the cost estimates that guide an A* search over a compiled maze. Both
+ * estimates must be admissible (never exceed the true cost) and consistent (never
+ * drop by more than the cost of a single step), since the search never reopens
+ * a state it has already expanded.
+ */
+public interface Heuristic {
+
+    // Estimate reported by toGoal for cells that are known to reach no goal
+    int UNREACHABLE = DistanceField.UNREACHABLE;
+
+    /**
+     * @param cell A cell index.
+     * @return A lower bound on the cost from the cell to the nearest goal, or
+     * UNREACHABLE if it is known that no goal can be reached from it.
+     */
+    int toGoal (int cell);
+
+    /**
+     * @param from The cell being moved from.
+     * @param to The cell being moved to.
+     * @return A lower bound on the cost of the cheapest path from one to the other.
+     */
+    int between (int from, int to);
+
+    /**
+     * Creates the heuristic that needs no preprocessing: the Manhattan distance
+     * between cells, and to the bounding box of the goals.
+     *
+     * @param grid The compiled maze being searched.
+     * @return The new Heuristic.
+     */
+    static Heuristic manhattan (MazeGrid grid) {
+        int minCol = Integer.MAX_VALUE, minRow = Integer.MAX_VALUE, maxCol = -1, maxRow = -1;
+        for (int goal : grid.getGoals()) {
+            minCol = Math.min(minCol, grid.col(goal));
+            minRow = Math.min(minRow, grid.row(goal));
+            maxCol = Math.max(maxCol, grid.col(goal));
+            maxRow = Math.max(maxRow, grid.row(goal));
+        }
+        int[] box = { minCol, minRow, maxCol, maxRow };
+        return new Heuristic() {
+            @Override
+            public int toGoal (int cell) {
+                int col = grid.col(cell), row = grid.row(cell);
+                return Math.max(0, Math.max(box[0] - col, col - box[2]))
+                     + Math.max(0, Math.max(box[1] - row, row - box[3]));
+            }
+
+            @Override
+            public int between (int from, int to) {
+                return grid.manhattan(from, to);
+            }
+        };
+    }
+
+}
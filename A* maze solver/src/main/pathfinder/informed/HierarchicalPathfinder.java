@@ -0,0 +1,471 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Hierarchical pathfinding (HPA*) over a compiled maze, for grids too large to
+ * search cell by cell. The grid is split into square clusters, and the cells on
+ * either side of each cluster border where it can be crossed become entrance
+ * nodes of an abstract graph whose edges are:
+ * <ul>
+ *   <li>Intra-cluster edges between every pair of a cluster's entrances, costed
+ *   by a Dijkstra search restricted to that cluster.</li>
+ *   <li>Inter-cluster edges between the two sides of each crossing.</li>
+ * </ul>
+ * A query connects its endpoints to the entrances of their clusters, searches
+ * the abstract graph, and then refines only the clusters on the chosen route
+ * into individual moves, so its cost grows with the length of the path rather
+ * than the area of the maze.
+ *
+ * Clusters are built lazily the first time a search reaches them (or all at once
+ * by build()), and rebuilt after invalidate() reports a change to their cells.
+ * In exact mode, every crossable border cell is an entrance and the result is
+ * optimal; otherwise each run of crossable border cells gets one or two
+ * entrances, as in classic HPA*, trading a slightly longer path for a much
+ * smaller abstract graph.
+ */
+public class HierarchicalPathfinder {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int INF = Integer.MAX_VALUE;
+
+    // Runs of crossable border cells at least this long get an entrance at each
+    // end rather than a single one in the middle (approximate mode only)
+    private static final int SPLIT_RUN = 6;
+
+    private final MazeGrid grid;
+    private final int clusterSize, clusterCols, clusterRows, target;
+    private final boolean exact;
+
+    // Per cluster: its sorted entrance cells (null until built or once invalidated),
+    // and the intra-cluster cost between every ordered pair of them
+    private final int[][] entrances, costs;
+    private final Map<Integer, int[]> clusterGoals = new HashMap<>();
+    private final Heuristic heuristic;
+
+    // Scratch for searches restricted to a single cluster, in cluster-local indices
+    private final int[] localDist, localParent;
+    private final Frontier localFrontier;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new HierarchicalPathfinder over the given compiled maze. No
+     * cluster is built until a query or build() needs it.
+     *
+     * @param grid The compiled maze to search.
+     * @param clusterSize The side length, in cells, of each square cluster.
+     * @param exact Whether every crossable border cell becomes an entrance, which
+     * makes every returned path optimal.
+     */
+    public HierarchicalPathfinder (MazeGrid grid, int clusterSize, boolean exact) {
+        if (clusterSize < 1) { throw new IllegalArgumentException("Cluster size must be positive"); }
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+        this.exact = exact;
+        this.clusterCols = (grid.getCols() + clusterSize - 1) / clusterSize;
+        this.clusterRows = (grid.getRows() + clusterSize - 1) / clusterSize;
+        this.entrances = new int[clusterCols * clusterRows][];
+        this.costs = new int[clusterCols * clusterRows][];
+        this.target = grid.size();
+        this.localDist = new int[clusterSize * clusterSize];
+        this.localParent = new int[clusterSize * clusterSize];
+        this.localFrontier = Frontier.forGrid(grid, clusterSize * clusterSize);
+        this.heuristic = Heuristic.manhattan(grid);
+
+        // Goals are fixed for the grid's lifetime, so they are bucketed up front
+        Map<Integer, List<Integer>> byCluster = new HashMap<>();
+        for (int goal : grid.getGoals()) {
+            byCluster.computeIfAbsent(clusterOf(goal), c -> new ArrayList<>()).add(goal);
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : byCluster.entrySet()) {
+            clusterGoals.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Precomputes the entrances and intra-cluster costs of every cluster that is
+     * not already built.
+     */
+    public void build () {
+        for (int cluster = 0; cluster < entrances.length; cluster++) { ensure(cluster); }
+    }
+
+    /**
+     * Reports that the terrain of the given cell has changed (e.g., through
+     * MazeGrid.setCell), so that its cluster, and the neighboring clusters whose
+     * shared borders it may lie on, are rebuilt before they are next searched.
+     *
+     * @param cell The index of the changed cell.
+     */
+    public void invalidate (int cell) {
+        int cluster = clusterOf(cell), cx = cluster % clusterCols, cy = cluster / clusterCols;
+        entrances[cluster] = null;
+        if (cx > 0) { entrances[cluster - 1] = null; }
+        if (cx < clusterCols - 1) { entrances[cluster + 1] = null; }
+        if (cy > 0) { entrances[cluster - clusterCols] = null; }
+        if (cy < clusterRows - 1) { entrances[cluster + clusterCols] = null; }
+    }
+
+    /**
+     * @return The total number of clusters the maze is split into.
+     */
+    public int getClusterCount () {
+        return entrances.length;
+    }
+
+    /**
+     * Finds a path from the grid's initial cell, through its key, to any goal.
+     *
+     * @return An ArrayList of actions of the format: ["R", "R", "L", ...], or null
+     * if no such path exists.
+     */
+    public ArrayList<String> solve () {
+        return solve(grid.getInitial(), grid.getKey());
+    }
+
+    /**
+     * Finds a path from the given initial cell, through the given key cell, to any
+     * goal; it is optimal in exact mode.
+     *
+     * @param initial Cell index from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return An ArrayList of actions of the format: ["R", "R", "L", ...], or null
+     * if no such path exists.
+     */
+    public ArrayList<String> solve (int initial, int key) {
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        if (grid.isWall(initial) || grid.isWall(key)) { return null; }
+        ArrayList<String> path = new ArrayList<String>();
+        if (appendLeg(initial, key, path) < 0 || appendLeg(key, -1, path) < 0) { return null; }
+        return path;
+    }
+
+    /**
+     * Searches the abstract graph for a route from source to the target cell (or
+     * to any goal if target is -1), and appends its refined moves onto path.
+     *
+     * @param source The cell the leg starts from.
+     * @param targetCell The cell the leg ends at, or -1 for the nearest goal.
+     * @param path The list of actions to append onto.
+     * @return The cell at which the leg ended, or -1 if it cannot be completed.
+     */
+    private int appendLeg (int source, int targetCell, ArrayList<String> path) {
+        if ((targetCell >= 0) ? source == targetCell : grid.isGoal(source)) { return source; }
+        int sourceCluster = clusterOf(source);
+        int[] sourceNodes = ensure(sourceCluster);
+
+        // Edges out of the source: to each entrance of its cluster, and directly to
+        // the target if it lies in the same cluster
+        localSearch(sourceCluster, new int[] { source }, false);
+        int[] sourceCosts = new int[sourceNodes.length];
+        for (int i = 0; i < sourceNodes.length; i++) { sourceCosts[i] = localDist[local(sourceCluster, sourceNodes[i])]; }
+        int direct = nearestTarget(sourceCluster, targetCell);
+
+        // Edges into the target, computed per cluster as the search reaches them
+        Map<Integer, int[]> targetCosts = new HashMap<>();
+
+        IntMap g = new IntMap(INF), parent = new IntMap(-1), closed = new IntMap(0);
+        LongHeap open = new LongHeap();
+        g.put(source, 0);
+        open.push(LongHeap.entry(estimate(source, targetCell), source));
+        while (!open.isEmpty()) {
+            int node = LongHeap.state(open.pop());
+            if (closed.get(node) != 0) { continue; }
+            closed.put(node, 1);
+            if (node == target) { break; }
+            int cost = g.get(node), cluster = clusterOf(node);
+            int[] nodes = ensure(cluster);
+            int index = Arrays.binarySearch(nodes, node);
+            if (node == source) {
+                for (int i = 0; i < nodes.length; i++) {
+                    relax(node, nodes[i], cost, sourceCosts[i], targetCell, g, parent, closed, open);
+                }
+                relax(node, target, cost, direct, targetCell, g, parent, closed, open);
+            } else {
+                int[] matrix = costs[cluster];
+                for (int i = 0; i < nodes.length; i++) {
+                    relax(node, nodes[i], cost, matrix[index * nodes.length + i], targetCell, g, parent, closed, open);
+                }
+                int[] toTarget = targetCosts.get(cluster);
+                if (toTarget == null) {
+                    toTarget = targetCosts(cluster, targetCell);
+                    targetCosts.put(cluster, toTarget);
+                }
+                if (toTarget.length > 0) {
+                    relax(node, target, cost, toTarget[index], targetCell, g, parent, closed, open);
+                }
+            }
+            if (index >= 0) {
+                // Crossings into the entrances of neighboring clusters
+                for (int dir = 0; dir < 4; dir++) {
+                    int next = grid.neighbor(node, dir);
+                    if (next < 0 || clusterOf(next) == cluster) { continue; }
+                    if (Arrays.binarySearch(ensure(clusterOf(next)), next) < 0) { continue; }
+                    relax(node, next, cost, grid.getCost(next), targetCell, g, parent, closed, open);
+                }
+            }
+        }
+        if (closed.get(target) == 0) { return -1; }
+
+        // Collect the abstract route from source to target, then refine each hop
+        int hops = 0;
+        for (int node = target; node != source; node = parent.get(node)) { hops++; }
+        int[] route = new int[hops + 1];
+        for (int node = target, i = hops; i >= 0; node = parent.get(node), i--) { route[i] = node; }
+        int at = source;
+        for (int i = 1; i < route.length; i++) {
+            at = refine(at, route[i], targetCell, path);
+        }
+        return at;
+    }
+
+    /**
+     * Relaxes the abstract edge from one node to another.
+     */
+    private void relax (int from, int to, int cost, int weight, int targetCell,
+            IntMap g, IntMap parent, IntMap closed, LongHeap open) {
+        if (weight == INF || closed.get(to) != 0) { return; }
+        int next = cost + weight;
+        if (next < g.get(to)) {
+            g.put(to, next);
+            parent.put(to, from);
+            open.push(LongHeap.entry(next + estimate(to, targetCell), to));
+        }
+    }
+
+    /**
+     * Consistent lower bound on the cost from an abstract node to the target: the
+     * Manhattan estimate to the target cell, or to the nearest goal.
+     *
+     * @param node An abstract node (a cell, or the target pseudo-node).
+     * @param targetCell The leg's target cell, or -1 for the nearest goal.
+     * @return The estimate.
+     */
+    private int estimate (int node, int targetCell) {
+        if (node == target) { return 0; }
+        return (targetCell >= 0) ? heuristic.between(node, targetCell) : heuristic.toGoal(node);
+    }
+
+    /**
+     * Reads the cheapest cost, within the last local search, of reaching the leg's
+     * target inside the given cluster.
+     *
+     * @param cluster The cluster last searched by localSearch.
+     * @param targetCell The leg's target cell, or -1 for the nearest goal.
+     * @return The cost, or INF if no target in the cluster was reached.
+     */
+    private int nearestTarget (int cluster, int targetCell) {
+        if (targetCell >= 0) {
+            return (clusterOf(targetCell) == cluster) ? localDist[local(cluster, targetCell)] : INF;
+        }
+        int best = INF;
+        for (int goal : clusterGoals.getOrDefault(cluster, new int[0])) {
+            best = Math.min(best, localDist[local(cluster, goal)]);
+        }
+        return best;
+    }
+
+    /**
+     * Computes the cost from each entrance of a cluster to the leg's target within
+     * that cluster.
+     *
+     * @param cluster A built cluster.
+     * @param targetCell The leg's target cell, or -1 for the nearest goal.
+     * @return Costs indexed like the cluster's entrances, or an empty array if the
+     * cluster holds no target.
+     */
+    private int[] targetCosts (int cluster, int targetCell) {
+        int[] targets = (targetCell >= 0)
+            ? ((clusterOf(targetCell) == cluster) ? new int[] { targetCell } : new int[0])
+            : clusterGoals.getOrDefault(cluster, new int[0]);
+        if (targets.length == 0) { return targets; }
+        int[] nodes = entrances[cluster], result = new int[nodes.length];
+        localSearch(cluster, targets, true);
+        for (int i = 0; i < nodes.length; i++) { result[i] = localDist[local(cluster, nodes[i])]; }
+        return result;
+    }
+
+    /**
+     * Appends the moves of one abstract hop onto path: a single step across a
+     * cluster border, or the cheapest path inside a cluster.
+     *
+     * @param from The cell the hop starts from.
+     * @param to The abstract node the hop ends at (possibly the target pseudo-node).
+     * @param targetCell The leg's target cell, or -1 for the nearest goal.
+     * @param path The list of actions to append onto.
+     * @return The cell at which the hop ends.
+     */
+    private int refine (int from, int to, int targetCell, ArrayList<String> path) {
+        int cluster = clusterOf(from);
+        if (to != target && clusterOf(to) != cluster) {
+            path.add(MazeGrid.ACTIONS[grid.direction(from, to)]);
+            return to;
+        }
+        localSearch(cluster, new int[] { from }, false);
+        int end = to;
+        if (to == target) {
+            end = targetCell;
+            if (targetCell < 0) {
+                for (int goal : clusterGoals.get(cluster)) {
+                    if (end < 0 || localDist[local(cluster, goal)] < localDist[local(cluster, end)]) { end = goal; }
+                }
+            }
+        }
+        int length = 0;
+        for (int l = local(cluster, end); localParent[l] >= 0; l = localParent[l]) { length++; }
+        String[] actions = new String[length];
+        for (int l = local(cluster, end), i = length - 1; localParent[l] >= 0; l = localParent[l], i--) {
+            actions[i] = MazeGrid.ACTIONS[grid.direction(global(cluster, localParent[l]), global(cluster, l))];
+        }
+        path.addAll(Arrays.asList(actions));
+        return end;
+    }
+
+    /**
+     * Returns the entrances of the given cluster, building them and its
+     * intra-cluster costs first if it has not been built since it last changed.
+     *
+     * @param cluster A cluster index.
+     * @return The cluster's sorted entrance cells.
+     */
+    private int[] ensure (int cluster) {
+        if (entrances[cluster] != null) { return entrances[cluster]; }
+        int c0 = (cluster % clusterCols) * clusterSize, r0 = (cluster / clusterCols) * clusterSize;
+        int w = width(cluster), h = height(cluster), cols = grid.getCols();
+        List<Integer> found = new ArrayList<>();
+        if (c0 > 0) { addEntrances(found, grid.index(c0 - 1, r0), grid.index(c0, r0), cols, h); }
+        if (c0 + w < cols) { addEntrances(found, grid.index(c0 + w, r0), grid.index(c0 + w - 1, r0), cols, h); }
+        if (r0 > 0) { addEntrances(found, grid.index(c0, r0 - 1), grid.index(c0, r0), 1, w); }
+        if (r0 + h < grid.getRows()) { addEntrances(found, grid.index(c0, r0 + h), grid.index(c0, r0 + h - 1), 1, w); }
+        int[] nodes = found.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+
+        int[] matrix = new int[nodes.length * nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            localSearch(cluster, new int[] { nodes[i] }, false);
+            for (int j = 0; j < nodes.length; j++) { matrix[i * nodes.length + j] = localDist[local(cluster, nodes[j])]; }
+        }
+        costs[cluster] = matrix;
+        entrances[cluster] = nodes;
+        return nodes;
+    }
+
+    /**
+     * Scans one border of a cluster for crossings, i.e., pairs of open cells facing
+     * each other across it, and adds the inside cell of the chosen crossings.
+     *
+     * @param found The list of entrance cells to add onto.
+     * @param outside The first outside cell along the border.
+     * @param inside The first inside cell along the border.
+     * @param step The index offset between consecutive cells along the border.
+     * @param length The number of cells along the border.
+     */
+    private void addEntrances (List<Integer> found, int outside, int inside, int step, int length) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && !grid.isWall(outside + i * step) && !grid.isWall(inside + i * step);
+            if (open && exact) { found.add(inside + i * step); }
+            if (open && runStart < 0) { runStart = i; }
+            if (!open && runStart >= 0 && !exact) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= SPLIT_RUN) {
+                    found.add(inside + runStart * step);
+                    found.add(inside + runEnd * step);
+                } else {
+                    found.add(inside + ((runStart + runEnd) / 2) * step);
+                }
+            }
+            if (!open) { runStart = -1; }
+        }
+    }
+
+    /**
+     * Dijkstra search that never leaves the given cluster, filling localDist (and,
+     * for forward searches, localParent) in cluster-local indices.
+     *
+     * @param cluster The cluster to search.
+     * @param sources The cells at distance 0.
+     * @param reverse If true, measures paths from each cell to the sources,
+     * otherwise from the sources to each cell.
+     */
+    private void localSearch (int cluster, int[] sources, boolean reverse) {
+        int c0 = (cluster % clusterCols) * clusterSize, r0 = (cluster / clusterCols) * clusterSize;
+        int w = width(cluster), h = height(cluster);
+        Arrays.fill(localDist, 0, w * h, INF);
+        localFrontier.clear();
+        for (int source : sources) {
+            int l = local(cluster, source);
+            localDist[l] = 0;
+            localParent[l] = -1;
+            localFrontier.offer(l, 0, 0);
+        }
+        while (!localFrontier.isEmpty()) {
+            int l = localFrontier.pop(), cell = global(cluster, l);
+            for (int dir = 0; dir < 4; dir++) {
+                int other = grid.neighbor(cell, dir);
+                if (other < 0) { continue; }
+                int col = grid.col(other) - c0, row = grid.row(other) - r0;
+                if (col < 0 || col >= w || row < 0 || row >= h) { continue; }
+                int lo = row * w + col, cost = localDist[l] + grid.getCost(reverse ? cell : other);
+                if (cost < localDist[lo]) {
+                    localDist[lo] = cost;
+                    localParent[lo] = l;
+                    localFrontier.offer(lo, cost, cost);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The index of the cluster containing the cell.
+     */
+    private int clusterOf (int cell) {
+        return (grid.row(cell) / clusterSize) * clusterCols + grid.col(cell) / clusterSize;
+    }
+
+    /**
+     * @param cluster A cluster index.
+     * @return The number of columns in the cluster, which is smaller than the
+     * cluster size along the maze's right edge.
+     */
+    private int width (int cluster) {
+        return Math.min(clusterSize, grid.getCols() - (cluster % clusterCols) * clusterSize);
+    }
+
+    /**
+     * @param cluster A cluster index.
+     * @return The number of rows in the cluster.
+     */
+    private int height (int cluster) {
+        return Math.min(clusterSize, grid.getRows() - (cluster / clusterCols) * clusterSize);
+    }
+
+    /**
+     * @param cluster A cluster index.
+     * @param cell A cell inside the cluster.
+     * @return The cell's cluster-local index.
+     */
+    private int local (int cluster, int cell) {
+        return (grid.row(cell) - (cluster / clusterCols) * clusterSize) * width(cluster)
+             + grid.col(cell) - (cluster % clusterCols) * clusterSize;
+    }
+
+    /**
+     * @param cluster A cluster index.
+     * @param l A cluster-local index.
+     * @return The corresponding cell index in the maze.
+     */
+    private int global (int cluster, int l) {
+        int w = width(cluster);
+        return grid.index((cluster % clusterCols) * clusterSize + l % w, (cluster / clusterCols) * clusterSize + l / w);
+    }
+
+}
@@ -0,0 +1,284 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Offline builder of a ContractionHierarchy. The open cells of a maze are
+ * contracted one at a time, least important first: contracting a cell removes
+ * it from the remaining graph and, for every pair of its remaining in- and
+ * out-neighbors, adds a shortcut edge that stands in for the path through it,
+ * unless a local witness search finds a path between them that is no longer.
+ * A cell's importance is its edge difference (shortcuts it would add, minus
+ * edges it would remove), plus the number of its neighbors already contracted
+ * and its depth in the hierarchy, which spreads contraction evenly across the
+ * maze; importance is re-evaluated lazily when a cell reaches the front of
+ * the queue.
+ */
+class HierarchyBuilder {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // How many cells a witness search may settle before giving up; a shortcut is
+    // then added even if a witness might exist, which is never incorrect
+    private static final int SETTLE_LIMIT = 60;
+
+    private final MazeGrid grid;
+    private final int size;
+
+    // Every edge added so far: original edges have no children (first == -1),
+    // and a shortcut's children are the two edges it spans
+    private int[] from, to, weight, first, second;
+    private int edgeCount;
+
+    // Per-cell lists of the IDs of edges out of and into each cell; edges to
+    // contracted cells are dropped from them as they are come across
+    private final int[][] out, in;
+    private final int[] outCount, inCount;
+    private final boolean[] contracted;
+    private final int[] deleted, depth;
+
+    // Scratch space of the witness searches and of neighbor gathering
+    private final int[] dist, reached, inMark, outMark, inBest, outBest;
+    private final IndexedHeap witnessHeap;
+    private int search, gathering;
+    private int[] inEdges = new int[8], outEdges = new int[8];
+    private int inSize, outSize;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new HierarchyBuilder over the given maze, with one original
+     * edge per move between adjacent open cells, weighted by the cost of the
+     * cell entered.
+     *
+     * @param grid The compiled maze to build a hierarchy for.
+     */
+    HierarchyBuilder (MazeGrid grid) {
+        this.grid = grid;
+        this.size = grid.size();
+        int capacity = 4 * size + 16;
+        this.from = new int[capacity];
+        this.to = new int[capacity];
+        this.weight = new int[capacity];
+        this.first = new int[capacity];
+        this.second = new int[capacity];
+        this.out = new int[size][];
+        this.in = new int[size][];
+        this.outCount = new int[size];
+        this.inCount = new int[size];
+        this.contracted = new boolean[size];
+        this.deleted = new int[size];
+        this.depth = new int[size];
+        this.dist = new int[size];
+        this.reached = new int[size];
+        this.inMark = new int[size];
+        this.outMark = new int[size];
+        this.inBest = new int[size];
+        this.outBest = new int[size];
+        this.witnessHeap = new IndexedHeap(size);
+        for (int cell = 0; cell < size; cell++) {
+            if (grid.isWall(cell)) { continue; }
+            out[cell] = new int[4];
+            in[cell] = new int[4];
+        }
+        for (int cell = 0; cell < size; cell++) {
+            if (grid.isWall(cell)) { continue; }
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next >= 0) { addEdge(cell, next, grid.getCost(next), -1, -1); }
+            }
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Contracts every open cell of the maze, in order of importance.
+     *
+     * @return The finished ContractionHierarchy.
+     */
+    ContractionHierarchy build () {
+        int[] rank = new int[size];
+        Arrays.fill(rank, -1);
+        IndexedHeap queue = new IndexedHeap(size);
+        for (int cell = 0; cell < size; cell++) {
+            if (!grid.isWall(cell)) { queue.offer(cell, importance(cell)); }
+        }
+        int[] neighbors = new int[8];
+        for (int next = 0; !queue.isEmpty(); ) {
+            int cell = queue.pop();
+            long priority = importance(cell);
+            if (!queue.isEmpty() && priority > queue.peekPriority()) {
+                queue.offer(cell, priority);
+                continue;
+            }
+            contract(cell, false);
+
+            // The neighbors gathered for the contraction are the ones whose importance changes
+            int count = 0;
+            neighbors = Arrays.copyOf(neighbors, Math.max(neighbors.length, inSize + outSize));
+            for (int i = 0; i < inSize; i++) { neighbors[count++] = from[inEdges[i]]; }
+            for (int i = 0; i < outSize; i++) { neighbors[count++] = to[outEdges[i]]; }
+            contracted[cell] = true;
+            rank[cell] = next++;
+            out[cell] = in[cell] = null;
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (!queue.contains(neighbor)) { continue; }
+                deleted[neighbor]++;
+                depth[neighbor] = Math.max(depth[neighbor], depth[cell] + 1);
+                queue.update(neighbor, importance(neighbor));
+            }
+        }
+        return new ContractionHierarchy(grid, rank, Arrays.copyOf(from, edgeCount), Arrays.copyOf(to, edgeCount),
+            Arrays.copyOf(weight, edgeCount), Arrays.copyOf(first, edgeCount), Arrays.copyOf(second, edgeCount));
+    }
+
+    /**
+     * @param cell An uncontracted cell.
+     * @return The cell's contraction priority; the smaller, the earlier.
+     */
+    private long importance (int cell) {
+        int shortcuts = contract(cell, true);
+        return 2L * (shortcuts - inSize - outSize) + deleted[cell] + depth[cell];
+    }
+
+    /**
+     * Finds the shortcuts needed to contract the given cell, and adds them unless
+     * only simulating the contraction.
+     *
+     * @param cell The cell to contract.
+     * @param simulate Whether to only count the shortcuts.
+     * @return The number of shortcuts needed.
+     */
+    private int contract (int cell, boolean simulate) {
+        gatherNeighbors(cell);
+        int shortcuts = 0;
+        for (int i = 0; i < inSize; i++) {
+            int a = inEdges[i], source = from[a], limit = 0, targets = 0;
+            for (int j = 0; j < outSize; j++) {
+                if (to[outEdges[j]] == source) { continue; }
+                limit = Math.max(limit, weight[a] + weight[outEdges[j]]);
+                targets++;
+            }
+            if (targets == 0) { continue; }
+            witnessSearch(source, cell, limit, targets);
+            for (int j = 0; j < outSize; j++) {
+                int b = outEdges[j], target = to[b], via = weight[a] + weight[b];
+                if (target == source || (reached[target] == search && dist[target] <= via)) { continue; }
+                shortcuts++;
+                if (!simulate) { addEdge(source, target, via, a, b); }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Collects the cheapest edge into the cell from each uncontracted in-neighbor,
+     * and out of it to each uncontracted out-neighbor.
+     *
+     * @param cell The cell whose neighbors to gather.
+     */
+    private void gatherNeighbors (int cell) {
+        gathering++;
+        inSize = outSize = 0;
+        for (int i = 0; i < inCount[cell]; i++) {
+            int e = in[cell][i], u = from[e];
+            if (contracted[u]) {
+                in[cell][i--] = in[cell][--inCount[cell]];
+                continue;
+            }
+            if (inMark[u] != gathering) {
+                inMark[u] = gathering;
+                inBest[u] = inSize;
+                if (inSize == inEdges.length) { inEdges = Arrays.copyOf(inEdges, 2 * inSize); }
+                inEdges[inSize++] = e;
+            } else if (weight[e] < weight[inEdges[inBest[u]]]) {
+                inEdges[inBest[u]] = e;
+            }
+        }
+        for (int i = 0; i < outCount[cell]; i++) {
+            int e = out[cell][i], x = to[e];
+            if (contracted[x]) {
+                out[cell][i--] = out[cell][--outCount[cell]];
+                continue;
+            }
+            if (outMark[x] != gathering) {
+                outMark[x] = gathering;
+                outBest[x] = outSize;
+                if (outSize == outEdges.length) { outEdges = Arrays.copyOf(outEdges, 2 * outSize); }
+                outEdges[outSize++] = e;
+            } else if (weight[e] < weight[outEdges[outBest[x]]]) {
+                outEdges[outBest[x]] = e;
+            }
+        }
+    }
+
+    /**
+     * Runs a bounded Dijkstra search from the source over the uncontracted cells
+     * other than the one being contracted, leaving its distances in dist.
+     *
+     * @param source The cell to search from.
+     * @param excluded The cell being contracted.
+     * @param limit The distance beyond which no witness is needed.
+     * @param targets The number of out-neighbors of the excluded cell, other than
+     * the source, that the search may stop after settling.
+     */
+    private void witnessSearch (int source, int excluded, int limit, int targets) {
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            search = 1;
+        }
+        witnessHeap.clear();
+        reached[source] = search;
+        dist[source] = 0;
+        witnessHeap.offer(source, 0);
+        for (int settled = 0; !witnessHeap.isEmpty() && witnessHeap.peekPriority() <= limit && settled < SETTLE_LIMIT; settled++) {
+            int cell = witnessHeap.pop();
+            if (outMark[cell] == gathering && cell != source && --targets == 0) { break; }
+            for (int i = 0; i < outCount[cell]; i++) {
+                int e = out[cell][i], next = to[e];
+                if (contracted[next]) {
+                    out[cell][i--] = out[cell][--outCount[cell]];
+                    continue;
+                }
+                if (next == excluded) { continue; }
+                int d = dist[cell] + weight[e];
+                if (reached[next] != search || d < dist[next]) {
+                    reached[next] = search;
+                    dist[next] = d;
+                    witnessHeap.offer(next, d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an edge to the global edge list and to its endpoints' lists.
+     */
+    private void addEdge (int u, int v, int w, int a, int b) {
+        if (edgeCount == from.length) {
+            int capacity = 2 * edgeCount;
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+        }
+        int e = edgeCount++;
+        from[e] = u;
+        to[e] = v;
+        weight[e] = w;
+        first[e] = a;
+        second[e] = b;
+        if (outCount[u] == out[u].length) { out[u] = Arrays.copyOf(out[u], 2 * outCount[u]); }
+        out[u][outCount[u]++] = e;
+        if (inCount[v] == in[v].length) { in[v] = Arrays.copyOf(in[v], 2 * inCount[v]); }
+        in[v][inCount[v]++] = e;
+    }
+
+}
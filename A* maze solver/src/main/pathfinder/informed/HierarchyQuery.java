@@ -0,0 +1,370 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Reusable query engine over a ContractionHierarchy. A query runs two Dijkstra
+ * searches that only follow edges upward in rank, one forward from its source
+ * and one backward from its targets, and stops once neither frontier can improve
+ * on the cheapest meeting found. Routes through the key are answered as two such
+ * legs, the second searching backward from every goal at once.
+ *
+ * Like a PathfinderSession, a HierarchyQuery allocates its arrays once and
+ * invalidates them between queries by generation stamps; it is not thread-safe,
+ * but any number of them may share one hierarchy.
+ */
+public class HierarchyQuery {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final ContractionHierarchy hierarchy;
+    private final MazeGrid grid;
+    private final int[] forwardDist, backwardDist, forwardEdge, backwardEdge;
+    private final int[] forwardReached, backwardReached;
+    private final IndexedHeap forward, backward;
+    private int generation;
+
+    // The best meeting of the last leg searched, and the cost through it
+    private int meeting, best;
+
+    // Moves of the route being unpacked, the edges of the leg being unpacked, and
+    // the stack of shortcuts left to unpack
+    private int[] moves = new int[64], legEdges = new int[64], stack = new int[64];
+    private int moveCount;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new HierarchyQuery over the given hierarchy.
+     *
+     * @param hierarchy The contraction hierarchy to answer queries with.
+     */
+    public HierarchyQuery (ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.grid = hierarchy.getGrid();
+        int size = grid.size();
+        this.forwardDist = new int[size];
+        this.backwardDist = new int[size];
+        this.forwardEdge = new int[size];
+        this.backwardEdge = new int[size];
+        this.forwardReached = new int[size];
+        this.backwardReached = new int[size];
+        this.forward = new IndexedHeap(size);
+        this.backward = new IndexedHeap(size);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The contraction hierarchy this query runs on.
+     */
+    public ContractionHierarchy getHierarchy () {
+        return this.hierarchy;
+    }
+
+    /**
+     * Finds the cheapest route from the initial cell, through the key cell, to any
+     * goal of the maze, as Pathfinder.solve(MazeIndex, int, int) does.
+     *
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * cell, through the key, to a goal, of the format: ["R", "R", "L", ...], or null
+     * if there is none.
+     */
+    public ArrayList<String> solve (int initial, int key) {
+        CompactPath path = solveCompact(initial, key);
+        return (path == null) ? null : new ArrayList<String>(path.asList());
+    }
+
+    /**
+     * Finds the same route as solve(int, int), returned in packed form.
+     *
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return The path leading from the initial cell, through the key, to a goal,
+     * or null if there is none.
+     */
+    public CompactPath solveCompact (int initial, int key) {
+        Pathfinder.checkQueryCell(grid, initial);
+        Pathfinder.checkQueryCell(grid, key);
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        moveCount = 0;
+        if (search(initial, new int[] { key }) < 0) { return null; }
+        unpackLeg();
+        if (search(key, grid.getGoals()) < 0) { return null; }
+        unpackLeg();
+        CompactPath path = new CompactPath(moveCount);
+        for (int i = 0; i < moveCount; i++) { path.set(i, moves[i]); }
+        return path;
+    }
+
+    /**
+     * Finds the cost of the cheapest path between two open cells, ignoring the key.
+     *
+     * @param source Cell index at which the path starts.
+     * @param target Cell index at which the path ends.
+     * @return The path's cost, or -1 if there is no path.
+     */
+    public int distance (int source, int target) {
+        checkEndpoint(source);
+        checkEndpoint(target);
+        return search(source, new int[] { target });
+    }
+
+    /**
+     * Finds the cost of the cheapest path from every source cell to every target
+     * cell, ignoring the key. One full upward search runs backward from each
+     * target, leaving its distances in buckets at the cells it settles; one full
+     * upward search forward from each source then meets all of them at once, so
+     * the table costs |sources| + |targets| searches rather than their product.
+     *
+     * @param sources Cell indices at which the paths start.
+     * @param targets Cell indices at which the paths end.
+     * @return The table of path costs indexed [source][target], with -1 where
+     * there is no path.
+     */
+    public int[][] distances (int[] sources, int[] targets) {
+        for (int cell : sources) { checkEndpoint(cell); }
+        for (int cell : targets) { checkEndpoint(cell); }
+
+        // Bucket entries record (target, distance) pairs, and are sorted by cell
+        // through keys that pack each entry's cell above its index
+        int entries = 0;
+        int[] entryTarget = new int[64], entryDist = new int[64];
+        long[] keys = new long[64];
+        for (int t = 0; t < targets.length; t++) {
+            nextGeneration();
+            backward.clear();
+            meeting = -1;
+            best = Integer.MAX_VALUE;
+            reach(backward, backwardDist, backwardReached, backwardEdge, targets[t], 0, -1);
+            while (!backward.isEmpty()) {
+                int cell = backward.pop();
+                if (stalledBackward(cell)) { continue; }
+                if (entries == keys.length) {
+                    entryTarget = Arrays.copyOf(entryTarget, 2 * entries);
+                    entryDist = Arrays.copyOf(entryDist, 2 * entries);
+                    keys = Arrays.copyOf(keys, 2 * entries);
+                }
+                entryTarget[entries] = t;
+                entryDist[entries] = backwardDist[cell];
+                keys[entries] = ((long) cell << 32) | entries;
+                entries++;
+                relaxDown(cell, backwardDist[cell]);
+            }
+        }
+        Arrays.sort(keys, 0, entries);
+
+        int[][] table = new int[sources.length][targets.length];
+        for (int s = 0; s < sources.length; s++) {
+            int[] row = table[s];
+            Arrays.fill(row, Integer.MAX_VALUE);
+            nextGeneration();
+            forward.clear();
+            reach(forward, forwardDist, forwardReached, forwardEdge, sources[s], 0, -1);
+            while (!forward.isEmpty()) {
+                int cell = forward.pop(), d = forwardDist[cell];
+                if (stalledForward(cell)) { continue; }
+                int i = Arrays.binarySearch(keys, 0, entries, (long) cell << 32);
+                for (i = (i < 0) ? -i - 1 : i; i < entries && (int) (keys[i] >>> 32) == cell; i++) {
+                    int entry = (int) keys[i];
+                    row[entryTarget[entry]] = Math.min(row[entryTarget[entry]], d + entryDist[entry]);
+                }
+                relaxUp(cell, d);
+            }
+            for (int t = 0; t < targets.length; t++) {
+                if (row[t] == Integer.MAX_VALUE) { row[t] = -1; }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Runs the two upward searches of one leg, from the source forward and from
+     * every target backward.
+     *
+     * @param source The cell at which the leg starts.
+     * @param targets The cells at which the leg may end.
+     * @return The cost of the leg, or -1 if none of the targets can be reached.
+     */
+    private int search (int source, int[] targets) {
+        nextGeneration();
+        forward.clear();
+        backward.clear();
+        meeting = -1;
+        best = Integer.MAX_VALUE;
+        for (int target : targets) { reach(backward, backwardDist, backwardReached, backwardEdge, target, 0, -1); }
+        reach(forward, forwardDist, forwardReached, forwardEdge, source, 0, -1);
+        while (true) {
+            boolean forwardOpen = !forward.isEmpty() && forward.peekPriority() < best,
+                    backwardOpen = !backward.isEmpty() && backward.peekPriority() < best;
+            if (!forwardOpen && !backwardOpen) { break; }
+            if (forwardOpen && (!backwardOpen || forward.peekPriority() <= backward.peekPriority())) {
+                int cell = forward.pop();
+                if (!stalledForward(cell)) { relaxUp(cell, forwardDist[cell]); }
+            } else {
+                int cell = backward.pop();
+                if (!stalledBackward(cell)) { relaxDown(cell, backwardDist[cell]); }
+            }
+        }
+        return (meeting < 0) ? -1 : best;
+    }
+
+    /**
+     * Stall-on-demand: a cell settled by the forward search need not be expanded
+     * if a higher-ranked cell that the search has already reached leads down to
+     * it more cheaply, since no shortest up-down path then passes through it.
+     *
+     * @param cell The cell settled by the forward search.
+     * @return Whether the cell is stalled.
+     */
+    private boolean stalledForward (int cell) {
+        for (int i = hierarchy.downStart(cell); i < hierarchy.downEnd(cell); i++) {
+            int e = hierarchy.downEdge(i), above = hierarchy.from(e);
+            if (forwardReached[above] == generation && forwardDist[above] + hierarchy.weight(e) < forwardDist[cell]) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Stall-on-demand for the backward search, as stalledForward does.
+     *
+     * @param cell The cell settled by the backward search.
+     * @return Whether the cell is stalled.
+     */
+    private boolean stalledBackward (int cell) {
+        for (int i = hierarchy.upStart(cell); i < hierarchy.upEnd(cell); i++) {
+            int e = hierarchy.upEdge(i), above = hierarchy.to(e);
+            if (backwardReached[above] == generation && backwardDist[above] + hierarchy.weight(e) < backwardDist[cell]) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Relaxes the edges from the given cell to higher-ranked cells.
+     *
+     * @param cell The cell settled by the forward search.
+     * @param d The cell's distance from the source.
+     */
+    private void relaxUp (int cell, int d) {
+        for (int i = hierarchy.upStart(cell); i < hierarchy.upEnd(cell); i++) {
+            int e = hierarchy.upEdge(i);
+            reach(forward, forwardDist, forwardReached, forwardEdge, hierarchy.to(e), d + hierarchy.weight(e), e);
+        }
+    }
+
+    /**
+     * Relaxes the edges into the given cell from higher-ranked cells, backward.
+     *
+     * @param cell The cell settled by the backward search.
+     * @param d The cell's distance to the nearest target.
+     */
+    private void relaxDown (int cell, int d) {
+        for (int i = hierarchy.downStart(cell); i < hierarchy.downEnd(cell); i++) {
+            int e = hierarchy.downEdge(i);
+            reach(backward, backwardDist, backwardReached, backwardEdge, hierarchy.from(e), d + hierarchy.weight(e), e);
+        }
+    }
+
+    /**
+     * Records a distance to a cell in one of the searches if it improves on the
+     * one known, and checks whether the cell now offers a cheaper meeting of the
+     * two searches.
+     *
+     * @param heap The search's frontier.
+     * @param dist The search's distances.
+     * @param reached The search's generation stamps.
+     * @param edge The search's parent edges.
+     * @param cell The cell reached.
+     * @param d The distance at which it was reached.
+     * @param via The edge along which it was reached, or -1 for an endpoint.
+     */
+    private void reach (IndexedHeap heap, int[] dist, int[] reached, int[] edge, int cell, int d, int via) {
+        if (reached[cell] == generation && dist[cell] <= d) { return; }
+        reached[cell] = generation;
+        dist[cell] = d;
+        edge[cell] = via;
+        heap.offer(cell, d);
+        if (forwardReached[cell] == generation && backwardReached[cell] == generation) {
+            int total = forwardDist[cell] + backwardDist[cell];
+            if (total < best) {
+                best = total;
+                meeting = cell;
+            }
+        }
+    }
+
+    /**
+     * Appends the moves of the leg last searched: the forward search's edges up
+     * to the meeting cell, then the backward search's edges on to the target,
+     * with every shortcut among them unpacked into the original edges it spans.
+     */
+    private void unpackLeg () {
+        int count = 0;
+        for (int cell = meeting; forwardEdge[cell] >= 0; cell = hierarchy.from(forwardEdge[cell])) {
+            legEdges = grow(legEdges, count);
+            legEdges[count++] = forwardEdge[cell];
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int swap = legEdges[i];
+            legEdges[i] = legEdges[j];
+            legEdges[j] = swap;
+        }
+        for (int cell = meeting; backwardEdge[cell] >= 0; cell = hierarchy.to(backwardEdge[cell])) {
+            legEdges = grow(legEdges, count);
+            legEdges[count++] = backwardEdge[cell];
+        }
+        for (int i = 0; i < count; i++) {
+            int top = 0;
+            stack[top++] = legEdges[i];
+            while (top > 0) {
+                int e = stack[--top];
+                if (hierarchy.first(e) < 0) {
+                    moves = grow(moves, moveCount);
+                    moves[moveCount++] = grid.direction(hierarchy.from(e), hierarchy.to(e));
+                } else {
+                    stack = grow(stack, top + 1);
+                    stack[top++] = hierarchy.second(e);
+                    stack[top++] = hierarchy.first(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param array A scratch array.
+     * @param used The number of its entries in use.
+     * @return The array, or a copy of twice its length if it has no room for one
+     * more entry.
+     */
+    private static int[] grow (int[] array, int used) {
+        return (used < array.length) ? array : Arrays.copyOf(array, 2 * array.length);
+    }
+
+    /**
+     * Rejects query cells that are not open cells of the maze.
+     *
+     * @param cell The query cell to check.
+     */
+    private void checkEndpoint (int cell) {
+        if (cell < 0) { throw new IllegalArgumentException("Query cell " + cell + " is not an open cell of the maze"); }
+        Pathfinder.checkQueryCell(grid, cell);
+    }
+
+    /**
+     * Starts a new query generation, invalidating every distance at once.
+     */
+    private void nextGeneration () {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(forwardReached, 0);
+            Arrays.fill(backwardReached, 0);
+            generation = 1;
+        }
+    }
+
+}
@@ -0,0 +1,322 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Incremental planner (D* Lite) for an agent moving through a maze whose walls
+ * and mud change while it travels. The search runs backward from the goals over
+ * the (cell, hasKey) state space and keeps its search tree between calls, so after
+ * a batch of terrain edits replan() repairs only the states whose cost-to-goal
+ * actually changed, rather than searching the whole maze again. Moving the agent
+ * with moveTo() is equally cheap, since the tree is rooted at the goals, not at
+ * the agent.
+ *
+ * The planner edits the MazeGrid it is given, so that grid should not be shared
+ * with other searches that expect it to stay fixed.
+ */
+public class IncrementalPlanner {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final MazeGrid grid;
+    private final int size, key;
+
+    // D* Lite's cost-to-goal estimates (g), their one-step lookahead values (rhs),
+    // and the queue of states where the two disagree
+    private final int[] g, rhs;
+    private final IndexedHeap queue;
+
+    // Cells edited since the last replan, each listed once
+    private final boolean[] changed;
+    private final ArrayList<Integer> pending = new ArrayList<Integer>();
+
+    private int start, last, km;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new IncrementalPlanner for an agent standing on the grid's
+     * initial cell. No search is run until the first call to replan().
+     *
+     * @param grid The compiled maze, which the planner's edit methods modify.
+     */
+    public IncrementalPlanner (MazeGrid grid) {
+        if (grid.getInitial() < 0 || grid.getKey() < 0) {
+            throw new IllegalArgumentException("Maze must have an initial cell and a key");
+        }
+        this.grid = grid;
+        this.size = grid.size();
+        this.key = grid.getKey();
+        this.g = new int[2 * size];
+        this.rhs = new int[2 * size];
+        this.queue = new IndexedHeap(2 * size);
+        this.changed = new boolean[size];
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        this.start = stateOf(grid.getInitial(), false);
+        this.last = start;
+        for (int goal : grid.getGoals()) {
+            rhs[goal + size] = 0;
+            queue.offer(goal + size, key(goal + size));
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Turns the given cell into a wall.
+     *
+     * @param cell The index of the cell to edit; it may not be the key or a goal.
+     */
+    public void setWall (int cell) {
+        edit(cell, 'X');
+    }
+
+    /**
+     * Turns the given cell into an open cell of cost 1.
+     *
+     * @param cell The index of the cell to edit; it may not be the key or a goal.
+     */
+    public void setOpen (int cell) {
+        edit(cell, '.');
+    }
+
+    /**
+     * Turns the given cell into mud.
+     *
+     * @param cell The index of the cell to edit; it may not be the key or a goal.
+     */
+    public void setMud (int cell) {
+        edit(cell, 'M');
+    }
+
+    /**
+     * Moves the agent to the given cell, collecting the key if it is there; the
+     * key, once collected, is kept for the rest of the route.
+     *
+     * @param cell The index of the agent's new cell.
+     */
+    public void moveTo (int cell) {
+        if (cell < 0 || cell >= size || grid.isWall(cell)) {
+            throw new IllegalArgumentException("Cell " + cell + " is not an open cell of the maze");
+        }
+        start = stateOf(cell, hasKey());
+    }
+
+    /**
+     * @return The index of the agent's current cell.
+     */
+    public int getPosition () {
+        return start % size;
+    }
+
+    /**
+     * @return Whether or not the agent has collected the key.
+     */
+    public boolean hasKey () {
+        return start >= size;
+    }
+
+    /**
+     * Applies the edits and agent moves made since the last call, repairing the
+     * search tree only where they changed it, and returns the cheapest route from
+     * the agent's current cell through the key (unless already collected) to any
+     * goal.
+     *
+     * @return An ArrayList of actions of the format: ["R", "R", "L", ...], or null
+     * if no such route exists.
+     */
+    public ArrayList<String> replan () {
+        if (start != last) {
+            // Every queued key is now an overestimate by at most this much, which is
+            // added to new keys instead of re-keying the whole queue
+            km += heuristic(last, start);
+            last = start;
+        }
+        for (int cell : pending) {
+            changed[cell] = false;
+            updateCell(cell);
+            for (int dir = 0; dir < 4; dir++) {
+                int next = adjacent(cell, dir);
+                if (next >= 0) { updateCell(next); }
+            }
+        }
+        pending.clear();
+        computeShortestPath();
+        return (g[start] == INF) ? null : tracePath();
+    }
+
+    /**
+     * Records a terrain edit to be applied at the next replan.
+     *
+     * @param cell The index of the cell to edit.
+     * @param symbol The new terrain symbol.
+     */
+    private void edit (int cell, char symbol) {
+        if (cell < 0 || cell >= size) {
+            throw new IllegalArgumentException("Cell " + cell + " is outside of the maze");
+        }
+        grid.setCell(cell, symbol);
+        if (!changed[cell]) {
+            changed[cell] = true;
+            pending.add(cell);
+        }
+    }
+
+    /**
+     * Expands inconsistent states in key order until the agent's state is
+     * consistent and no queued state could still lower its cost.
+     */
+    private void computeShortestPath () {
+        while (!queue.isEmpty() && (queue.peekPriority() < key(start) || rhs[start] != g[start])) {
+            int state = queue.peek();
+            long oldKey = queue.peekPriority(), newKey = key(state);
+            if (oldKey < newKey) {
+                queue.update(state, newKey);
+            } else if (g[state] > rhs[state]) {
+                g[state] = rhs[state];
+                queue.remove(state);
+                updatePredecessors(state);
+            } else {
+                g[state] = INF;
+                updateState(state);
+                updatePredecessors(state);
+            }
+        }
+    }
+
+    /**
+     * Updates every state that lies at the given cell.
+     *
+     * @param cell A cell index.
+     */
+    private void updateCell (int cell) {
+        if (cell != key) { updateState(cell); }
+        updateState(cell + size);
+    }
+
+    /**
+     * Updates every state with a move into the given state.
+     *
+     * @param state A state ID.
+     */
+    private void updatePredecessors (int state) {
+        boolean hasKey = state >= size;
+        int cell = hasKey ? state - size : state;
+        for (int dir = 0; dir < 4; dir++) {
+            int prev = adjacent(cell, dir);
+            if (prev < 0) { continue; }
+            if (hasKey) { updateState(prev + size); }
+            if ((!hasKey || cell == key) && prev != key) { updateState(prev); }
+        }
+    }
+
+    /**
+     * Recomputes a state's lookahead cost from its successors, and queues it if
+     * that no longer matches its cost-to-goal estimate.
+     *
+     * @param state A state ID.
+     */
+    private void updateState (int state) {
+        boolean hasKey = state >= size;
+        int cell = hasKey ? state - size : state;
+        if (!(hasKey && grid.isGoal(cell))) {
+            int best = INF;
+            if (!grid.isWall(cell)) {
+                for (int dir = 0; dir < 4; dir++) {
+                    int next = grid.neighbor(cell, dir);
+                    if (next < 0) { continue; }
+                    int cost = g[stateOf(next, hasKey)];
+                    if (cost != INF) { best = Math.min(best, cost + grid.getCost(next)); }
+                }
+            }
+            rhs[state] = best;
+        }
+        if (g[state] != rhs[state]) {
+            queue.update(state, key(state));
+        } else {
+            queue.remove(state);
+        }
+    }
+
+    /**
+     * Follows the cheapest successors from the agent's state down to a goal.
+     *
+     * @return ArrayList of the directions taken along the way.
+     */
+    private ArrayList<String> tracePath () {
+        ArrayList<String> path = new ArrayList<String>();
+        int state = start;
+        while (!(state >= size && grid.isGoal(state - size))) {
+            int cell = state % size, bestDir = -1, best = INF;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next < 0) { continue; }
+                int cost = g[stateOf(next, state >= size)];
+                if (cost != INF && cost + grid.getCost(next) < best) {
+                    best = cost + grid.getCost(next);
+                    bestDir = dir;
+                }
+            }
+            if (bestDir < 0 || path.size() > 2 * size) { return null; }
+            path.add(MazeGrid.ACTIONS[bestDir]);
+            state = stateOf(grid.neighbor(cell, bestDir), state >= size);
+        }
+        return path;
+    }
+
+    /**
+     * @param state A state ID.
+     * @return The state's D* Lite queue key: the cost of the cheapest route through
+     * it as a primary key, then its cost-to-goal, packed into one long.
+     */
+    private long key (int state) {
+        int cost = Math.min(g[state], rhs[state]);
+        if (cost == INF) { return Long.MAX_VALUE; }
+        return ((long) (cost + heuristic(start, state) + km) << 32) | cost;
+    }
+
+    /**
+     * Consistent lower bound on the cost of moving between two states: the
+     * Manhattan distance, detouring through the key if it must be collected on
+     * the way.
+     *
+     * @param from The state moved from.
+     * @param to The state moved to.
+     * @return The lower bound.
+     */
+    private int heuristic (int from, int to) {
+        int a = from % size, b = to % size;
+        if (from < size && to >= size) { return grid.manhattan(a, key) + grid.manhattan(key, b); }
+        return grid.manhattan(a, b);
+    }
+
+    /**
+     * @param cell A cell index.
+     * @param hasKey Whether the key was held before entering the cell.
+     * @return The state for standing on the cell, which holds the key if the cell
+     * does.
+     */
+    private int stateOf (int cell, boolean hasKey) {
+        return (hasKey || cell == key) ? cell + size : cell;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @param dir A direction, one of UP, DOWN, LEFT, RIGHT.
+     * @return The cell next to the given one in that direction, walls included,
+     * or -1 if it would be outside of the maze.
+     */
+    private int adjacent (int cell, int dir) {
+        int col = grid.col(cell) + MazeGrid.DCOL[dir], row = grid.row(cell) + MazeGrid.DROW[dir];
+        if (col < 0 || col >= grid.getCols() || row < 0 || row >= grid.getRows()) { return -1; }
+        return grid.index(col, row);
+    }
+
+}
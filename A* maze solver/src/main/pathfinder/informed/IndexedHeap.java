@@ -0,0 +1,201 @@
+package main.pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Indexed d-ary min-heap of int items (cell or state IDs) with long priorities.
+ * Every item appears in the heap at most once, and its position is tracked so
+ * that an improved priority is applied in place (decrease-key) rather than by
+ * pushing a duplicate; the heap therefore never holds more entries than there
+ * are items.
+ */
+class IndexedHeap {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int ARITY = 4;
+
+    private final int[] items, pos;
+    private final long[] priority;
+    private int size;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new, empty IndexedHeap able to hold the items 0 .. capacity-1.
+     *
+     * @param capacity The number of distinct items that may be stored.
+     */
+    IndexedHeap (int capacity) {
+        this.items = new int[capacity];
+        this.pos = new int[capacity];
+        this.priority = new long[capacity];
+        Arrays.fill(this.pos, -1);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return Whether or not the heap is empty.
+     */
+    boolean isEmpty () {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of items currently in the heap.
+     */
+    int size () {
+        return size;
+    }
+
+    /**
+     * @param item An item ID.
+     * @return Whether or not the item is currently in the heap.
+     */
+    boolean contains (int item) {
+        return pos[item] >= 0;
+    }
+
+    /**
+     * @return The item at the top of the heap.
+     */
+    int peek () {
+        return items[0];
+    }
+
+    /**
+     * @return The priority of the item at the top of the heap.
+     */
+    long peekPriority () {
+        return priority[items[0]];
+    }
+
+    /**
+     * Inserts the item with the given priority, or lowers its priority if it is
+     * already in the heap; a priority that is not an improvement is ignored.
+     *
+     * @param item The item to insert or update.
+     * @param prio The item's new priority.
+     */
+    void offer (int item, long prio) {
+        int i = pos[item];
+        if (i < 0) {
+            i = size++;
+        } else if (prio >= priority[item]) {
+            return;
+        }
+        priority[item] = prio;
+        siftUp(item, i);
+    }
+
+    /**
+     * Inserts the item with the given priority, or moves it to that priority in
+     * either direction if it is already in the heap.
+     *
+     * @param item The item to insert or update.
+     * @param prio The item's new priority.
+     */
+    void update (int item, long prio) {
+        int i = pos[item];
+        if (i < 0) {
+            offer(item, prio);
+            return;
+        }
+        long old = priority[item];
+        priority[item] = prio;
+        if (prio < old) {
+            siftUp(item, i);
+        } else {
+            siftDown(item, i);
+        }
+    }
+
+    /**
+     * Removes the given item from the heap, if it is there.
+     *
+     * @param item The item to remove.
+     */
+    void remove (int item) {
+        int i = pos[item];
+        if (i < 0) { return; }
+        pos[item] = -1;
+        int last = items[--size];
+        if (last == item) { return; }
+        siftUp(last, i);
+        if (pos[last] == i) { siftDown(last, i); }
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     *
+     * @return The removed item.
+     */
+    int pop () {
+        int top = items[0], last = items[--size];
+        pos[top] = -1;
+        if (size > 0) { siftDown(last, 0); }
+        return top;
+    }
+
+    /**
+     * Removes every item from the heap in time proportional to its size.
+     */
+    void clear () {
+        for (int i = 0; i < size; i++) {
+            pos[items[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the given item up from heap slot i until its parent is no larger.
+     *
+     * @param item The item being placed.
+     * @param i The heap slot from which to start.
+     */
+    private void siftUp (int item, int i) {
+        long prio = priority[item];
+        while (i > 0) {
+            int up = (i - 1) / ARITY;
+            int upItem = items[up];
+            if (priority[upItem] <= prio) { break; }
+            items[i] = upItem;
+            pos[upItem] = i;
+            i = up;
+        }
+        items[i] = item;
+        pos[item] = i;
+    }
+
+    /**
+     * Moves the given item down from heap slot i until no child is smaller.
+     *
+     * @param item The item being placed.
+     * @param i The heap slot from which to start.
+     */
+    private void siftDown (int item, int i) {
+        long prio = priority[item];
+        while (true) {
+            int first = i * ARITY + 1;
+            if (first >= size) { break; }
+            int best = first;
+            long bestPrio = priority[items[first]];
+            for (int c = first + 1, end = Math.min(first + ARITY, size); c < end; c++) {
+                long p = priority[items[c]];
+                if (p < bestPrio) { best = c; bestPrio = p; }
+            }
+            if (prio <= bestPrio) { break; }
+            items[i] = items[best];
+            pos[items[i]] = i;
+            i = best;
+        }
+        items[i] = item;
+        pos[item] = i;
+    }
+
+}
@@ -0,0 +1,109 @@
+package main.pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from nonnegative int keys to int values, used for the
+ * per-state tables of searches that only ever touch a small part of a very large
+ * maze; lookups neither box nor allocate.
+ */
+class IntMap {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int EMPTY = -1;
+
+    private final int missing;
+    private int[] keys, values;
+    private int size;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new, empty IntMap.
+     *
+     * @param missing The value returned for keys that are not in the map.
+     */
+    IntMap (int missing) {
+        this.missing = missing;
+        this.keys = new int[16];
+        this.values = new int[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @param key A nonnegative key.
+     * @return The value stored for the key, or the missing value if there is none.
+     */
+    int get (int key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) { return values[i]; }
+        }
+        return missing;
+    }
+
+    /**
+     * Stores a value for the given key, replacing any previous one.
+     *
+     * @param key A nonnegative key.
+     * @param value The value to store.
+     */
+    void put (int key, int value) {
+        if (2 * (size + 1) > keys.length) { grow(); }
+        int mask = keys.length - 1, i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) { i = (i + 1) & mask; }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * @return The number of keys in the map.
+     */
+    int size () {
+        return size;
+    }
+
+    /**
+     * Removes every key from the map, keeping its capacity.
+     */
+    void clear () {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    /**
+     * Doubles the table's capacity and re-inserts every key.
+     */
+    private void grow () {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) { put(oldKeys[i], oldValues[i]); }
+        }
+    }
+
+    /**
+     * @param key A key.
+     * @return A well-mixed hash of the key.
+     */
+    private static int hash (int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
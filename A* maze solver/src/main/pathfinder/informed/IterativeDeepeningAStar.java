@@ -0,0 +1,238 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Iterative-deepening A* (IDA*) over a MazeProblem's cells, for heaps too small
+ * for an A* open list. Each iteration is a depth-first search bounded by an
+ * f-score threshold; the search keeps only the current path, so its memory is
+ * linear in the path's depth.
+ * <p>
+ * Raising the threshold only to the smallest f-score that exceeded it, as plain
+ * IDA* does, takes one iteration per distinct f-score below the optimal cost,
+ * which on a long labyrinth route is hundreds of thousands of full searches.
+ * Instead, as in IDA*-CR, the threshold's increase doubles with every iteration
+ * that reaches no goal, so a route of cost C takes O(log C) iterations. Since
+ * the last threshold may then overshoot the optimal cost, the iteration that
+ * first reaches a goal carries on as a depth-first branch-and-bound, lowering
+ * its threshold beneath each route it finds, and returns the cheapest.
+ * <p>
+ * A depth-first search alone re-explores every state once per path that reaches
+ * it, which on a maze's many equivalent routes is exponential. An optional,
+ * fixed-size transposition table remembers the cheapest g-score each state was
+ * reached with and prunes costlier (or, within an iteration, equal) arrivals;
+ * it is direct-mapped, so a full table simply forgets states, costing
+ * re-exploration but never correctness. How much re-exploration a small table
+ * costs depends on the maze, and on open floors it can be exponential, so the
+ * search may be capped at a number of expansions, past which it gives up.
+ */
+class IterativeDeepeningAStar {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final long EMPTY = -1;
+
+    private final MazeProblem problem;
+    private final int rows, cols;
+    private final long costBound, maxExpansions;
+    private long expansions;
+    private boolean overBudget;
+
+    // The transposition table: each entry holds a state, its best g-score, and
+    // the iteration that last reached it at that score
+    private final long[] tableState;
+    private final int[] tableG, tableIteration;
+    private final int tableMask;
+
+    // The current path, by depth: its states, their g-scores, and the next
+    // direction to try from each
+    private long[] pathState = new long[64];
+    private int[] pathG = new int[64];
+    private byte[] pathDir = new byte[64];
+
+    // The states of the cheapest route found so far, if any
+    private long[] bestPath;
+    private int bestDepth;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new IterativeDeepeningAStar over the given maze.
+     *
+     * @param problem The maze to search.
+     * @param tableSize The number of transposition table entries, rounded down
+     * to a power of two; 0 or 1 searches without a table.
+     * @param maxExpansions The most states the search may expand, over all of its
+     * iterations, before giving up.
+     */
+    IterativeDeepeningAStar (MazeProblem problem, int tableSize, long maxExpansions) {
+        if (tableSize < 0) { throw new IllegalArgumentException("Table size must be nonnegative"); }
+        if (maxExpansions <= 0) { throw new IllegalArgumentException("Expansion limit must be positive"); }
+        this.problem = problem;
+        this.maxExpansions = maxExpansions;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        // No route needs to visit a (cell, hasKey) state twice, nor costs more
+        // than 3 per state, so thresholds beyond this bound prove there is none
+        this.costBound = 6L * rows * cols;
+        int length = (tableSize < 2) ? 0 : Integer.highestOneBit(tableSize);
+        this.tableState = new long[length];
+        this.tableG = new int[length];
+        this.tableIteration = new int[length];
+        this.tableMask = length - 1;
+        Arrays.fill(tableState, EMPTY);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the initial cell, through the key, to any goal.
+     *
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists or the search went over its expansion limit.
+     */
+    ArrayList<String> solve () {
+        MazeState initial = problem.getInitialState(), key = problem.getKeyState();
+        if (initial == null || key == null || problem.getGoalStates().isEmpty()) { return null; }
+        ManhattanEstimate heuristic = new ManhattanEstimate(problem);
+        boolean startHasKey = initial.equals(key);
+        long threshold = heuristic.estimate(initial.col, initial.row, startHasKey), step = 1;
+        bestPath = null;
+        expansions = 0;
+        overBudget = false;
+        for (int iteration = 1; threshold <= costBound; iteration++) {
+            push(0, state(initial.col, initial.row, startHasKey), 0);
+            record(pathState[0], 0, iteration);
+            long next = search(threshold, iteration, heuristic);
+            if (overBudget) { return null; }
+            if (bestPath != null) { return tracePath(); }
+            if (next == Long.MAX_VALUE) { return null; }
+            threshold = Math.max(next, threshold + step);
+            step *= 2;
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether the last solve gave up on reaching its expansion limit.
+     */
+    boolean isOverBudget () {
+        return this.overBudget;
+    }
+
+    /**
+     * Runs one depth-first iteration from the path's root. Each goal reached
+     * within the threshold is saved as the best route, and the threshold is
+     * lowered beneath its cost for the rest of the iteration.
+     *
+     * @param threshold The largest f-score to search within.
+     * @param iteration The iteration's number, stamped on table entries.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return The smallest f-score that exceeded the threshold, or Long.MAX_VALUE
+     * if none did; only meaningful if no goal was reached and the search is not
+     * over budget.
+     */
+    private long search (long threshold, int iteration, ManhattanEstimate heuristic) {
+        long next = Long.MAX_VALUE;
+        int depth = 0;
+        while (depth >= 0) {
+            int dir = pathDir[depth]++;
+            if (dir == 4) {
+                depth--;
+                continue;
+            }
+            long state = pathState[depth], cell = state >>> 1;
+            int col = (int) (cell % cols) + MazeGrid.DCOL[dir], row = (int) (cell / cols) + MazeGrid.DROW[dir];
+            if (row < 0 || row >= rows || col < 0 || col >= cols) { continue; }
+            char symbol = problem.getCell(col, row);
+            if (symbol == 'X') { continue; }
+            boolean hasKey = (state & 1) != 0 || symbol == 'K';
+            long child = state(col, row, hasKey);
+            // Stepping straight back to the previous state is never part of a cheapest route
+            if (depth > 0 && child == pathState[depth - 1]) { continue; }
+            int g = pathG[depth] + MazeProblem.costOf(symbol);
+            long f = (long) g + heuristic.estimate(col, row, hasKey);
+            if (f > threshold) {
+                next = Math.min(next, f);
+                continue;
+            }
+            if (hasKey && symbol == 'G') {
+                bestPath = Arrays.copyOf(pathState, depth + 2);
+                bestPath[depth + 1] = child;
+                bestDepth = depth + 1;
+                threshold = g - 1;
+                continue;
+            }
+            if (!record(child, g, iteration)) { continue; }
+            if (++expansions > maxExpansions) {
+                overBudget = true;
+                return Long.MAX_VALUE;
+            }
+            push(++depth, child, g);
+        }
+        return next;
+    }
+
+    /**
+     * Records a state's arrival in the transposition table. Each bucket holds two
+     * entries: one kept for the shallowest state hashed to it, since a state near
+     * the root prunes a larger subtree, and one replaced on every arrival.
+     *
+     * @return Whether the state should be explored: false if it was already
+     * reached more cheaply, or as cheaply in this iteration.
+     */
+    private boolean record (long state, int g, int iteration) {
+        if (tableMask < 0) { return true; }
+        long h = state * 0x9E3779B97F4A7C15L;
+        int i = (int) (h ^ (h >>> 32)) & tableMask & ~1;
+        if (tableState[i] != state) {
+            if (tableState[i + 1] == state || (tableState[i] != EMPTY && tableG[i] < g)) { i++; }
+        }
+        if (tableState[i] == state && (tableG[i] < g || (tableG[i] == g && tableIteration[i] == iteration))) {
+            return false;
+        }
+        tableState[i] = state;
+        tableG[i] = g;
+        tableIteration[i] = iteration;
+        return true;
+    }
+
+    /**
+     * Places a state on the path at the given depth.
+     */
+    private void push (int depth, long state, int g) {
+        if (depth == pathState.length) {
+            pathState = Arrays.copyOf(pathState, 2 * depth);
+            pathG = Arrays.copyOf(pathG, 2 * depth);
+            pathDir = Arrays.copyOf(pathDir, 2 * depth);
+        }
+        pathState[depth] = state;
+        pathG[depth] = g;
+        pathDir[depth] = 0;
+    }
+
+    /**
+     * @return The actions along the best route found, from its root to its goal.
+     */
+    private ArrayList<String> tracePath () {
+        ArrayList<String> path = new ArrayList<>(bestDepth);
+        for (int depth = 1; depth <= bestDepth; depth++) {
+            long delta = (bestPath[depth] >>> 1) - (bestPath[depth - 1] >>> 1);
+            path.add((delta == -cols) ? "U" : (delta == cols) ? "D" : (delta == -1) ? "L" : "R");
+        }
+        return path;
+    }
+
+    /**
+     * @return The state ID of the given cell and key layer.
+     */
+    private long state (int col, int row, boolean hasKey) {
+        return (((long) row * cols + col) << 1) | (hasKey ? 1 : 0);
+    }
+
+}
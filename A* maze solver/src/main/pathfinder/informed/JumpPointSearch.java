@@ -0,0 +1,254 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Jump Point Search over the (cell, hasKey) state space of a compiled maze, for
+ * 4-connected grids with MazeProblem's non-uniform costs. Within regions of
+ * uniform cost-1 cells, straight runs are "jumped" without being queued, and only
+ * cells where a canonical optimal path may turn are generated:
+ * <ul>
+ *   <li>Horizontal jumps stop at cells with a forced vertical neighbor, i.e., one
+ *   that opens up right after a wall or mud cell blocked it a step earlier.</li>
+ *   <li>Vertical jumps stop at cells from which a horizontal jump finds a jump
+ *   point, since a canonical path may turn sideways anywhere along them.</li>
+ * </ul>
+ * Mud cells, cells next to mud, the key, and the goals break that uniformity, so
+ * every jump stops at them and they are expanded in all four directions, like
+ * a new start. The result has the same optimal cost as a plain A* search.
+ * As in GridAStar, the score arrays are stamped with the generation of the
+ * search that wrote them rather than cleared, so starting a search is O(1).
+ */
+class JumpPointSearch {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeGrid grid;
+    private final int size;
+    private final boolean[] special;
+    private final int[] g, parent;
+    private final Frontier frontier;
+    private int key;
+
+    // Generation stamps marking which g entries and closed flags belong to the
+    // current search
+    private final int[] reached, expanded;
+    private int generation;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new JumpPointSearch over the given compiled maze, marking the
+     * cells at which jumps must stop regardless of direction.
+     *
+     * @param grid The compiled maze to search.
+     */
+    JumpPointSearch (MazeGrid grid) {
+        this.grid = grid;
+        this.size = grid.size();
+        this.special = new boolean[size];
+        for (int cell = 0; cell < size; cell++) {
+            if (grid.isWall(cell) || grid.getCost(cell) == 1) { continue; }
+            special[cell] = true;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = grid.neighbor(cell, dir);
+                if (next >= 0) { special[next] = true; }
+            }
+        }
+        for (int goal : grid.getGoals()) { special[goal] = true; }
+        this.g = new int[2 * size];
+        this.parent = new int[2 * size];
+        this.reached = new int[2 * size];
+        this.expanded = new int[2 * size];
+        this.frontier = Frontier.forGrid(grid, 2 * size);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the initial cell, through the key, to any goal.
+     *
+     * @param initial The cell from which the route starts.
+     * @param key The cell holding the key.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists.
+     */
+    ArrayList<String> solve (int initial, int key, Heuristic heuristic) {
+        if (initial < 0 || key < 0 || grid.getGoalCount() == 0) { return null; }
+        if (heuristic.toGoal(key) == Heuristic.UNREACHABLE) { return null; }
+        this.key = key;
+        int end = search(initial, heuristic);
+        return (end < 0) ? null : tracePath(end);
+    }
+
+    /**
+     * Completes an A* search over jump points from the given initial cell to any
+     * goal reached while holding the key.
+     *
+     * @param initial The cell from which the search begins.
+     * @param heuristic The consistent heuristic guiding the search.
+     * @return The state at which the search ended, or -1 if no path exists.
+     */
+    private int search (int initial, Heuristic heuristic) {
+        int keyToGoal = heuristic.toGoal(key);
+        nextGeneration();
+        frontier.clear();
+        int start = (initial == key) ? initial + size : initial;
+        reached[start] = generation;
+        g[start] = 0;
+        parent[start] = -1;
+        frontier.offer(start, (start >= size) ? keyToGoal : heuristic.between(initial, key) + keyToGoal, 0);
+        while (!frontier.isEmpty()) {
+            int state = frontier.pop();
+            boolean hasKey = state >= size;
+            int cell = hasKey ? state - size : state;
+            if (hasKey && grid.isGoal(cell)) { return state; }
+            expanded[state] = generation;
+            int dirs = successorDirections(cell, (parent[state] < 0) ? -1 : parent[state] % size);
+            for (int dir = 0; dir < 4; dir++) {
+                if ((dirs & (1 << dir)) == 0) { continue; }
+                int next = jump(cell, dir);
+                if (next < 0) { continue; }
+                // Every cell jumped over costs 1; only the jump point itself may not
+                int stepCost = grid.manhattan(cell, next) - 1 + grid.getCost(next), h;
+                if (hasKey || next == key) {
+                    h = heuristic.toGoal(next);
+                    if (h == Heuristic.UNREACHABLE) { continue; }
+                    next += size;
+                } else {
+                    h = heuristic.between(next, key) + keyToGoal;
+                }
+                if (expanded[next] == generation) { continue; }
+                int cost = g[state] + stepCost;
+                if (reached[next] != generation || cost < g[next]) {
+                    reached[next] = generation;
+                    g[next] = cost;
+                    parent[next] = state;
+                    frontier.offer(next, cost + h, cost);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Starts a new search generation, invalidating every g entry and closed flag
+     * at once; the stamps are only actually cleared when the counter wraps.
+     */
+    private void nextGeneration () {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(expanded, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Returns the directions in which a jump point is expanded, as a bitmask
+     * over UP, DOWN, LEFT, RIGHT. Starts and special cells expand everywhere;
+     * otherwise a horizontal arrival continues forward plus any forced vertical
+     * neighbor, and a vertical arrival continues forward and to both sides.
+     *
+     * @param cell The jump point being expanded.
+     * @param from The jump point it was reached from, or -1 for the start.
+     * @return The bitmask of directions to jump in.
+     */
+    private int successorDirections (int cell, int from) {
+        if (from < 0 || isSpecial(cell)) { return 0xF; }
+        int dir = travelDirection(from, cell);
+        if (dir == MazeGrid.UP || dir == MazeGrid.DOWN) {
+            return (1 << dir) | (1 << MazeGrid.LEFT) | (1 << MazeGrid.RIGHT);
+        }
+        int dirs = 1 << dir;
+        if (isForced(cell, dir, MazeGrid.UP)) { dirs |= 1 << MazeGrid.UP; }
+        if (isForced(cell, dir, MazeGrid.DOWN)) { dirs |= 1 << MazeGrid.DOWN; }
+        return dirs;
+    }
+
+    /**
+     * Moves from the given cell in a straight line until reaching a jump point.
+     *
+     * @param cell The cell from which to jump.
+     * @param dir The direction of the jump.
+     * @return The jump point reached, or -1 if the jump runs into a wall or the
+     * edge of the maze first.
+     */
+    private int jump (int cell, int dir) {
+        boolean vertical = dir == MazeGrid.UP || dir == MazeGrid.DOWN;
+        for (int next = grid.neighbor(cell, dir); next >= 0; next = grid.neighbor(next, dir)) {
+            if (isSpecial(next)) { return next; }
+            if (vertical) {
+                if (jump(next, MazeGrid.LEFT) >= 0 || jump(next, MazeGrid.RIGHT) >= 0) { return next; }
+            } else if (isForced(next, dir, MazeGrid.UP) || isForced(next, dir, MazeGrid.DOWN)) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tests whether the given side of a cell, entered by a horizontal move, is a
+     * forced neighbor: open from this cell but not cheaply reachable from the one
+     * before it. Mud counts as blocked here, since the otherwise symmetric path
+     * that turns a step earlier would have to pay its higher cost.
+     *
+     * @param cell The cell being tested.
+     * @param dir The horizontal direction of travel into the cell.
+     * @param side UP or DOWN.
+     * @return Whether or not the side neighbor is forced.
+     */
+    private boolean isForced (int cell, int dir, int side) {
+        int behind = (dir == MazeGrid.RIGHT) ? cell - 1 : cell + 1;
+        int beside = grid.neighbor(behind, side);
+        return grid.neighbor(cell, side) >= 0 && (beside < 0 || grid.getCost(beside) != 1);
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return Whether every jump must stop at the given cell.
+     */
+    private boolean isSpecial (int cell) {
+        return special[cell] || cell == key;
+    }
+
+    /**
+     * @param from A jump point.
+     * @param to A later jump point in the same row or column.
+     * @return The direction of travel from one to the other.
+     */
+    private int travelDirection (int from, int to) {
+        if (grid.row(from) == grid.row(to)) {
+            return (to > from) ? MazeGrid.RIGHT : MazeGrid.LEFT;
+        }
+        return (to > from) ? MazeGrid.DOWN : MazeGrid.UP;
+    }
+
+    /**
+     * Backtracks from the given state through the parent array, expanding every
+     * jump into its individual moves, in start-to-end order.
+     *
+     * @param end The state at which the path ends.
+     * @return ArrayList of the directions taken to go from the initial to the end state.
+     */
+    private ArrayList<String> tracePath (int end) {
+        int length = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) {
+            length += grid.manhattan(parent[state] % size, state % size);
+        }
+        String[] actions = new String[length];
+        int i = length;
+        for (int state = end; parent[state] >= 0; state = parent[state]) {
+            int from = parent[state] % size, to = state % size;
+            String action = MazeGrid.ACTIONS[travelDirection(from, to)];
+            for (int steps = grid.manhattan(from, to); steps > 0; steps--) { actions[--i] = action; }
+        }
+        return new ArrayList<String>(Arrays.asList(actions));
+    }
+
+}
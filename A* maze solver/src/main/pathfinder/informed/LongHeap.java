@@ -0,0 +1,114 @@
+package main.pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary min-heap of primitive longs. Searches over sparse or very large
+ * state spaces, where a per-state IndexedHeap would be too big, pack an entry's
+ * priority into the high bits and its state into the low bits, and skip stale
+ * duplicates when they are popped.
+ */
+class LongHeap {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private long[] heap = new long[16];
+    private int size;
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return Whether or not the heap is empty.
+     */
+    boolean isEmpty () {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of entries in the heap.
+     */
+    int size () {
+        return size;
+    }
+
+    /**
+     * @return The smallest entry, without removing it.
+     */
+    long peek () {
+        return heap[0];
+    }
+
+    /**
+     * Adds an entry to the heap.
+     *
+     * @param entry The entry to add.
+     */
+    void push (long entry) {
+        if (size == heap.length) { heap = Arrays.copyOf(heap, size * 2); }
+        int i = size++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heap[up] <= entry) { break; }
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * Removes the smallest entry from the heap.
+     *
+     * @return The removed entry.
+     */
+    long pop () {
+        long top = heap[0], last = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) { break; }
+            if (child + 1 < size && heap[child + 1] < heap[child]) { child++; }
+            if (last <= heap[child]) { break; }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    /**
+     * Removes every entry from the heap.
+     */
+    void clear () {
+        size = 0;
+    }
+
+    /**
+     * Packs a priority and a state into a single heap entry.
+     *
+     * @param priority A nonnegative priority.
+     * @param state A nonnegative state ID.
+     * @return The packed entry, ordered by priority.
+     */
+    static long entry (int priority, int state) {
+        return ((long) priority << 32) | state;
+    }
+
+    /**
+     * @param entry A packed heap entry.
+     * @return The state stored in the entry.
+     */
+    static int state (long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * @param entry A packed heap entry.
+     * @return The priority stored in the entry.
+     */
+    static int priority (long entry) {
+        return (int) (entry >>> 32);
+    }
+
+}
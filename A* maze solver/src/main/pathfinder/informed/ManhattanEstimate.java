@@ -0,0 +1,68 @@
+package main.pathfinder.informed;
+
+/**
+ * Consistent heuristic for searches that read a MazeProblem's cells in place
+ * rather than compiling it: the Manhattan distance to the key, if not yet held,
+ * plus the key's Manhattan distance to the bounding box of the goals. It needs
+ * no pass over the maze, and no memory beyond a few coordinates.
+ */
+class ManhattanEstimate {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final int keyCol, keyRow, keyToGoal;
+    private final int goalTop, goalBottom, goalLeft, goalRight;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new ManhattanEstimate for the given maze, which must have a
+     * key and at least one goal.
+     *
+     * @param problem The maze to estimate costs in.
+     */
+    ManhattanEstimate (MazeProblem problem) {
+        int top = Integer.MAX_VALUE, bottom = -1, left = Integer.MAX_VALUE, right = -1;
+        for (MazeState goal : problem.getGoalStates()) {
+            top = Math.min(top, goal.row);
+            bottom = Math.max(bottom, goal.row);
+            left = Math.min(left, goal.col);
+            right = Math.max(right, goal.col);
+        }
+        this.goalTop = top;
+        this.goalBottom = bottom;
+        this.goalLeft = left;
+        this.goalRight = right;
+        MazeState key = problem.getKeyState();
+        this.keyCol = key.col;
+        this.keyRow = key.row;
+        this.keyToGoal = toGoal(keyCol, keyRow);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @param col Column of a cell.
+     * @param row Row of a cell.
+     * @param hasKey Whether the key is held on reaching the cell.
+     * @return A lower bound on the cost of finishing the route from the cell.
+     */
+    int estimate (int col, int row, boolean hasKey) {
+        if (hasKey) { return toGoal(col, row); }
+        return Math.abs(col - keyCol) + Math.abs(row - keyRow) + keyToGoal;
+    }
+
+    /**
+     * @return The Manhattan distance from (col, row) to the goals' bounding box,
+     * a lower bound on the cost to the nearest goal.
+     */
+    private int toGoal (int col, int row) {
+        return Math.max(0, goalLeft - col) + Math.max(0, col - goalRight)
+             + Math.max(0, goalTop - row) + Math.max(0, row - goalBottom);
+    }
+
+}
@@ -0,0 +1,148 @@
+package main.pathfinder.informed;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Set;
+
+/**
+ * Compact on-disk maze format, read through memory mapping. A file holds a
+ * MazeFileHeader, with the magic "MAZE" and no tile size, followed by the cells
+ * at 2 bits each, row-major, four to a byte starting from the low bits:
+ * <pre>
+ * byte cells[(rows * cols + 3) / 4]           (0 wall, 1 open, 2 mud, 3 goal)
+ * </pre>
+ * The cells are mapped straight from the file rather
+ * than read into the heap, so opening a maze takes the same time and heap
+ * whatever its size, and the OS pages cells in as searches touch them.
+ */
+class MappedMaze implements MazeCells {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int MAGIC = 0x4D415A45, VERSION = 1;
+
+    // Cells are mapped in chunks, since a single mapping holds at most 2 GB
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final MazeFileHeader header;
+    private final int cols;
+    private final long initial, key;
+    private final MappedByteBuffer[] chunks;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new MappedMaze around an already-mapped file.
+     */
+    private MappedMaze (MazeFileHeader header, MappedByteBuffer[] chunks) {
+        this.header = header;
+        this.cols = header.cols;
+        this.initial = header.initial;
+        this.key = header.key;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Opens and maps a maze file, validating its header.
+     *
+     * @param file The maze file to open.
+     * @return The mapped maze.
+     * @throws IOException If the file cannot be read or is not a valid maze file.
+     */
+    static MappedMaze open (Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MazeFileHeader header = MazeFileHeader.read(channel, file, MAGIC, VERSION, false, "maze");
+            long start = header.length, length = ((long) header.rows * header.cols + 3) / 4;
+            if (channel.size() < start + length) { throw new IOException("Truncated maze file"); }
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long offset = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + offset, Math.min(CHUNK_MASK + 1, length - offset));
+            }
+            return new MappedMaze(header, chunks);
+        }
+    }
+
+    /**
+     * Writes the given maze to a file in this format.
+     *
+     * @param problem The maze to write.
+     * @param file The file to write it to, replacing any existing file.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write (MazeProblem problem, Path file) throws IOException {
+        int rows = problem.getRows(), cols = problem.getCols();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            DataOutputStream data = new DataOutputStream(out);
+            MazeFileHeader.of(problem, 0).write(data, MAGIC, VERSION);
+
+            // Pack four cells per byte, carrying partial bytes across rows
+            int packed = 0, count = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    packed |= MazeFileHeader.code(problem.getCell(col, row)) << (2 * count);
+                    if (++count == 4) {
+                        data.write(packed);
+                        packed = count = 0;
+                    }
+                }
+            }
+            if (count > 0) { data.write(packed); }
+            data.flush();
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of rows in the maze.
+     */
+    int getRows () {
+        return header.rows;
+    }
+
+    /**
+     * @return The number of columns in the maze.
+     */
+    int getCols () {
+        return this.cols;
+    }
+
+    /**
+     * @return The initial cell, or null if there is none.
+     */
+    MazeState getInitial () {
+        return header.getInitial();
+    }
+
+    /**
+     * @return The key cell, or null if there is none.
+     */
+    MazeState getKey () {
+        return header.getKey();
+    }
+
+    /**
+     * @return Every goal cell.
+     */
+    Set<MazeState> getGoals () {
+        return header.getGoals();
+    }
+
+    @Override
+    public char getCell (int col, int row) {
+        long cell = (long) row * cols + col, offset = cell >>> 2;
+        if (cell == initial) { return 'I'; }
+        if (cell == key) { return 'K'; }
+        int bits = chunks[(int) (offset >>> CHUNK_BITS)].get((int) (offset & CHUNK_MASK));
+        return MazeFileHeader.SYMBOLS[(bits >>> (2 * (int) (cell & 3))) & 3];
+    }
+
+}
@@ -0,0 +1,16 @@
+package main.pathfinder.informed;
+
+/**
+ * Read-only storage of a MazeProblem's cells, addressed by column and row;
+ * lets a maze be backed by its Strings or by a file on disk alike.
+ */
+interface MazeCells {
+
+    /**
+     * @param col Column of a cell within the maze's bounds.
+     * @param row Row of a cell within the maze's bounds.
+     * @return The maze character at (col, row), e.g., 'X', '.', 'M', ...
+     */
+    char getCell (int col, int row);
+
+}
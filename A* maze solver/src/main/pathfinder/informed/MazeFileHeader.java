@@ -0,0 +1,202 @@
+package main.pathfinder.informed;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The header and cell encoding shared by the packed maze file formats,
+ * MappedMaze and TiledMaze. Both begin with the same fields, the tiled format
+ * adding its tile size after the maze's size:
+ * <pre>
+ * int  magic              int  version
+ * int  rows               int  cols           [int tile size]
+ * long initial cell       long key cell       (row * cols + col, -1 if none)
+ * int  goal count         long goal cells[goal count]
+ * </pre>
+ * and both store each cell in 2 bits, as an index into SYMBOLS. The initial and
+ * key cells are stored as open cells, and told apart by their positions in the
+ * header.
+ */
+class MazeFileHeader {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // The maze character of each 2-bit cell code
+    static final char[] SYMBOLS = { 'X', '.', 'M', 'G' };
+
+    final int rows, cols, tileSize;
+    final long initial, key;
+    final long[] goals;
+
+    // Bytes before the cells: the fixed fields and the goal cells
+    final long length;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new MazeFileHeader from its fields.
+     *
+     * @param tileSize The tile size, or 0 for a format without tiles.
+     */
+    private MazeFileHeader (int rows, int cols, int tileSize, long initial, long key, long[] goals) {
+        this.rows = rows;
+        this.cols = cols;
+        this.tileSize = tileSize;
+        this.initial = initial;
+        this.key = key;
+        this.goals = goals;
+        this.length = fixedLength(tileSize > 0) + 8L * goals.length;
+    }
+
+    /**
+     * Describes the given maze, to be written ahead of its cells.
+     *
+     * @param problem The maze to describe.
+     * @param tileSize The tile size, or 0 for a format without tiles.
+     * @return The maze's header.
+     */
+    static MazeFileHeader of (MazeProblem problem, int tileSize) {
+        int cols = problem.getCols();
+        MazeState initialState = problem.getInitialState(), keyState = problem.getKeyState();
+        long[] goals = problem.getGoalStates().stream().mapToLong(goal -> (long) goal.row * cols + goal.col).toArray();
+        return new MazeFileHeader(problem.getRows(), cols, tileSize,
+            (initialState == null) ? -1 : (long) initialState.row * cols + initialState.col,
+            (keyState == null) ? -1 : (long) keyState.row * cols + keyState.col, goals);
+    }
+
+    /**
+     * Reads and validates the header at the start of a maze file.
+     *
+     * @param channel The open file.
+     * @param file The file's path, for error messages.
+     * @param magic The format's magic number.
+     * @param version The format's version.
+     * @param tiled Whether the format stores a tile size.
+     * @param format The format's name in error messages, e.g., "maze".
+     * @return The header read.
+     * @throws IOException If the file cannot be read or its header is invalid.
+     */
+    static MazeFileHeader read (FileChannel channel, Path file, int magic, int version, boolean tiled, String format) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(fixedLength(tiled));
+        readFully(channel, header, 0, format);
+        if (header.getInt() != magic) { throw new IOException(file + " is not a " + format + " file"); }
+        int found = header.getInt();
+        if (found != version) { throw new IOException("Unsupported " + format + " file version " + found); }
+        int rows = header.getInt(), cols = header.getInt(), tileSize = tiled ? header.getInt() : 0;
+        long initial = header.getLong(), key = header.getLong();
+        int goalCount = header.getInt();
+        long size = (long) rows * cols;
+        if (rows < 0 || cols < 0 || (tiled && (tileSize <= 0 || tileSize > 1 << 15))
+            || initial < -1 || initial >= size || key < -1 || key >= size || goalCount < 0 || goalCount > size) {
+            throw new IOException("Corrupt " + format + " file header");
+        }
+
+        // Check the goal cells' length against the file before allocating for
+        // them, so that a corrupt count cannot ask for gigabytes
+        long goalLength = 8L * goalCount;
+        if (goalLength > Integer.MAX_VALUE - 8) { throw new IOException("Corrupt " + format + " file header"); }
+        if (goalLength > channel.size() - fixedLength(tiled)) { throw new IOException("Truncated " + format + " file"); }
+        ByteBuffer goalBytes = ByteBuffer.allocate((int) goalLength);
+        readFully(channel, goalBytes, fixedLength(tiled), format);
+        long[] goals = new long[goalCount];
+        for (int i = 0; i < goalCount; i++) {
+            goals[i] = goalBytes.getLong();
+            if (goals[i] < 0 || goals[i] >= size) { throw new IOException("Corrupt goal cell " + goals[i]); }
+        }
+        return new MazeFileHeader(rows, cols, tileSize, initial, key, goals);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Writes the header, to be followed by the cells.
+     *
+     * @param data The stream to write to.
+     * @param magic The format's magic number.
+     * @param version The format's version.
+     * @throws IOException If the stream cannot be written.
+     */
+    void write (DataOutputStream data, int magic, int version) throws IOException {
+        data.writeInt(magic);
+        data.writeInt(version);
+        data.writeInt(rows);
+        data.writeInt(cols);
+        if (tileSize > 0) { data.writeInt(tileSize); }
+        data.writeLong(initial);
+        data.writeLong(key);
+        data.writeInt(goals.length);
+        for (long goal : goals) { data.writeLong(goal); }
+    }
+
+    /**
+     * @return The initial cell, or null if there is none.
+     */
+    MazeState getInitial () {
+        return state(initial);
+    }
+
+    /**
+     * @return The key cell, or null if there is none.
+     */
+    MazeState getKey () {
+        return state(key);
+    }
+
+    /**
+     * @return Every goal cell.
+     */
+    Set<MazeState> getGoals () {
+        Set<MazeState> result = new HashSet<>();
+        for (long goal : goals) { result.add(state(goal)); }
+        return result;
+    }
+
+    /**
+     * @param cell A cell index, or -1.
+     * @return The cell's MazeState, or null for -1.
+     */
+    private MazeState state (long cell) {
+        return (cell < 0) ? null : new MazeState((int) (cell % cols), (int) (cell / cols));
+    }
+
+    /**
+     * @return The number of bytes of the fields before the goal cells.
+     */
+    private static int fixedLength (boolean tiled) {
+        return tiled ? 40 : 36;
+    }
+
+    /**
+     * @param symbol A maze character.
+     * @return The character's 2-bit cell code; initial and key cells are open.
+     */
+    static int code (char symbol) {
+        switch (symbol) {
+        case 'X': return 0;
+        case 'M': return 2;
+        case 'G': return 3;
+        default: return 1;
+        }
+    }
+
+    /**
+     * Fills the given buffer from the channel, starting at the given position.
+     *
+     * @param format The format's name in error messages, e.g., "maze".
+     * @throws IOException If the file cannot be read or ends first.
+     */
+    static void readFully (FileChannel channel, ByteBuffer buffer, long position, String format) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) { throw new IOException("Truncated " + format + " file"); }
+        }
+        buffer.flip();
+    }
+
+}
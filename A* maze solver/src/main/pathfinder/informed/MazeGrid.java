@@ -0,0 +1,307 @@
+package main.pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Compiled, primitive representation of a MazeProblem in which every cell is
+ * addressed by a single int index (row * cols + col) and stored as a single byte.
+ * Compiling a maze once lets the search engines run on int cell IDs and primitive
+ * arrays instead of allocating MazeStates, transition Maps, and tree nodes.
+ */
+public class MazeGrid {
+
+    // Cell Encoding
+    // -----------------------------------------------------------------------------
+    // The low bits of each cell store the cost of entering it (0 for walls), and the
+    // high bits flag whether the cell holds a goal or the key
+    static final int COST_MASK = 0x0F, GOAL_FLAG = 0x10, KEY_FLAG = 0x20;
+
+    // Directions, indexed in the order U, D, L, R
+    static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+    static final String[] ACTIONS = { "U", "D", "L", "R" };
+    static final int[] DCOL = {  0, 0, -1, 1 },
+                       DROW = { -1, 1,  0, 0 };
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final byte[] cells;
+    private final int rows, cols;
+    private final int initial, key;
+    private int maxCost;
+    private final int[] goals;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new MazeGrid around already-encoded cells.
+     *
+     * @param cells Row-major array of encoded cells.
+     * @param rows Number of rows in the maze.
+     * @param cols Number of columns in the maze.
+     * @param initial Index of the initial cell, -1 if there is none.
+     * @param key Index of the key cell, -1 if there is none.
+     * @param goals Indices of every goal cell.
+     */
+    MazeGrid (byte[] cells, int rows, int cols, int initial, int key, int[] goals) {
+        this.cells = cells;
+        this.rows = rows;
+        this.cols = cols;
+        this.initial = initial;
+        this.key = key;
+        this.goals = goals;
+        int max = 1;
+        for (byte cell : cells) { max = Math.max(max, cell & COST_MASK); }
+        this.maxCost = max;
+    }
+
+    /**
+     * Compiles the given MazeProblem into a new MazeGrid. Every call produces an
+     * independent grid, so the result may be kept and reused across many searches.
+     *
+     * @param problem The MazeProblem to compile.
+     * @return The compiled MazeGrid.
+     */
+    public static MazeGrid compile (MazeProblem problem) {
+        int rows = problem.getRows(), cols = problem.getCols();
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze of " + rows + " x " + cols + " cells is too large to compile");
+        }
+        byte[] cells = new byte[rows * cols];
+        int initial = -1, key = -1, goalCount = 0;
+        int[] goals = new int[4];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                switch (problem.getCell(col, row)) {
+                case 'X':
+                    cells[cell] = 0; break;
+                case 'M':
+                    cells[cell] = 3; break;
+                case 'I':
+                    initial = cell; cells[cell] = 1; break;
+                case 'K':
+                    key = cell; cells[cell] = 1 | KEY_FLAG; break;
+                case 'G':
+                    if (goalCount == goals.length) { goals = Arrays.copyOf(goals, goalCount * 2); }
+                    goals[goalCount++] = cell;
+                    cells[cell] = 1 | GOAL_FLAG; break;
+                default:
+                    cells[cell] = 1;
+                }
+            }
+        }
+        return new MazeGrid(cells, rows, cols, initial, key, Arrays.copyOf(goals, goalCount));
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of rows in this maze.
+     */
+    public int getRows () {
+        return this.rows;
+    }
+
+    /**
+     * @return The number of columns in this maze.
+     */
+    public int getCols () {
+        return this.cols;
+    }
+
+    /**
+     * @return The total number of cells (rows * cols) in this maze.
+     */
+    public int size () {
+        return this.cells.length;
+    }
+
+    /**
+     * @return Index of the initial cell, -1 if the maze has none.
+     */
+    public int getInitial () {
+        return this.initial;
+    }
+
+    /**
+     * @return Index of the key cell, -1 if the maze has none.
+     */
+    public int getKey () {
+        return this.key;
+    }
+
+    /**
+     * @return A copy of the indices of every goal cell in this maze.
+     */
+    public int[] getGoals () {
+        return this.goals.clone();
+    }
+
+    /**
+     * @return The number of goal cells in this maze.
+     */
+    public int getGoalCount () {
+        return this.goals.length;
+    }
+
+    /**
+     * @return The largest cost of entering any open cell in this maze.
+     */
+    public int getMaxCost () {
+        return this.maxCost;
+    }
+
+    /**
+     * Returns the cell index of the given (col, row) position.
+     *
+     * @param col Column of the cell.
+     * @param row Row of the cell.
+     * @return The cell's index, row * cols + col.
+     */
+    public int index (int col, int row) {
+        return row * this.cols + col;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The column of the given cell.
+     */
+    public int col (int cell) {
+        return cell % this.cols;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return The row of the given cell.
+     */
+    public int row (int cell) {
+        return cell / this.cols;
+    }
+
+    /**
+     * Returns the cost associated with entering the given cell, or 0 if the
+     * cell is a wall.
+     *
+     * @param cell A cell index.
+     * @return The cost of moving into the cell.
+     */
+    public int getCost (int cell) {
+        return this.cells[cell] & COST_MASK;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return Whether or not the given cell is a wall.
+     */
+    public boolean isWall (int cell) {
+        return (this.cells[cell] & COST_MASK) == 0;
+    }
+
+    /**
+     * @param cell A cell index.
+     * @return Whether or not the given cell is a goal.
+     */
+    public boolean isGoal (int cell) {
+        return (this.cells[cell] & GOAL_FLAG) != 0;
+    }
+
+    /**
+     * [Mutator] Changes the terrain of the given cell. Searches and precomputed
+     * tables built over this grid beforehand do not see the change unless they
+     * are told about it (see, e.g., HierarchicalPathfinder.invalidate).
+     *
+     * @param cell A cell index.
+     * @param symbol The new terrain: 'X' for a wall, '.' for open floor, or 'M' for mud.
+     * @throws IllegalArgumentException If the symbol is not a terrain symbol, or the
+     * cell holds the key or a goal.
+     */
+    public void setCell (int cell, char symbol) {
+        if ((this.cells[cell] & (GOAL_FLAG | KEY_FLAG)) != 0) {
+            throw new IllegalArgumentException("Cannot change the terrain of a key or goal cell");
+        }
+        switch (symbol) {
+        case 'X':
+            this.cells[cell] = 0; break;
+        case '.':
+            this.cells[cell] = 1; break;
+        case 'M':
+            this.cells[cell] = 3;
+            this.maxCost = Math.max(this.maxCost, 3);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown terrain symbol: " + symbol);
+        }
+    }
+
+    /**
+     * Returns the cell reached by moving from the given cell in the given
+     * direction, or -1 if that move leaves the maze or runs into a wall.
+     *
+     * @param cell The cell being moved from.
+     * @param dir The direction of the move, one of UP, DOWN, LEFT, RIGHT.
+     * @return The index of the neighboring cell, or -1 if it cannot be entered.
+     */
+    public int neighbor (int cell, int dir) {
+        int next;
+        switch (dir) {
+        case UP:
+            next = cell - this.cols; break;
+        case DOWN:
+            next = cell + this.cols; break;
+        case LEFT:
+            if (cell % this.cols == 0) { return -1; }
+            next = cell - 1; break;
+        default:
+            if (cell % this.cols == this.cols - 1) { return -1; }
+            next = cell + 1;
+        }
+        return (next < 0 || next >= this.cells.length || (this.cells[next] & COST_MASK) == 0) ? -1 : next;
+    }
+
+    /**
+     * Returns the direction of the single move that leads from one cell to an
+     * adjacent one.
+     *
+     * @param from The cell being moved from.
+     * @param to A cell adjacent to from.
+     * @return The direction, one of UP, DOWN, LEFT, RIGHT.
+     */
+    int direction (int from, int to) {
+        int diff = to - from;
+        if (diff == this.cols) { return DOWN; }
+        if (diff == -this.cols) { return UP; }
+        return (diff > 0) ? RIGHT : LEFT;
+    }
+
+    /**
+     * Returns the Manhattan distance between two cells, which never overestimates
+     * the cost of moving between them since every move costs at least 1.
+     *
+     * @param a A cell index.
+     * @param b Another cell index.
+     * @return The Manhattan distance between a and b.
+     */
+    public int manhattan (int a, int b) {
+        return Math.abs(a % this.cols - b % this.cols) + Math.abs(a / this.cols - b / this.cols);
+    }
+
+    /**
+     * @return A 64-bit FNV-1a hash of the maze's dimensions and cell costs, which
+     * also covers its walls since they cost 0; persisted preprocessing records it
+     * to recognize the maze it was built for.
+     */
+    long fingerprint () {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ this.rows) * 0x100000001b3L;
+        hash = (hash ^ this.cols) * 0x100000001b3L;
+        for (int cell = 0; cell < size(); cell++) {
+            hash = (hash ^ getCost(cell)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+}
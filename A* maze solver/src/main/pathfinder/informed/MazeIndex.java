@@ -0,0 +1,132 @@
+package main.pathfinder.informed;
+
+/**
+ * Preprocessed heuristic tables for answering many queries against one maze
+ * layout, e.g., with different initial and key cells. Building an index costs a
+ * few Dijkstra passes over the maze, after which every query gets:
+ * <ul>
+ *   <li>An exact reverse-Dijkstra distance field to the goal set, used for the
+ *   key-to-goal part of the route.</li>
+ *   <li>ALT (A*, Landmarks, Triangle inequality) bounds for the initial-to-key
+ *   part: for every landmark L, both d(n, t) &ge; d(L, t) - d(L, n) and
+ *   d(n, t) &ge; d(n, L) - d(t, L), combined with the Manhattan distance.</li>
+ * </ul>
+ * All tables are compact 16-bit arrays whenever their distances fit.
+ */
+public class MazeIndex implements Heuristic {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeGrid grid;
+    private final DistanceField goalField;
+    private final DistanceField[] fromLandmark, toLandmark;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new MazeIndex from its precomputed tables.
+     *
+     * @param grid The compiled maze the tables describe.
+     * @param goalField Distances from every cell to the nearest goal.
+     * @param fromLandmark Distances from each landmark to every cell.
+     * @param toLandmark Distances from every cell to each landmark.
+     */
+    private MazeIndex (MazeGrid grid, DistanceField goalField, DistanceField[] fromLandmark, DistanceField[] toLandmark) {
+        this.grid = grid;
+        this.goalField = goalField;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Builds the heuristic tables for the given maze. Landmarks are chosen by
+     * farthest-point selection: each new landmark is the open cell farthest from
+     * every landmark chosen so far, which spreads them toward the maze's edges
+     * where their triangle-inequality bounds are tightest.
+     *
+     * @param grid The compiled maze to index.
+     * @param landmarks The number of ALT landmarks to place; 0 falls back to the
+     * Manhattan distance for the initial-to-key part of each route.
+     * @return The new MazeIndex.
+     */
+    public static MazeIndex build (MazeGrid grid, int landmarks) {
+        if (landmarks < 0) { throw new IllegalArgumentException("Landmark count must be nonnegative"); }
+        DistanceField goalField = DistanceField.toGoals(grid);
+        int seed = firstOpenCell(grid);
+        if (seed < 0) { landmarks = 0; }
+        DistanceField[] from = new DistanceField[landmarks], to = new DistanceField[landmarks];
+        if (landmarks == 0) { return new MazeIndex(grid, goalField, from, to); }
+
+        // nearest[c] tracks the distance from c to its closest chosen landmark
+        int[] nearest = DistanceField.dijkstra(grid, new int[] { seed }, false);
+        for (int i = 0; i < landmarks; i++) {
+            int landmark = seed;
+            for (int cell = 0; cell < nearest.length; cell++) {
+                if (nearest[cell] != DistanceField.UNREACHABLE && nearest[cell] > nearest[landmark]) { landmark = cell; }
+            }
+            int[] dist = DistanceField.dijkstra(grid, new int[] { landmark }, false);
+            for (int cell = 0; cell < nearest.length; cell++) {
+                nearest[cell] = (i == 0) ? dist[cell] : Math.min(nearest[cell], dist[cell]);
+            }
+            from[i] = new DistanceField(dist);
+            to[i] = DistanceField.toSources(grid, new int[] { landmark });
+        }
+        return new MazeIndex(grid, goalField, from, to);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The compiled maze that this index describes.
+     */
+    public MazeGrid getGrid () {
+        return this.grid;
+    }
+
+    /**
+     * @return The number of ALT landmarks in this index.
+     */
+    public int getLandmarkCount () {
+        return this.fromLandmark.length;
+    }
+
+    /**
+     * Exact cost from the given cell to the nearest goal.
+     */
+    @Override
+    public int toGoal (int cell) {
+        return goalField.get(cell);
+    }
+
+    /**
+     * Largest of the Manhattan and landmark lower bounds on the cost between two
+     * cells; landmarks that cannot reach or be reached from either cell are skipped.
+     */
+    @Override
+    public int between (int from, int to) {
+        int best = grid.manhattan(from, to);
+        for (int i = 0; i < fromLandmark.length; i++) {
+            int lFrom = fromLandmark[i].get(from), lTo = fromLandmark[i].get(to);
+            if (lFrom != UNREACHABLE && lTo != UNREACHABLE) { best = Math.max(best, lTo - lFrom); }
+            int fromL = toLandmark[i].get(from), toL = toLandmark[i].get(to);
+            if (fromL != UNREACHABLE && toL != UNREACHABLE) { best = Math.max(best, fromL - toL); }
+        }
+        return best;
+    }
+
+    /**
+     * @param grid A compiled maze.
+     * @return The lowest-indexed open cell of the maze, or -1 if it is all walls.
+     */
+    private static int firstOpenCell (MazeGrid grid) {
+        for (int cell = 0; cell < grid.size(); cell++) {
+            if (!grid.isWall(cell)) { return cell; }
+        }
+        return -1;
+    }
+
+}
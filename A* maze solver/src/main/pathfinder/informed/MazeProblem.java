@@ -1,5 +1,7 @@
 package main.pathfinder.informed;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -16,8 +18,8 @@ public class MazeProblem {
     
     // Private Fields
     // -----------------------------------------------------------------------------
-    private String[] maze;
-    private int rows, cols;
+    private final MazeCells cells;
+    private final int rows, cols;
     
     // Private Static Vars
     // -----------------------------------------------------------------------------
@@ -61,7 +63,7 @@ public class MazeProblem {
      * </pre>
      */
     public MazeProblem (String[] maze) {
-        this.maze = maze;
+        this.cells = (col, row) -> maze[row].charAt(col);
         this.rows = maze.length;
         this.cols = (rows == 0) ? 0 : maze[0].length();
         MazeState foundInitial = null, foundKey = null;
@@ -92,10 +94,78 @@ public class MazeProblem {
         GOAL_STATES = goals;
     }
     
+    /**
+     * Constructs a new MazeProblem around a maze file mapped into memory.
+     * 
+     * @param mapped The mapped maze file.
+     */
+    private MazeProblem (MappedMaze mapped) {
+        this.cells = mapped;
+        this.rows = mapped.getRows();
+        this.cols = mapped.getCols();
+        INITIAL_STATE = mapped.getInitial();
+        KEY_STATE = mapped.getKey();
+        GOAL_STATES = mapped.getGoals();
+    }
+    
+    /**
+     * Constructs a new MazeProblem around an out-of-core tiled maze, whose tiles
+     * are read from disk as the maze's cells are queried. Pathfinder searches
+     * such a maze without compiling it, so that only the tiles near the route
+     * are ever read; the maze should stay open while the problem is in use.
+     * 
+     * @param tiled The opened tiled maze.
+     */
+    public MazeProblem (TiledMaze tiled) {
+        this.cells = tiled;
+        this.rows = tiled.getRows();
+        this.cols = tiled.getCols();
+        INITIAL_STATE = tiled.getInitial();
+        KEY_STATE = tiled.getKey();
+        GOAL_STATES = tiled.getGoals();
+    }
+    
+    /**
+     * Opens a maze file written by save, mapping its cells into memory rather than
+     * reading them: the maze is ready as soon as its header is read, and its cells
+     * take no heap space however large it is (2 bits per cell on disk).
+     * 
+     * @param file The maze file to open.
+     * @return A MazeProblem backed by the file.
+     * @throws IOException If the file cannot be read or is not a valid maze file.
+     */
+    public static MazeProblem open (Path file) throws IOException {
+        return new MazeProblem(MappedMaze.open(file));
+    }
+    
     
     // Methods
     // -----------------------------------------------------------------------------
     
+    /**
+     * Writes this maze to a file in the compact format that open maps: a short
+     * header with the initial, key, and goal cells, then 2 bits per cell.
+     * 
+     * @param file The file to write, replacing any existing file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save (Path file) throws IOException {
+        MappedMaze.write(this, file);
+    }
+    
+    /**
+     * Writes this maze to a file in the tiled format that TiledMaze opens: the
+     * same header as save's, then the cells in square tiles of the given size,
+     * each of which can be read on its own.
+     * 
+     * @param file The file to write, replacing any existing file.
+     * @param tileSize The number of rows and columns of cells in each tile.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveTiled (Path file, int tileSize) throws IOException {
+        TiledMaze.write(this, file, tileSize);
+    }
+    
     /**
      * Returns whether or not the given state is a Goal state.
      * 
@@ -116,12 +186,12 @@ public class MazeProblem {
     }
     
     /**
-     * Returns the initial state for this maze.
+     * Returns the initial state for this maze, null if there is none.
      * 
      * @return The maze's initial state.
      */
     public MazeState getInitialState () {
-        return this.INITIAL_STATE.clone();
+        return (this.INITIAL_STATE == null) ? null : this.INITIAL_STATE.clone();
     }
     
     /**
@@ -133,6 +203,46 @@ public class MazeProblem {
         return (this.KEY_STATE == null) ? null : this.KEY_STATE.clone();
     }
     
+    /**
+     * Returns the number of rows in this maze.
+     * 
+     * @return The maze's row count.
+     */
+    int getRows () {
+        return this.rows;
+    }
+    
+    /**
+     * Returns the number of columns in this maze.
+     * 
+     * @return The maze's column count.
+     */
+    int getCols () {
+        return this.cols;
+    }
+    
+    /**
+     * Returns whether this maze's cells are paged in from disk on demand, so
+     * that searches should read them in place rather than compile the maze.
+     * 
+     * @return Whether the maze is backed by a TiledMaze.
+     */
+    boolean isOutOfCore () {
+        return cells instanceof TiledMaze;
+    }
+    
+    /**
+     * Returns the raw maze character located at the given position; used by
+     * MazeGrid when compiling this maze into its primitive representation.
+     * 
+     * @param col Column of the requested cell.
+     * @param row Row of the requested cell.
+     * @return The maze character at (col, row), e.g., 'X', '.', 'M', ...
+     */
+    char getCell (int col, int row) {
+        return cells.getCell(col, row);
+    }
+    
     /**
      * Returns the cost associated with entering the given state.
      * 
@@ -140,7 +250,31 @@ public class MazeProblem {
      * @return The cost associated with moving into the given state.
      */
     public int getCost (MazeState state) {
-        switch(maze[state.row].charAt(state.col)) {
+        return getCost(state.col, state.row);
+    }
+    
+    /**
+     * Returns the cost associated with entering the given cell, without wrapping
+     * it in a MazeState.
+     * 
+     * @param col The cell's column.
+     * @param row The cell's row.
+     * @return The cost associated with moving into the given cell.
+     */
+    int getCost (int col, int row) {
+        return costOf(getCell(col, row));
+    }
+    
+    /**
+     * Returns the cost associated with entering a cell holding the given maze
+     * character; engines that have already read a cell's character use this
+     * rather than reading it again.
+     * 
+     * @param cell A maze character, e.g., '.', 'M', ...
+     * @return The cost associated with moving into such a cell.
+     */
+    static int costOf (char cell) {
+        switch(cell) {
             case 'M': return 3;
             default: return 1;
         }
@@ -172,7 +306,7 @@ public class MazeProblem {
             // map bounds and no wall at the position)...
             if (newState.row >= 0 && newState.row < rows &&
                 newState.col >= 0 && newState.col < cols &&
-                maze[newState.row].charAt(newState.col) != 'X') {
+                getCell(newState.col, newState.row) != 'X') {
                 // ...then add it to the result!
                 result.put(action.getKey(), newState);
             }
@@ -202,7 +336,7 @@ public class MazeProblem {
         for (String action : possibleSoln) {
             MazeState actionMod = TRANS_MAP.get(action);
             movingState.add(actionMod);
-            switch (maze[movingState.row].charAt(movingState.col)) {
+            switch (getCell(movingState.col, movingState.row)) {
             case 'X':
                 return new MazeTestResult(false, -1);
             case 'K':
@@ -213,6 +347,36 @@ public class MazeProblem {
         return new MazeTestResult(isGoalState(movingState) && hasKey, cost);
     }
     
+    /**
+     * Tests a CompactPath as a solution to this MazeProblem, like
+     * testSolution(ArrayList), but stepping through the packed moves directly
+     * rather than looking up each action String; moves that leave the maze fail
+     * the test.
+     * 
+     * @param possibleSoln A possible solution to test, possibly null.
+     * @return A MazeTestResult object with fields: IS_SOLUTION, determining whether or not the
+     * given solution solves the maze, and COST, the total cost of the solution if so, -1 otherwise.
+     */
+    public MazeTestResult testSolution (CompactPath possibleSoln) {
+        if (possibleSoln == null) { return new MazeTestResult(false, -1); }
+        int col = INITIAL_STATE.col, row = INITIAL_STATE.row, cost = 0;
+        boolean hasKey = false;
+        for (int i = 0; i < possibleSoln.length(); i++) {
+            int move = possibleSoln.getMove(i);
+            col += MazeGrid.DCOL[move];
+            row += MazeGrid.DROW[move];
+            if (row < 0 || row >= rows || col < 0 || col >= cols) { return new MazeTestResult(false, -1); }
+            switch (getCell(col, row)) {
+            case 'X':
+                return new MazeTestResult(false, -1);
+            case 'K':
+                hasKey = true; break;
+            }
+            cost += getCost(col, row);
+        }
+        return new MazeTestResult(getCell(col, row) == 'G' && hasKey, cost);
+    }
+    
     
     /**
      * Public inner class serving as a tuple for the Maze Problem's testSolution return
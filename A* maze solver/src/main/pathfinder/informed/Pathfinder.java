@@ -1,144 +1,490 @@
 package main.pathfinder.informed;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 
 
 /**
- * Maze Pathfinding algorithm that implements a basic, uninformed, breadth-first tree search.
+ * Maze Pathfinding algorithm that implements an A* graph search for the cheapest
+ * path from the initial state, through the key, to any of the goals.
  * @author Alex Armknecht
  */
 public class Pathfinder {
-    
+
+    /**
+     * Search engines available for solving a maze; every mode returns a path of
+     * the same, optimal cost.
+     */
+    public enum Mode {
+        /** A* over every cell of the maze. */
+        ASTAR,
+        /**
+         * Jump Point Search, which skips over open floors of cost-1 cells; it
+         * beats A* on rooms and corridors, but on terrain thick with mud, where
+         * most cells stop every jump, it does more work than A* for no gain.
+         */
+        JUMP_POINT,
+        /** Bidirectional A* over the initial-to-key and key-to-goal legs. */
+        BIDIRECTIONAL,
+        /** Hash-distributed A* (HDA*) on one worker thread per available processor. */
+        PARALLEL,
+        /**
+         * Iterative-deepening A*, in memory linear in the path's depth plus a small
+         * transposition table; for MazeProblems only, index queries use A*.
+         */
+        IDA_STAR,
+        /**
+         * Fringe Search, in memory linear in the states reached, with no priority
+         * queue; for MazeProblems only, index queries use A*.
+         */
+        FRINGE
+    }
+
+    // Estimated bytes of heap per maze cell for solving with A*, which may reach
+    // both of a cell's states, and per state reached by a Fringe Search, and per
+    // transposition table entry
+    private static final long BYTES_PER_CELL = 160, BYTES_PER_FRINGE_STATE = 72, BYTES_PER_TABLE_ENTRY = 16;
+    private static final int DEFAULT_TABLE_SIZE = 1 << 16, MIN_TABLE_SIZE = 1 << 10;
+
+    // Expansions per maze cell that a budgeted IDA* may make before giving up
+    private static final long EXPANSIONS_PER_CELL = 128;
+
+    /**
+     * Result of an anytime search: the best route found before the deadline, its
+     * cost, and a proven bound on how far that cost may be from the optimal one.
+     */
+    public static class AnytimeResult {
+
+        public final CompactPath PATH;
+        public final int COST;
+        public final double EPSILON;
+
+        /**
+         * Constructor for an AnytimeResult.
+         * @param path The best route found.
+         * @param cost The route's total cost.
+         * @param epsilon Bound such that cost &le; epsilon * the optimal cost; 1 if
+         * the route is proven optimal.
+         */
+        public AnytimeResult (CompactPath path, int cost, double epsilon) {
+            this.PATH = path;
+            this.COST = cost;
+            this.EPSILON = epsilon;
+        }
+
+    }
+
+    /**
+     * Result of one problem in a batch solved by solveAllUnordered: the problem's
+     * position in the batch and its path.
+     */
+    public static class BatchResult {
+
+        public final int INDEX;
+        public final ArrayList<String> PATH;
+
+        /**
+         * Constructor for a BatchResult.
+         * @param index The problem's position in the batch, counting from 0.
+         * @param path The problem's path, or null if it has none.
+         */
+        public BatchResult (int index, ArrayList<String> path) {
+            this.INDEX = index;
+            this.PATH = path;
+        }
+
+    }
+
     /**
      * Given a MazeProblem, which specifies the actions and transitions available in the
      * search, returns a solution to the problem as a sequence of actions that leads from
      * the initial to a goal state.
-     * 
+     *
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
      * @return An ArrayList of Strings representing actions that lead from the initial to
      * the goal state, of the format: ["R", "R", "L", ...]
      */
     public static ArrayList<String> solve (MazeProblem problem) {
-        if (problem.getKeyState() == null || problem.getGoalStates().size() == 0) {
-            return null; //no key return null.
+        return solve(problem, Mode.ASTAR);
+    }
+
+    /**
+     * Solves the given MazeProblem using the given search engine. A one-shot
+     * A* reads the maze's cells in place, guided by Manhattan estimates, so that
+     * its memory and time grow with the states it reaches rather than with the
+     * maze; a MazeIndex's exact goal field only pays off for callers that reuse
+     * it across queries. Out-of-core mazes, backed by a TiledMaze, are too large
+     * to compile, and are searched by that same A* whatever the mode.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param mode The search engine to use.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static ArrayList<String> solve (MazeProblem problem, Mode mode) {
+        switch (mode) {
+        case IDA_STAR:
+            return new IterativeDeepeningAStar(problem, DEFAULT_TABLE_SIZE, Long.MAX_VALUE).solve();
+        case FRINGE:
+            return new FringeSearch(problem, Integer.MAX_VALUE).solve();
+        case ASTAR:
+            return new SparseAStar(problem).solve();
+        default:
+            break;
         }
-        boolean foundKey = false;
-        MazeState currentGoal = problem.getKeyState(); //initial goal is the key.
-        SearchTreeNode startNode = new SearchTreeNode(problem.getInitialState(), null, null, 0, 
-                getDist(problem.getInitialState(),currentGoal), getDist(problem.getInitialState(),currentGoal));
-        Set<MazeState> graveYard = new HashSet<MazeState>();
-        PriorityQueue<SearchTreeNode> frontier = new PriorityQueue<SearchTreeNode>();
-        frontier.add(startNode); //add initial state to beginning of frontier.
-        if (aStarSearch(startNode.state, frontier, problem, currentGoal, graveYard, foundKey ) != null) {
-            aStarSearch(startNode.state, frontier, problem, currentGoal, graveYard, foundKey ); // path from start to key. 
-        } else {
-            return null;
+        if (problem.isOutOfCore()) { return new SparseAStar(problem).solve(); }
+        MazeGrid grid = MazeGrid.compile(problem);
+        switch (mode) {
+        case JUMP_POINT:
+            return new JumpPointSearch(grid).solve(grid.getInitial(), grid.getKey(), Heuristic.manhattan(grid));
+        case BIDIRECTIONAL:
+            return new BidirectionalAStar(grid).solve(grid.getInitial(), grid.getKey(), Heuristic.manhattan(grid));
+        default:
+            return solveParallel(grid, Runtime.getRuntime().availableProcessors());
         }
-        foundKey = true;
-        graveYard.clear();
-        SearchTreeNode keyNode = frontier.poll();
-        currentGoal = findBestGoal(problem, problem.getKeyState(), keyNode); //find closest goal after finding key.
-        frontier.clear();
-        frontier.add(keyNode);
-        if (aStarSearch(problem.getKeyState(), frontier, problem, currentGoal, graveYard, foundKey ) != null) {
-            return aStarSearch(problem.getKeyState(), frontier, problem, currentGoal, graveYard, foundKey ); //path from key to goal.
-        } else {
-            return null;
-        }      
-    }
-    
-    /**
-     * A private helper method that finds the historical cost of a SearchTreeNode.
+    }
+
+    /**
+     * Solves the given MazeProblem with A* as solve(MazeProblem) does, adding the
+     * search's counters and its key-leg and goal-leg timings to the given stats;
+     * no preprocessing time is added, since the maze is searched in place.
+     *
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
-     * @param current A MazeState that the search is currently located at.
-     * @param parent  A SearchTreeNode that is the parent node of the specified SearchTreeNode.
-     * @return integer value of the requested SearchTreeNode's cost. 
+     * @param stats The stats to add the search to.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static ArrayList<String> solve (MazeProblem problem, SearchStats stats) {
+        if (stats == null) { throw new IllegalArgumentException("Search stats must not be null"); }
+        return new SparseAStar(problem).solve(stats);
+    }
+
+    /**
+     * Solves a query against a preprocessed maze layout with A* as
+     * solve(MazeIndex, int, int) does, adding the search's counters and its
+     * key-leg and goal-leg timings to the given stats.
+     *
+     * @param index A MazeIndex built over the maze layout.
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @param stats The stats to add the search to.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * cell, through the key, to a goal, of the format: ["R", "R", "L", ...], or null
+     * if there is none.
+     */
+    public static ArrayList<String> solve (MazeIndex index, int initial, int key, SearchStats stats) {
+        if (stats == null) { throw new IllegalArgumentException("Search stats must not be null"); }
+        MazeGrid grid = index.getGrid();
+        checkQueryCell(grid, initial);
+        checkQueryCell(grid, key);
+        return new GridAStar(grid).solve(initial, key, index, stats);
+    }
+
+    /**
+     * Solves a batch of MazeProblems in parallel on the common ForkJoinPool, with
+     * one worker per available processor, the calling thread among them.
+     *
+     * @param problems The MazeProblems to solve.
+     * @return Each problem's path, as solve(MazeProblem) would find it cost for
+     * cost, or null if it has none, in the problems' iteration order.
      */
-    private static int getPastCost(MazeProblem problem, MazeState current, SearchTreeNode parent) {
-        return problem.getCost(current) + parent.cost;
+    public static List<ArrayList<String>> solveAll (Collection<MazeProblem> problems) {
+        return solveAll(problems, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
     }
-    
+
     /**
-     * A private helper method that finds the distance between two MazeStates
-     * @param current A MazeState that the search is currently located at.
-     * @param goal A MazeState that the search is trying to get to. 
-     * @return integer value of Manhattan distance between two coordinates. 
+     * Solves a batch of MazeProblems in parallel on the given executor, with a
+     * fixed number of workers that each take the next unsolved problem and reuse
+     * their search arrays from one maze to the next. The calling thread acts as
+     * one of the workers, so the executor runs the others; any executor will do,
+     * including a ForkJoinPool, which lets idle pool threads steal the workers,
+     * or a virtual-thread-per-task executor.
+     *
+     * @param problems The MazeProblems to solve.
+     * @param executor The executor to run workers on.
+     * @param workers The number of workers to solve on.
+     * @return Each problem's path, as solve(MazeProblem) would find it cost for
+     * cost, or null if it has none, in the problems' iteration order.
      */
-    private static int getDist(MazeState current, MazeState goal) {
-        return Math.abs((current.col - goal.col) + (current.row - goal.row));
+    public static List<ArrayList<String>> solveAll (Collection<MazeProblem> problems, Executor executor, int workers) {
+        return BatchSolver.solveOrdered(problems, executor, workers);
     }
-    
+
     /**
-     * A private helper method that backtracks the path from the goal node.
-     * @param goalNode the Node location of the goal state in the maze.
-     * @return ArrayList of the directions took to go from the beginning to goal node. 
+     * Solves a batch of MazeProblems in parallel on the given executor, streaming
+     * each result as soon as it is solved. At most the given number of results
+     * wait to be consumed; beyond that, workers pause until the stream catches
+     * up. Closing the stream, as a try-with-resources block does, stops the
+     * workers once they finish the problems they are on.
+     *
+     * @param problems The MazeProblems to solve.
+     * @param executor The executor to run workers on.
+     * @param workers The number of workers to solve on.
+     * @param buffer The most solved results to hold for the stream.
+     * @return The results, in the order they were solved.
      */
-    private static ArrayList<String> tracePath (SearchTreeNode goalNode) {
-        List<String> winningActions = new ArrayList<String>();
-        SearchTreeNode current = goalNode;
-        while (current.action != null) {
-            winningActions.add(current.action);
-            current = current.parent;
+    public static Stream<BatchResult> solveAllUnordered (Collection<MazeProblem> problems, Executor executor, int workers, int buffer) {
+        return BatchSolver.solveUnordered(problems, executor, workers, buffer);
+    }
+
+    /**
+     * Solves the given MazeProblem within roughly the given number of bytes of
+     * heap, choosing the search engine to fit: A* if every state of the maze
+     * fits; otherwise a Fringe Search capped at as many states as fit,
+     * which often reaches a goal having touched only a small part of the maze;
+     * and failing that, IDA* with a transposition table as large as fits, which
+     * needs little more than the path itself but may re-explore states many times.
+     * The table is never given fewer than 1024 entries (16 KB), below which IDA*
+     * re-explores so much that even small mazes take minutes.
+     * <p>
+     * On open floors, where many routes tie, even a large table may not keep
+     * IDA* from re-exploring exponentially often, so it is capped at 128
+     * expansions per maze cell; past that, the budget is too small for this maze,
+     * and the search gives up rather than run indefinitely.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param memoryBudget The approximate number of bytes the search may use.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     * @throws IllegalStateException If IDA* reaches its expansion cap.
+     */
+    public static ArrayList<String> solveWithin (MazeProblem problem, long memoryBudget) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive");
         }
-        ArrayList<String> correctOrder = new ArrayList<String>();
-        for (int i = winningActions.size() - 1; i >= 0; i--) {  //reverse the arrayList
-            correctOrder.add(winningActions.get(i));
+        long cells = (long) problem.getRows() * problem.getCols();
+        if (!problem.isOutOfCore() && cells <= Integer.MAX_VALUE && memoryBudget / BYTES_PER_CELL >= cells) {
+            return solve(problem, Mode.ASTAR);
         }
-        return correctOrder; 
+        FringeSearch fringe = new FringeSearch(problem, (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, memoryBudget / BYTES_PER_FRINGE_STATE)));
+        ArrayList<String> result = fringe.solve();
+        if (!fringe.isOverBudget()) { return result; }
+        // Let the abandoned cache be collected before the table is allocated
+        fringe = null;
+        int tableSize = (int) Math.max(MIN_TABLE_SIZE, Math.min(1 << 30, memoryBudget / BYTES_PER_TABLE_ENTRY));
+        IterativeDeepeningAStar ida = new IterativeDeepeningAStar(problem, tableSize, Math.max(1, cells) * EXPANSIONS_PER_CELL);
+        ArrayList<String> path = ida.solve();
+        if (ida.isOverBudget()) {
+            throw new IllegalStateException("Memory budget of " + memoryBudget + " bytes is too small to solve the maze in bounded time");
+        }
+        return path;
     }
-    
+
     /**
-     * Finds the closest goal state from where the search is currently located.
+     * Solves the given MazeProblem with a parallel, hash-distributed A* search on
+     * the given number of worker threads. The search is guided by Manhattan
+     * estimates, since building a MazeIndex's goal field would be a sequential
+     * pass over the whole maze. Out-of-core mazes are searched in place, as
+     * solve(MazeProblem, Mode) does.
+     *
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
-     * @param location A MazeState that the search is currently located at.
-     * @return MazeState of the closest goal state. 
-     */
-    private static MazeState findBestGoal(MazeProblem problem, MazeState location, SearchTreeNode node) {
-        Set<MazeState> Goals = problem.getGoalStates(); 
-        MazeState idealState = new MazeState(-100, -100);
-        for ( MazeState state : Goals) {
-            if ((getDist(location, state) + getPastCost(problem, location, node)) < 
-                    getDist(idealState, state) + getPastCost(problem, location, node)) { 
-                idealState = state;
-            }
+     * @param threads The number of worker threads to search with.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static ArrayList<String> solve (MazeProblem problem, int threads) {
+        if (problem.isOutOfCore()) { return new SparseAStar(problem).solve(); }
+        return solveParallel(MazeGrid.compile(problem), threads);
+    }
+
+    /**
+     * Runs the parallel, hash-distributed A* over an already-compiled maze,
+     * guided by Manhattan estimates.
+     *
+     * @param grid The compiled maze to search.
+     * @param threads The number of worker threads to search with.
+     * @return The path from the grid's initial cell, through its key, to a goal,
+     * or null if there is none.
+     */
+    private static ArrayList<String> solveParallel (MazeGrid grid, int threads) {
+        return new HashDistributedAStar(grid, threads).solve(grid.getInitial(), grid.getKey(), Heuristic.manhattan(grid));
+    }
+
+    /**
+     * Solves an already-compiled maze with A* guided by Manhattan estimates;
+     * callers that query the same maze layout many times can compile it once
+     * with MazeGrid.compile and reuse it here, or index it once with
+     * MazeIndex.build for exact goal estimates.
+     *
+     * @param grid A MazeGrid compiled from a MazeProblem.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static ArrayList<String> solve (MazeGrid grid) {
+        return new GridAStar(grid).solve(grid.getInitial(), grid.getKey(), Heuristic.manhattan(grid));
+    }
+
+    /**
+     * Solves a maze over its corridor graph, which for labyrinths of narrow
+     * corridors is many times smaller than the maze itself; the graph can be built
+     * once with CorridorGraph.build and solved repeatedly here. The route is
+     * expanded back into one action per move.
+     *
+     * @param graph A CorridorGraph built over a compiled maze.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static ArrayList<String> solve (CorridorGraph graph) {
+        CompactPath path = new CorridorAStar(graph).solveCompact(Heuristic.manhattan(graph.getGrid()));
+        return (path == null) ? null : new ArrayList<String>(path.asList());
+    }
+
+    /**
+     * Solves a query against a contraction hierarchy of a static maze. Services
+     * answering many queries should keep one HierarchyQuery per thread instead,
+     * since this allocates a new one for the single query.
+     *
+     * @param hierarchy A ContractionHierarchy built or loaded for the maze layout.
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * cell, through the key, to a goal, of the format: ["R", "R", "L", ...], or null
+     * if there is none.
+     */
+    public static ArrayList<String> solve (ContractionHierarchy hierarchy, int initial, int key) {
+        return new HierarchyQuery(hierarchy).solve(initial, key);
+    }
+
+    /**
+     * Solves a query against a preprocessed maze layout, starting from and
+     * collecting the key at the given cells rather than the maze's own 'I' and
+     * 'K' cells; the index's goal field and landmarks guide the search.
+     *
+     * @param index A MazeIndex built over the maze layout.
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * cell, through the key, to a goal, of the format: ["R", "R", "L", ...], or null
+     * if there is none.
+     */
+    public static ArrayList<String> solve (MazeIndex index, int initial, int key) {
+        return solve(index, initial, key, Mode.ASTAR);
+    }
+
+    /**
+     * Solves a query against a preprocessed maze layout using the given search engine.
+     *
+     * @param index A MazeIndex built over the maze layout.
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @param mode The search engine to use.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * cell, through the key, to a goal, of the format: ["R", "R", "L", ...], or null
+     * if there is none.
+     */
+    public static ArrayList<String> solve (MazeIndex index, int initial, int key, Mode mode) {
+        MazeGrid grid = index.getGrid();
+        checkQueryCell(grid, initial);
+        checkQueryCell(grid, key);
+        switch (mode) {
+        case JUMP_POINT:
+            return new JumpPointSearch(grid).solve(initial, key, index);
+        case BIDIRECTIONAL:
+            return new BidirectionalAStar(grid).solve(initial, key, index);
+        case PARALLEL:
+            return new HashDistributedAStar(grid, Runtime.getRuntime().availableProcessors()).solve(initial, key, index);
+        default:
+            return new GridAStar(grid).solve(initial, key, index);
         }
-        return idealState;
     }
-    
+
     /**
-     * Completes an A* search from the current MazeState to the current goal state.
-     * @param current A MazeState that the search is currently located at.
-     * @param frontier a Priority Queue that contains all of the visited SearchTreeNodes
+     * Solves the given MazeProblem as solve(MazeProblem) does, returning the path
+     * packed 2 bits per move instead of as one String per move.
+     *
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
-     * @param currentGoal A MazeState goal that the search is currently tying to locate.
-     * @param graveYard A Set of MazeStates that the search has already visited. 
-     * @param foundKey A boolean value that returns true if the search has already located the key, false otherwise. 
-     * @return ArrayList of the directions it took to go from the current state to the goal state.
-     */
-    private static ArrayList<String> aStarSearch(MazeState current, PriorityQueue<SearchTreeNode> frontier, MazeProblem problem, 
-            MazeState currentGoal, Set<MazeState> graveYard, boolean foundKey) {
-        while (!frontier.isEmpty()) {
-            SearchTreeNode expandingNode = frontier.peek(); //the current state's node.
-            if (foundKey == true) {
-                currentGoal = findBestGoal(problem, expandingNode.state, expandingNode); //find best goal.
-            }
-            if (expandingNode.state.equals(currentGoal)) { //found goal.
-                return tracePath(expandingNode);
-            }
-            frontier.poll();
-            graveYard.add(expandingNode.state);
-            Map<String, MazeState> availableMoves = new HashMap<>();
-            availableMoves = problem.getTransitions(expandingNode.state);
-            for (Map.Entry<String, MazeState> Entry : availableMoves.entrySet()) {
-                if (!graveYard.contains(Entry.getValue())) { 
-                    SearchTreeNode newChildNode =new SearchTreeNode(Entry.getValue(), Entry.getKey(), expandingNode,
-                            getPastCost(problem, Entry.getValue(), expandingNode), getDist(Entry.getValue(), currentGoal), 
-                            (getPastCost(problem, Entry.getValue(), expandingNode) + getDist(Entry.getValue(), currentGoal))); //create all available children
-                    
-                    frontier.add(newChildNode);
-                }
-            }
+     * @return The path leading from the initial to the goal state, or null if there
+     * is none.
+     */
+    public static CompactPath solveCompact (MazeProblem problem) {
+        ArrayList<String> path = new SparseAStar(problem).solve();
+        return (path == null) ? null : CompactPath.of(path);
+    }
+
+    /**
+     * Solves a query against a preprocessed maze layout as
+     * solve(MazeIndex, int, int) does, returning the path in packed form.
+     *
+     * @param index A MazeIndex built over the maze layout.
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return The path leading from the initial cell, through the key, to a goal,
+     * or null if there is none.
+     */
+    public static CompactPath solveCompact (MazeIndex index, int initial, int key) {
+        MazeGrid grid = index.getGrid();
+        checkQueryCell(grid, initial);
+        checkQueryCell(grid, key);
+        return new GridAStar(grid).solveCompact(initial, key, index);
+    }
+
+    /**
+     * Solves the given MazeProblem with an anytime search (ARA*): a quick
+     * weighted-A* route first, then progressively better ones until the route is
+     * optimal or the deadline passes. The search is guided by Manhattan
+     * estimates, since building a MazeIndex would take longer than a tight
+     * budget allows. Out-of-core mazes are searched in place by an optimal A*,
+     * as solve(MazeProblem, Mode) does, whose route is returned with a bound of 1
+     * however long it takes.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param epsilon The suboptimality bound of the first route, at least 1; larger
+     * values find it faster.
+     * @param deadline The System.nanoTime() value by which refinement stops. The
+     * first route is always completed, even if that takes longer.
+     * @return The best route found with its cost and suboptimality bound, or null
+     * if there is no route.
+     */
+    public static AnytimeResult solveAnytime (MazeProblem problem, double epsilon, long deadline) {
+        if (problem.isOutOfCore()) {
+            if (!(epsilon >= 1)) { throw new IllegalArgumentException("Epsilon must be at least 1"); }
+            ArrayList<String> path = new SparseAStar(problem).solve();
+            if (path == null) { return null; }
+            CompactPath compact = CompactPath.of(path);
+            return new AnytimeResult(compact, problem.testSolution(compact).COST, 1.0);
+        }
+        MazeGrid grid = MazeGrid.compile(problem);
+        return solveAnytime(new AnytimeAStar(grid), grid.getInitial(), grid.getKey(), Heuristic.manhattan(grid), epsilon, deadline);
+    }
+
+    /**
+     * Solves a query against a preprocessed maze layout with an anytime search,
+     * guided by the index's estimates.
+     *
+     * @param index A MazeIndex built over the maze layout.
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @param epsilon The suboptimality bound of the first route, at least 1.
+     * @param deadline The System.nanoTime() value by which refinement stops.
+     * @return The best route found with its cost and suboptimality bound, or null
+     * if there is no route.
+     */
+    public static AnytimeResult solveAnytime (MazeIndex index, int initial, int key, double epsilon, long deadline) {
+        return solveAnytime(new AnytimeAStar(index.getGrid()), initial, key, index, epsilon, deadline);
+    }
+
+    /**
+     * Validates an anytime query and runs it on the given engine.
+     */
+    static AnytimeResult solveAnytime (AnytimeAStar engine, int initial, int key, Heuristic heuristic, double epsilon, long deadline) {
+        if (!(epsilon >= 1)) { throw new IllegalArgumentException("Epsilon must be at least 1"); }
+        checkQueryCell(engine.getGrid(), initial);
+        checkQueryCell(engine.getGrid(), key);
+        return engine.solve(initial, key, heuristic, epsilon, deadline);
+    }
+
+    /**
+     * Rejects query cells that lie outside of the maze or on a wall; negative
+     * cells stand for an absent initial state or key, and are allowed.
+     *
+     * @param grid The compiled maze being queried.
+     * @param cell The query cell to check.
+     */
+    static void checkQueryCell (MazeGrid grid, int cell) {
+        if (cell >= grid.size() || (cell >= 0 && grid.isWall(cell))) {
+            throw new IllegalArgumentException("Query cell " + cell + " is not an open cell of the maze");
         }
-        return null;
     }
+
 }
@@ -0,0 +1,140 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Reusable A* solver bound to one preprocessed maze layout, for services that
+ * answer many queries against the same resident mazes. A session allocates its
+ * frontier and per-state score arrays once; every later query reuses them,
+ * invalidating the previous query's scores in O(1) by generation stamps, so
+ * steady-state solving allocates nothing but the returned path.
+ *
+ * A session is not thread-safe, but the MazeIndex it is bound to is read-only, so
+ * any number of sessions may share one index; a typical service pools them per
+ * thread, e.g., with ThreadLocal.withInitial(() -> new PathfinderSession(index)).
+ */
+public class PathfinderSession {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeIndex index;
+    private final GridAStar search;
+    private JumpPointSearch jumpPoint;
+    private AnytimeAStar anytime;
+
+
+    // Constructors
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new PathfinderSession over the given compiled maze, indexing
+     * it without landmarks.
+     *
+     * @param grid The compiled maze to answer queries against.
+     */
+    public PathfinderSession (MazeGrid grid) {
+        this(MazeIndex.build(grid, 0));
+    }
+
+    /**
+     * Constructs a new PathfinderSession over an already-built MazeIndex.
+     *
+     * @param index The preprocessed maze layout to answer queries against.
+     */
+    public PathfinderSession (MazeIndex index) {
+        this.index = index;
+        this.search = new GridAStar(index.getGrid());
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The preprocessed maze layout this session answers queries against.
+     */
+    public MazeIndex getIndex () {
+        return this.index;
+    }
+
+    /**
+     * Solves the maze from its own initial cell through its own key.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public ArrayList<String> solve () {
+        MazeGrid grid = index.getGrid();
+        return solve(grid.getInitial(), grid.getKey());
+    }
+
+    /**
+     * Solves a query from the given initial cell through the given key cell to any
+     * goal, as Pathfinder.solve(MazeIndex, int, int) does.
+     *
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * cell, through the key, to a goal, of the format: ["R", "R", "L", ...], or null
+     * if there is none.
+     */
+    public ArrayList<String> solve (int initial, int key) {
+        MazeGrid grid = index.getGrid();
+        Pathfinder.checkQueryCell(grid, initial);
+        Pathfinder.checkQueryCell(grid, key);
+        return search.solve(initial, key, index);
+    }
+
+    /**
+     * Solves a query as solve(int, int) does, returning the path packed 2 bits per
+     * move; the path is then the only allocation of a steady-state query.
+     *
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return The path leading from the initial cell, through the key, to a goal,
+     * or null if there is none.
+     */
+    public CompactPath solveCompact (int initial, int key) {
+        MazeGrid grid = index.getGrid();
+        Pathfinder.checkQueryCell(grid, initial);
+        Pathfinder.checkQueryCell(grid, key);
+        return search.solveCompact(initial, key, index);
+    }
+
+    /**
+     * Solves a query with Jump Point Search, as Pathfinder.solve(MazeIndex, int,
+     * int, Mode.JUMP_POINT) does; the search's arrays are allocated by the first
+     * such query and reused after, so later queries skip the pass over the maze
+     * that finds where jumps must stop.
+     *
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * cell, through the key, to a goal, of the format: ["R", "R", "L", ...], or null
+     * if there is none.
+     */
+    public ArrayList<String> solveJumpPoint (int initial, int key) {
+        MazeGrid grid = index.getGrid();
+        Pathfinder.checkQueryCell(grid, initial);
+        Pathfinder.checkQueryCell(grid, key);
+        if (jumpPoint == null) { jumpPoint = new JumpPointSearch(grid); }
+        return jumpPoint.solve(initial, key, index);
+    }
+
+    /**
+     * Solves a query with an anytime search, as Pathfinder.solveAnytime does; the
+     * search's arrays are allocated by the first such query and reused after.
+     *
+     * @param initial Cell index (see MazeGrid.index) from which the route starts.
+     * @param key Cell index of the key that must be collected along the route.
+     * @param epsilon The suboptimality bound of the first route, at least 1.
+     * @param deadline The System.nanoTime() value by which refinement stops.
+     * @return The best route found with its cost and suboptimality bound, or null
+     * if there is no route.
+     */
+    public Pathfinder.AnytimeResult solveAnytime (int initial, int key, double epsilon, long deadline) {
+        if (anytime == null) { anytime = new AnytimeAStar(index.getGrid()); }
+        return Pathfinder.solveAnytime(anytime, initial, key, index, epsilon, deadline);
+    }
+
+}
@@ -0,0 +1,148 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Counters and phase timings of the searches it is passed to, for telling why a
+ * solve was slow: how many states were expanded and pushed, how many pushes
+ * lowered the cost of a state already on the frontier, the largest the
+ * frontier grew, and how the time split between compiling the maze and building
+ * its goal field, the leg to the key, and the leg from the key to a goal.
+ * <p>
+ * A search only counts into local variables, and hands its totals to the stats
+ * once it ends, so searching without stats costs nothing extra. One SearchStats
+ * may be passed to many searches, summing their counters (the peak frontier
+ * being the largest of any); it is not safe to share between threads.
+ */
+public class SearchStats {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private long searches, expanded, generated, decreased, peakFrontier;
+    private long preprocessNanos, keyLegNanos, goalLegNanos;
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of searches recorded.
+     */
+    public long getSearches () {
+        return this.searches;
+    }
+
+    /**
+     * @return The number of states expanded, over every search recorded.
+     */
+    public long getExpanded () {
+        return this.expanded;
+    }
+
+    /**
+     * @return The number of pushes onto the frontier, counting decrease-keys.
+     */
+    public long getGenerated () {
+        return this.generated;
+    }
+
+    /**
+     * @return The number of decrease-keys: pushes of a state already on the
+     * frontier at a higher cost, moving its entry. Closed states are never
+     * reopened, since every heuristic the searches use is consistent.
+     */
+    public long getDecreased () {
+        return this.decreased;
+    }
+
+    /**
+     * @return The most states on any one search's frontier at once.
+     */
+    public long getPeakFrontier () {
+        return this.peakFrontier;
+    }
+
+    /**
+     * @return Nanoseconds spent compiling mazes and building their goal fields.
+     */
+    public long getPreprocessNanos () {
+        return this.preprocessNanos;
+    }
+
+    /**
+     * @return Nanoseconds spent searching before the first state holding the key
+     * was expanded.
+     */
+    public long getKeyLegNanos () {
+        return this.keyLegNanos;
+    }
+
+    /**
+     * @return Nanoseconds spent searching after the first state holding the key
+     * was expanded, including tracing back the path.
+     */
+    public long getGoalLegNanos () {
+        return this.goalLegNanos;
+    }
+
+    /**
+     * Zeroes every counter and timing.
+     */
+    public void reset () {
+        searches = expanded = generated = decreased = peakFrontier = 0;
+        preprocessNanos = keyLegNanos = goalLegNanos = 0;
+    }
+
+    /**
+     * Exports the counters and timings by name, for a metrics pipeline of plain
+     * counters.
+     *
+     * @return Each counter's value, keyed by names of the form "search.expanded",
+     * in a fixed order.
+     */
+    public Map<String, Long> toCounters () {
+        Map<String, Long> counters = new LinkedHashMap<String, Long>();
+        counters.put("search.searches", searches);
+        counters.put("search.expanded", expanded);
+        counters.put("search.generated", generated);
+        counters.put("search.decreased", decreased);
+        counters.put("search.peak_frontier", peakFrontier);
+        counters.put("search.preprocess_nanos", preprocessNanos);
+        counters.put("search.key_leg_nanos", keyLegNanos);
+        counters.put("search.goal_leg_nanos", goalLegNanos);
+        return counters;
+    }
+
+    @Override
+    public String toString () {
+        return toCounters().toString();
+    }
+
+    /**
+     * Adds the time spent preparing a maze for search.
+     */
+    void addPreprocess (long nanos) {
+        preprocessNanos += nanos;
+    }
+
+    /**
+     * Adds the time spent tracing back a found path, the end of its goal leg.
+     */
+    void addTrace (long nanos) {
+        goalLegNanos += nanos;
+    }
+
+    /**
+     * Adds the totals of one finished search.
+     */
+    void addSearch (long expanded, long generated, long decreased, long peakFrontier, long keyLegNanos, long goalLegNanos) {
+        this.searches++;
+        this.expanded += expanded;
+        this.generated += generated;
+        this.decreased += decreased;
+        this.peakFrontier = Math.max(this.peakFrontier, peakFrontier);
+        this.keyLegNanos += keyLegNanos;
+        this.goalLegNanos += goalLegNanos;
+    }
+
+}
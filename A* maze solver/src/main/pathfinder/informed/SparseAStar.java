@@ -0,0 +1,185 @@
+package main.pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * A* search engine that reads a MazeProblem's cells directly instead of
+ * compiling them into a MazeGrid: for one-shot solves, whose cost should grow
+ * with the route rather than the maze, and for mazes such as tiled,
+ * out-of-core ones that are too large to compile. States are long IDs in the layered
+ * (cell, hasKey) product space, cell * 2 + hasKey, and only the states the
+ * search reaches are stored: each is given a slot in growable score arrays
+ * through a LongMap, so memory grows with the search rather than the maze.
+ * States are estimated by a ManhattanEstimate, which needs no pass over the
+ * maze either.
+ */
+class SparseAStar {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final int rows, cols;
+
+    // Per-slot search state; a slot's f-score is recomputed from its g-score to
+    // recognize stale heap entries
+    private final LongMap slotOf = new LongMap(-1);
+    private final LongHeap open = new LongHeap();
+    private long[] stateOf = new long[64];
+    private int[] g = new int[64], parent = new int[64];
+    private boolean[] closed = new boolean[64];
+    private int slots;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new SparseAStar over the given maze.
+     *
+     * @param problem The maze to search.
+     */
+    SparseAStar (MazeProblem problem) {
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds the cheapest path from the initial cell, through the key, to any goal.
+     *
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists.
+     */
+    ArrayList<String> solve () {
+        return solve(null);
+    }
+
+    /**
+     * Finds the same path as solve, recording the search's counters and timings.
+     *
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return An ArrayList of actions leading from the initial state to a goal
+     * after collecting the key, of the format: ["R", "R", "L", ...], or null if
+     * no such path exists.
+     */
+    ArrayList<String> solve (SearchStats stats) {
+        MazeState initial = problem.getInitialState(), key = problem.getKeyState();
+        if (initial == null || key == null || problem.getGoalStates().isEmpty()) { return null; }
+        int end = search(initial, initial.equals(key), new ManhattanEstimate(problem), stats);
+        if (end < 0) { return null; }
+        if (stats == null) { return tracePath(end); }
+        long traced = System.nanoTime();
+        ArrayList<String> path = tracePath(end);
+        stats.addTrace(System.nanoTime() - traced);
+        return path;
+    }
+
+    /**
+     * Completes an A* search over the (cell, hasKey) state space, with stale heap
+     * entries skipped when popped.
+     *
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return The slot of the state at which the search ended, or -1 if no path
+     * exists.
+     */
+    private int search (MazeState initial, boolean startHasKey, ManhattanEstimate heuristic, SearchStats stats) {
+        // Counted in locals either way, and only handed to the stats at the end
+        long started = (stats == null) ? 0 : System.nanoTime(), keyExpanded = 0;
+        int expansions = 0, pushes = 1, decreases = 0, queued = 1, peak = 1, end = -1;
+        int start = reach(state(initial.col, initial.row, startHasKey), 0, -1);
+        open.push(LongHeap.entry(heuristic.estimate(initial.col, initial.row, startHasKey), start));
+        while (!open.isEmpty()) {
+            long entry = open.pop();
+            int slot = LongHeap.state(entry);
+            if (closed[slot]) { continue; }
+            queued--;
+            long state = stateOf[slot];
+            boolean hasKey = (state & 1) != 0;
+            if (hasKey && keyExpanded == 0) { keyExpanded = (stats == null) ? 1 : System.nanoTime(); }
+            long cell = state >>> 1;
+            int col = (int) (cell % cols), row = (int) (cell / cols);
+            if (hasKey && problem.getCell(col, row) == 'G') {
+                end = slot;
+                break;
+            }
+            closed[slot] = true;
+            expansions++;
+            for (int dir = 0; dir < 4; dir++) {
+                int nextCol = col + MazeGrid.DCOL[dir], nextRow = row + MazeGrid.DROW[dir];
+                if (nextRow < 0 || nextRow >= rows || nextCol < 0 || nextCol >= cols) { continue; }
+                char symbol = problem.getCell(nextCol, nextRow);
+                if (symbol == 'X') { continue; }
+                boolean nextHasKey = hasKey || symbol == 'K';
+                long next = state(nextCol, nextRow, nextHasKey);
+                int cost = g[slot] + MazeProblem.costOf(symbol), nextSlot = slotOf.get(next);
+                if (nextSlot >= 0 && (closed[nextSlot] || g[nextSlot] <= cost)) { continue; }
+                if (nextSlot < 0) {
+                    nextSlot = reach(next, cost, slot);
+                    if (++queued > peak) { peak = queued; }
+                } else {
+                    g[nextSlot] = cost;
+                    parent[nextSlot] = slot;
+                    decreases++;
+                }
+                open.push(LongHeap.entry(cost + heuristic.estimate(nextCol, nextRow, nextHasKey), nextSlot));
+                pushes++;
+            }
+        }
+        if (stats != null) {
+            long ended = System.nanoTime(), split = (keyExpanded == 0) ? ended : keyExpanded;
+            stats.addSearch(expansions, pushes, decreases, peak, split - started, ended - split);
+        }
+        return end;
+    }
+
+    /**
+     * Gives a newly reached state a slot.
+     *
+     * @return The state's slot.
+     */
+    private int reach (long state, int cost, int from) {
+        if (slots == stateOf.length) {
+            int capacity = 2 * slots;
+            stateOf = Arrays.copyOf(stateOf, capacity);
+            g = Arrays.copyOf(g, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+        }
+        int slot = slots++;
+        slotOf.put(state, slot);
+        stateOf[slot] = state;
+        g[slot] = cost;
+        parent[slot] = from;
+        return slot;
+    }
+
+    /**
+     * Walks the parent slots back from the given slot to the start.
+     *
+     * @param end The slot of the final state.
+     * @return The actions leading to the final state.
+     */
+    private ArrayList<String> tracePath (int end) {
+        ArrayList<String> path = new ArrayList<>();
+        for (int slot = end; parent[slot] >= 0; slot = parent[slot]) {
+            long cell = stateOf[slot] >>> 1, from = stateOf[parent[slot]] >>> 1;
+            long delta = cell - from;
+            path.add((delta == -cols) ? "U" : (delta == cols) ? "D" : (delta == -1) ? "L" : "R");
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @return The state ID of the given cell and key layer.
+     */
+    private long state (int col, int row, boolean hasKey) {
+        return (((long) row * cols + col) << 1) | (hasKey ? 1 : 0);
+    }
+
+}
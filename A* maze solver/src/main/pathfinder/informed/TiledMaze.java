@@ -0,0 +1,334 @@
+package main.pathfinder.informed;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Out-of-core maze storage for grids too large to hold in memory, or even to
+ * map: the maze is stored on disk as square tiles of cells, and tiles are read
+ * into an LRU cache as searches touch them, paging out the least recently used
+ * tile whenever the cache would exceed its byte budget. A file holds a
+ * MazeFileHeader, with the magic "MAZT" and the tile size, followed by the
+ * tiles in row-major tile order, each tile's cells at 2 bits each, row-major
+ * within the tile, four to a byte starting from the low bits:
+ * <pre>
+ * byte tiles[tile count][(tile size^2 + 3) / 4]  (0 wall, 1 open, 2 mud, 3 goal)
+ * </pre>
+ * Tiles on the maze's bottom and right edges are padded with walls. Cache hits,
+ * misses, and evictions are counted, so that a tile size and budget can be tuned
+ * for a workload. A TiledMaze is not safe for use by several threads at once.
+ */
+public class TiledMaze implements MazeCells, Closeable {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final int MAGIC = 0x4D415A54, VERSION = 1;
+
+    private final FileChannel channel;
+    private final MazeFileHeader header;
+    private final int cols, tileSize, tileCols, tileBytes, maxResident;
+    private final long initial, key, start, budget;
+
+    // Resident tiles, by slot: the tile each holds, its cells, and its links in
+    // the recency list, which runs from the most (head) to least (tail) recent
+    private final LongMap slotOf = new LongMap(-1);
+    private long[] tileOf;
+    private byte[][] data;
+    private int[] prev, next;
+    private int head = -1, tail = -1, resident;
+
+    // The last tile looked up, checked before the cache since searches mostly
+    // step between cells of the same tile
+    private long lastTile = -1;
+    private byte[] lastData;
+
+    private long hits, misses, evictions;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new TiledMaze around an open tile file.
+     */
+    private TiledMaze (FileChannel channel, MazeFileHeader header, long budget) {
+        this.channel = channel;
+        this.header = header;
+        this.cols = header.cols;
+        this.tileSize = header.tileSize;
+        this.tileCols = (cols + tileSize - 1) / tileSize;
+        this.tileBytes = (tileSize * tileSize + 3) / 4;
+        this.initial = header.initial;
+        this.key = header.key;
+        this.start = header.length;
+        this.budget = budget;
+        this.maxResident = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, budget / tileBytes));
+        this.tileOf = new long[Math.min(maxResident, 64)];
+        this.data = new byte[tileOf.length][];
+        this.prev = new int[tileOf.length];
+        this.next = new int[tileOf.length];
+    }
+
+    /**
+     * Opens a tile file written by write, reading only its header; tiles are
+     * read as they are first touched.
+     *
+     * @param file The tile file to open.
+     * @param byteBudget The most bytes of tiles to keep in memory at once; at
+     * least one tile is always kept, whatever the budget.
+     * @return The opened maze, which should be closed once no longer needed.
+     * @throws IOException If the file cannot be read or is not a valid tile file.
+     */
+    public static TiledMaze open (Path file, long byteBudget) throws IOException {
+        if (byteBudget <= 0) {
+            throw new IllegalArgumentException("Byte budget must be positive");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MazeFileHeader header = MazeFileHeader.read(channel, file, MAGIC, VERSION, true, "tiled maze");
+            int size = header.tileSize;
+            long tileBytes = ((long) size * size + 3) / 4,
+                 tiles = ((header.rows + size - 1L) / size) * ((header.cols + size - 1L) / size);
+            if (channel.size() < header.length + tiles * tileBytes) { throw new IOException("Truncated tiled maze file"); }
+            return new TiledMaze(channel, header, byteBudget);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given maze to a file in this format.
+     *
+     * @param problem The maze to write.
+     * @param file The file to write it to, replacing any existing file.
+     * @param tileSize The number of rows and columns of cells in each tile.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write (MazeProblem problem, Path file, int tileSize) throws IOException {
+        if (tileSize <= 0 || tileSize > 1 << 15) {
+            throw new IllegalArgumentException("Tile size must be between 1 and 32768");
+        }
+        int rows = problem.getRows(), cols = problem.getCols();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            DataOutputStream data = new DataOutputStream(out);
+            MazeFileHeader.of(problem, tileSize).write(data, MAGIC, VERSION);
+
+            // Pack each tile separately, so that every tile starts on a byte
+            byte[] tile = new byte[(tileSize * tileSize + 3) / 4];
+            for (int top = 0; top < rows; top += tileSize) {
+                for (int left = 0; left < cols; left += tileSize) {
+                    Arrays.fill(tile, (byte) 0);
+                    for (int r = 0; r < tileSize && top + r < rows; r++) {
+                        for (int c = 0; c < tileSize && left + c < cols; c++) {
+                            int local = r * tileSize + c;
+                            tile[local >>> 2] |= MazeFileHeader.code(problem.getCell(left + c, top + r)) << (2 * (local & 3));
+                        }
+                    }
+                    data.write(tile);
+                }
+            }
+            data.flush();
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of tile lookups answered from memory.
+     */
+    public long getHits () {
+        return this.hits;
+    }
+
+    /**
+     * @return The number of tile lookups that read the tile from disk.
+     */
+    public long getMisses () {
+        return this.misses;
+    }
+
+    /**
+     * @return The number of tiles paged out to stay within the byte budget.
+     */
+    public long getEvictions () {
+        return this.evictions;
+    }
+
+    /**
+     * @return The number of bytes of tiles currently held in memory.
+     */
+    public long getCachedBytes () {
+        return (long) resident * tileBytes;
+    }
+
+    /**
+     * @return The most bytes of tiles this maze keeps in memory at once.
+     */
+    public long getByteBudget () {
+        return this.budget;
+    }
+
+    /**
+     * @return The number of rows and columns of cells in each tile.
+     */
+    public int getTileSize () {
+        return this.tileSize;
+    }
+
+    /**
+     * Zeroes the hit, miss, and eviction counters, leaving the cache as it is.
+     */
+    public void resetCounters () {
+        hits = misses = evictions = 0;
+    }
+
+    /**
+     * Closes the underlying file; the maze can no longer read tiles afterward.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close () throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return The number of rows in the maze.
+     */
+    int getRows () {
+        return header.rows;
+    }
+
+    /**
+     * @return The number of columns in the maze.
+     */
+    int getCols () {
+        return this.cols;
+    }
+
+    /**
+     * @return The initial cell, or null if there is none.
+     */
+    MazeState getInitial () {
+        return header.getInitial();
+    }
+
+    /**
+     * @return The key cell, or null if there is none.
+     */
+    MazeState getKey () {
+        return header.getKey();
+    }
+
+    /**
+     * @return Every goal cell.
+     */
+    Set<MazeState> getGoals () {
+        return header.getGoals();
+    }
+
+    @Override
+    public char getCell (int col, int row) {
+        long cell = (long) row * cols + col;
+        if (cell == initial) { return 'I'; }
+        if (cell == key) { return 'K'; }
+        int tileRow = row / tileSize, tileCol = col / tileSize,
+            local = (row - tileRow * tileSize) * tileSize + (col - tileCol * tileSize);
+        byte[] tile = tile((long) tileRow * tileCols + tileCol);
+        return MazeFileHeader.SYMBOLS[(tile[local >>> 2] >>> (2 * (local & 3))) & 3];
+    }
+
+    /**
+     * Looks up a tile's cells, reading the tile from disk if it is not resident,
+     * and marks it as the most recently used.
+     *
+     * @param id The tile's index in row-major tile order.
+     * @return The tile's packed cells.
+     */
+    private byte[] tile (long id) {
+        if (id == lastTile) {
+            hits++;
+            return lastData;
+        }
+        int slot = slotOf.get(id);
+        if (slot >= 0) {
+            hits++;
+            unlink(slot);
+        } else {
+            misses++;
+            slot = claimSlot();
+            slotOf.put(id, slot);
+            tileOf[slot] = id;
+            read(id, data[slot]);
+        }
+        pushFront(slot);
+        lastTile = id;
+        return lastData = data[slot];
+    }
+
+    /**
+     * @return A free slot for a tile about to be read, evicting the least
+     * recently used tile if the cache is at its budget.
+     */
+    private int claimSlot () {
+        if (resident < maxResident) {
+            if (resident == tileOf.length) { grow(); }
+            data[resident] = new byte[tileBytes];
+            return resident++;
+        }
+        // Reuse the coldest tile's slot, and its array
+        int slot = tail;
+        unlink(slot);
+        slotOf.remove(tileOf[slot]);
+        evictions++;
+        return slot;
+    }
+
+    /**
+     * Doubles the number of tile slots, up to the budget's capacity.
+     */
+    private void grow () {
+        int length = (int) Math.min(maxResident, 2L * tileOf.length);
+        tileOf = Arrays.copyOf(tileOf, length);
+        data = Arrays.copyOf(data, length);
+        prev = Arrays.copyOf(prev, length);
+        next = Arrays.copyOf(next, length);
+    }
+
+    /**
+     * Reads a tile's packed cells from the file.
+     */
+    private void read (long id, byte[] into) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(into);
+            MazeFileHeader.readFully(channel, buffer, start + id * tileBytes, "tiled maze");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read maze tile " + id, e);
+        }
+    }
+
+    /**
+     * Removes a slot from the recency list.
+     */
+    private void unlink (int slot) {
+        if (prev[slot] >= 0) { next[prev[slot]] = next[slot]; } else { head = next[slot]; }
+        if (next[slot] >= 0) { prev[next[slot]] = prev[slot]; } else { tail = prev[slot]; }
+    }
+
+    /**
+     * Adds a slot to the front of the recency list.
+     */
+    private void pushFront (int slot) {
+        prev[slot] = -1;
+        next[slot] = head;
+        if (head >= 0) { prev[head] = slot; } else { tail = slot; }
+        head = slot;
+    }
+
+}
@@ -10,7 +10,13 @@ import org.junit.Test;
 import org.junit.rules.TestWatcher;
 import org.junit.rules.Timeout;
 import org.junit.runner.Description;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 
 /**
  * Unit tests for Maze Pathfinder. Tests include completeness, and
@@ -190,6 +196,468 @@ public class PathfinderTests {
         assertTrue(result.IS_SOLUTION);
         assertEquals(7, result.COST);
     }
+    @Test
+    public void testPathfinder_compiledGrid() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        MazeGrid grid = MazeGrid.compile(prob);
+        
+        // A compiled grid can be solved repeatedly with the same results
+        for (int i = 0; i < 2; i++) {
+            MazeTestResult result = testSolution(maze, Pathfinder.solve(grid));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(14, result.COST);
+        }
+    }
+    
+    @Test
+    public void testPathfinder_mazeIndex() {
+        String[] maze = {
+            "XXXXXXX",
+            "X....IX",
+            "X..MXXX",
+            "XGXKX.X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        MazeGrid grid = MazeGrid.compile(prob);
+        MazeIndex index = MazeIndex.build(grid, 2);
+        ArrayList<String> solution = Pathfinder.solve(index, grid.getInitial(), grid.getKey());
+        
+        MazeTestResult result = testSolution(maze, solution);
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(12, result.COST);
+    }
+    
+    @Test
+    public void testPathfinder_jumpPoint() {
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI......X",
+            "X.......X",
+            "X..MMM..X",
+            "X...K...X",
+            "XG.....GX",
+            "XXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob, Pathfinder.Mode.JUMP_POINT);
+        
+        MazeTestResult result = testSolution(maze, solution);
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(10, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_hierarchical() {
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI......X",
+            "X.......X",
+            "X..MMM..X",
+            "X...K...X",
+            "XG.....GX",
+            "XXXXXXXXX"
+        };
+        MazeGrid grid = MazeGrid.compile(new MazeProblem(maze));
+        HierarchicalPathfinder hpa = new HierarchicalPathfinder(grid, 3, true);
+
+        MazeTestResult result = testSolution(maze, hpa.solve());
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(10, result.COST);
+
+        // Walling off the key must be picked up once its clusters are invalidated
+        for (int dir = 0; dir < 4; dir++) {
+            int cell = grid.neighbor(grid.getKey(), dir);
+            grid.setCell(cell, 'X');
+            hpa.invalidate(cell);
+        }
+        assertNull(hpa.solve());
+    }
+
+    @Test
+    public void testPathfinder_incremental() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeGrid grid = MazeGrid.compile(new MazeProblem(maze));
+        IncrementalPlanner planner = new IncrementalPlanner(grid);
+        assertEquals(14, testSolution(maze, planner.replan()).COST);
+
+        // Walling off the only mud cell above the key cuts it off entirely
+        planner.setWall(grid.index(3, 2));
+        assertNull(planner.replan());
+
+        // After moving along the top row, the mud is cheapest entered from above
+        planner.setMud(grid.index(3, 2));
+        planner.moveTo(grid.index(2, 1));
+        assertEquals(Arrays.asList("R", "D", "D"), planner.replan().subList(0, 3));
+    }
+
+    @Test
+    public void testPathfinder_bidirectional() {
+        String[] maze = {
+            "XXXKXXX",
+            "X..IMMX",
+            "X.XXXGX",
+            "X.XXX.X",
+            "X.G...X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob, Pathfinder.Mode.BIDIRECTIONAL);
+
+        MazeTestResult result = testSolution(maze, solution);
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(8, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_parallel() {
+        String[] maze = {
+            "XXXXXXX",
+            "X....IX",
+            "X..MXXX",
+            "XGXKX.X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob, 4);
+
+        MazeTestResult result = testSolution(maze, solution);
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(12, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_session() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI.G..X",
+            "X.MMMGX",
+            "X.XKX.X",
+            "XXXXXXX"
+        };
+        MazeGrid grid = MazeGrid.compile(new MazeProblem(maze));
+        PathfinderSession session = new PathfinderSession(grid);
+
+        // Queries from other cells must not disturb later ones on the same session
+        assertNotNull(session.solve(grid.index(5, 1), grid.getKey()));
+        assertNotNull(session.solve(grid.index(1, 3), grid.index(5, 3)));
+        for (int i = 0; i < 2; i++) {
+            MazeTestResult result = testSolution(maze, session.solve());
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(10, result.COST);
+        }
+
+        // Likewise for the session's Jump Point Search, whose arrays are reused
+        assertNotNull(session.solveJumpPoint(grid.index(1, 3), grid.index(5, 3)));
+        for (int i = 0; i < 2; i++) {
+            assertEquals(10, testSolution(maze, session.solveJumpPoint(grid.getInitial(), grid.getKey())).COST);
+        }
+    }
+
+    @Test
+    public void testPathfinder_compactPath() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        CompactPath solution = Pathfinder.solveCompact(prob);
+
+        MazeTestResult result = prob.testSolution(solution);
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(14, result.COST);
+
+        // The String view and the run-length encoding describe the same path
+        assertEquals(result.COST, testSolution(maze, new ArrayList<String>(solution.asList())).COST);
+        assertEquals(solution, CompactPath.fromRuns(solution.toRuns()));
+    }
+
+    @Test
+    public void testPathfinder_anytime() {
+        String[] maze = {
+            "XXXXXXX",
+            "X....IX",
+            "X..MXXX",
+            "XGXKX.X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+
+        // Any first route is within its reported bound, and time to spare makes it optimal
+        Pathfinder.AnytimeResult quick = Pathfinder.solveAnytime(prob, 3.0, System.nanoTime());
+        assertTrue(prob.testSolution(quick.PATH).IS_SOLUTION);
+        assertTrue(quick.COST <= quick.EPSILON * 12);
+        Pathfinder.AnytimeResult full = Pathfinder.solveAnytime(prob, 3.0, System.nanoTime() + 500_000_000L);
+        assertEquals(12, prob.testSolution(full.PATH).COST);
+        assertEquals(1.0, full.EPSILON, 0.0);
+    }
+
+    @Test
+    public void testPathfinder_corridor() {
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI..X...X",
+            "XXX.X.X.X",
+            "X...M.XKX",
+            "X.XXXXXXX",
+            "X...G...X",
+            "XXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        CorridorGraph graph = CorridorGraph.build(MazeGrid.compile(prob));
+
+        // The dead end past the goal is pruned, and only I, K, G, and one junction remain
+        assertEquals(3, graph.getPrunedCount());
+        assertEquals(4, graph.getNodeCount());
+        MazeTestResult result = prob.testSolution(Pathfinder.solve(graph));
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(31, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_contractionHierarchy() throws IOException {
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI......X",
+            "X.XXMXX.X",
+            "X.X.K.X.X",
+            "X...M...X",
+            "XG.....GX",
+            "XXXXXXXXX"
+        };
+        MazeGrid grid = MazeGrid.compile(new MazeProblem(maze));
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        ContractionHierarchy.build(grid).save(saved);
+
+        // A saved hierarchy answers queries exactly as the maze is solved directly
+        ContractionHierarchy hierarchy = ContractionHierarchy.load(new ByteArrayInputStream(saved.toByteArray()), grid);
+        HierarchyQuery query = new HierarchyQuery(hierarchy);
+        MazeTestResult result = testSolution(maze, query.solve(grid.getInitial(), grid.getKey()));
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(testSolution(maze, Pathfinder.solve(grid)).COST, result.COST);
+        assertEquals(3, query.distance(grid.index(1, 1), grid.index(1, 4)));
+    }
+
+    @Test
+    public void testPathfinder_mappedFile() throws IOException {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        Path file = Files.createTempFile("maze", ".bin");
+        try {
+            new MazeProblem(maze).save(file);
+            
+            // A maze mapped from its file is solved just as the one it was saved from
+            MazeProblem mapped = MazeProblem.open(file);
+            assertEquals(3, mapped.getCost(new MazeState(3, 2)));
+            MazeTestResult result = testSolution(maze, Pathfinder.solve(mapped));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(14, result.COST);
+
+            // A corrupt goal count is rejected before anything is allocated for it
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 32);
+            }
+            try {
+                MazeProblem.open(file);
+                fail("Opened a maze file with a corrupt goal count");
+            } catch (IOException e) {
+                assertEquals("Corrupt maze file header", e.getMessage());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testPathfinder_tiledFile() throws IOException {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        Path file = Files.createTempFile("maze", ".tiles");
+        new MazeProblem(maze).saveTiled(file, 3);
+
+        // With room for a single 3x3 tile, every change of tile pages one out
+        try (TiledMaze tiled = TiledMaze.open(file, 3)) {
+            MazeProblem problem = new MazeProblem(tiled);
+            MazeTestResult result = testSolution(maze, Pathfinder.solve(problem));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(14, result.COST);
+            assertEquals(3, tiled.getCachedBytes());
+            assertTrue(tiled.getHits() > 0);
+            assertTrue(tiled.getEvictions() > 0);
+            assertEquals(tiled.getMisses() - 1, tiled.getEvictions());
+
+            // Every entry point searches the tiled maze in place
+            assertEquals(14, new MazeProblem(maze).testSolution(Pathfinder.solveCompact(problem)).COST);
+            assertEquals(14, Pathfinder.solveAnytime(problem, 2.0, System.nanoTime()).COST);
+            assertEquals(14, testSolution(maze, Pathfinder.solve(problem, 2)).COST);
+
+            // Searching in place is counted like any other search
+            SearchStats stats = new SearchStats();
+            assertEquals(14, testSolution(maze, Pathfinder.solve(problem, stats)).COST);
+            assertEquals(1, stats.getSearches());
+            assertTrue(stats.getExpanded() > 0 && stats.getGenerated() > 0);
+            assertTrue(stats.getKeyLegNanos() > 0 && stats.getGoalLegNanos() > 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testPathfinder_lowMemory() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI..M.X",
+            "X.XXX.X",
+            "X.XKX.X",
+            "X..G..X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+
+        // The key is a dead end, so the route must step straight back out of it
+        for (Pathfinder.Mode mode : new Pathfinder.Mode[] { Pathfinder.Mode.IDA_STAR, Pathfinder.Mode.FRINGE }) {
+            MazeTestResult result = testSolution(maze, Pathfinder.solve(prob, mode));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(7, result.COST);
+        }
+        MazeTestResult result = testSolution(maze, Pathfinder.solveWithin(prob, 1));
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(7, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_lowMemoryLongRoute() {
+        // A 201 x 201 serpentine, whose one route winds through every row of it
+        int size = 201;
+        String[] maze = new String[size];
+        for (int row = 0; row < size; row++) {
+            char[] line = new char[size];
+            Arrays.fill(line, (row % 2 == 0) ? 'X' : '.');
+            line[0] = line[size - 1] = 'X';
+            if (row % 2 == 0 && row > 0 && row < size - 1) { line[(row % 4 == 2) ? size - 2 : 1] = '.'; }
+            maze[row] = new String(line);
+        }
+        maze[1] = "XI" + maze[1].substring(2);
+        maze[size - 2] = maze[size - 2].substring(0, size - 3) + "GK" + "X";
+        MazeProblem prob = new MazeProblem(maze);
+
+        // A one-byte budget rules out A* and Fringe Search, leaving IDA*, whose
+        // thresholds must not climb one f-score at a time up the route's cost
+        MazeTestResult expected = testSolution(maze, Pathfinder.solve(prob));
+        MazeTestResult result = testSolution(maze, Pathfinder.solveWithin(prob, 1));
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(expected.COST, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_firstMoveDatabase() throws IOException {
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI......X",
+            "X.XXMXX.X",
+            "X.X.K.X.X",
+            "X...M...X",
+            "XG.....GX",
+            "XXXXXXXXX"
+        };
+        MazeGrid grid = MazeGrid.compile(new MazeProblem(maze));
+        Path file = Files.createTempFile("moves", ".cpd");
+        try {
+            FirstMoveDatabase.build(grid).save(file);
+
+            // A mapped database answers next moves and whole paths without searching
+            FirstMoveDatabase moves = FirstMoveDatabase.open(file, grid);
+            assertEquals("D", moves.nextAction(grid.getInitial(), grid.index(1, 5)));
+            CompactPath toKey = moves.path(grid.getInitial(), grid.getKey());
+            int cell = grid.getInitial(), cost = 0;
+            for (int i = 0; i < toKey.length(); i++) {
+                cell = grid.neighbor(cell, toKey.getMove(i));
+                cost += grid.getCost(cell);
+            }
+            assertEquals(grid.getKey(), cell);
+            assertEquals(7, cost);
+            assertEquals(5, moves.moves(grid.getKey(), grid.index(7, 5)).count());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testPathfinder_batch() {
+        String[][] mazes = {
+            {"XXXXXXX", "XI....X", "X.MMM.X", "X.XKXGX", "XXXXXXX"},
+            {"XXXXXXX", "XI.G..X", "X.MXMGX", "X.X.X.X", "XXXXXXX"},
+            {"XXXXXXX", "XIGGGGX", "XGGGGGX", "XGGGGKX", "XXXXXXX"}
+        };
+        List<MazeProblem> problems = new ArrayList<>();
+        for (String[] maze : mazes) { problems.add(new MazeProblem(maze)); }
+
+        // Paths come back in the problems' order, null for the maze without a key
+        List<ArrayList<String>> paths = Pathfinder.solveAll(problems, ForkJoinPool.commonPool(), 2);
+        assertEquals(14, testSolution(mazes[0], paths.get(0)).COST);
+        assertNull(paths.get(1));
+        assertEquals(7, testSolution(mazes[2], paths.get(2)).COST);
+
+        // Streamed in completion order through a one-result buffer, each comes once
+        int[] seen = new int[mazes.length];
+        try (Stream<Pathfinder.BatchResult> results = Pathfinder.solveAllUnordered(problems, ForkJoinPool.commonPool(), 2, 1)) {
+            results.forEach(result -> seen[result.INDEX]++);
+        }
+        assertArrayEquals(new int[] {1, 1, 1}, seen);
+    }
+
+    @Test
+    public void testPathfinder_searchStats() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        SearchStats stats = new SearchStats();
+        MazeTestResult result = testSolution(maze, Pathfinder.solve(prob, stats));
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(14, result.COST);
+        long expanded = stats.getExpanded();
+        assertTrue(expanded > 0);
+        assertTrue(stats.getGenerated() > stats.getDecreased());
+        assertTrue(stats.getPeakFrontier() > 0);
+
+        // A second search adds to the counters, which export under fixed names
+        Pathfinder.solve(prob, stats);
+        assertEquals(2, stats.getSearches());
+        assertEquals(2 * expanded, stats.getExpanded());
+        assertEquals(Long.valueOf(2 * expanded), stats.toCounters().get("search.expanded"));
+    }
+
     // Test cases *without* solutions
     // -------------------------------------------------
     @Test
@@ -248,5 +716,25 @@ public class PathfinderTests {
         
         assertNull(solution); // Ensure that Pathfinder knows when there's no solution
     }
+    @Test
+    public void testPathfinder_nosoln_allWalls() {
+        assertNoSolution(new MazeProblem(new String[] { "XXX" }));
+    }
+    @Test
+    public void testPathfinder_nosoln_empty() {
+        assertNoSolution(new MazeProblem(new String[0]));
+    }
+    
+    /**
+     * Asserts that every search engine, and the packed solve, reports that the
+     * given problem has no solution.
+     */
+    private static void assertNoSolution (MazeProblem prob) {
+        assertNull(Pathfinder.solve(prob));
+        assertNull(Pathfinder.solveCompact(prob));
+        for (Pathfinder.Mode mode : Pathfinder.Mode.values()) {
+            assertNull(Pathfinder.solve(prob, mode));
+        }
+    }
     
 }
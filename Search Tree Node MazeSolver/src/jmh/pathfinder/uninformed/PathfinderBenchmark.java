@@ -0,0 +1,124 @@
+package jmh.pathfinder.uninformed;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import main.pathfinder.uninformed.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of Pathfinder.solve over each family of generated maze, from
+ * 100 x 100 up to 10,000 x 10,000 cells, both plain and with SearchStats
+ * attached. Each operation is one full solve of the same maze, so the
+ * throughput is queries per second; the gc profiler, added by main, reports
+ * the allocation rate per operation, and the expanded and queries counters
+ * give the cells expanded per query.
+ * <p>
+ * The largest mazes need several gigabytes of heap, which the fork is given.
+ * The project has no build tool, so the benchmarks are compiled with javac,
+ * running JMH's annotation processor to generate the benchmark harness, and
+ * launched by main or by JMH's own launcher. From the project's directory,
+ * with JMH set to the jmh-core, jmh-generator-annprocess, jopt-simple, and
+ * commons-math3 jars joined by the path separator:
+ * <pre>
+ * javac -cp "$JMH" -processor org.openjdk.jmh.generators.BenchmarkProcessor \
+ *     -d out/jmh $(find src/main src/jmh -name '*.java')
+ * java -cp "out/jmh:$JMH" org.openjdk.jmh.Main PathfinderBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class PathfinderBenchmark {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    @Param({"OPEN_ROOMS", "LABYRINTH"})
+    public MazeFamilies.Family family;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"20230101"})
+    public long seed;
+
+    private MazeProblem problem;
+
+    /**
+     * Per-thread counters of the work done by the queries of an iteration;
+     * expanded divided by queries is the cells expanded per query.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Expansions {
+
+        public long expanded, queries;
+        private final SearchStats stats = new SearchStats();
+
+        @Setup(Level.Iteration)
+        public void reset () {
+            expanded = queries = 0;
+            stats.reset();
+        }
+
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Generates the maze for the trial's parameters.
+     */
+    @Setup(Level.Trial)
+    public void generate () {
+        problem = new MazeProblem(MazeFamilies.generate(family, size, size, seed));
+    }
+
+    /**
+     * Solves the maze once, without stats, as production callers do.
+     *
+     * @return The path, returned so that the solve is not optimized away.
+     */
+    @Benchmark
+    public List<String> solve () {
+        return Pathfinder.solve(problem);
+    }
+
+    /**
+     * Solves the maze once with stats attached, counting the cells it expanded;
+     * next to solve, this measures what the instrumentation costs.
+     *
+     * @param counters The thread's counters.
+     * @return The path, returned so that the solve is not optimized away.
+     */
+    @Benchmark
+    public List<String> solveWithStats (Expansions counters) {
+        long before = counters.stats.getExpanded();
+        List<String> path = Pathfinder.solve(problem, counters.stats);
+        counters.expanded += counters.stats.getExpanded() - before;
+        counters.queries++;
+        return path;
+    }
+
+    /**
+     * Runs every benchmark in this class with the gc profiler.
+     *
+     * @param args Unused.
+     * @throws RunnerException If the benchmarks fail to run.
+     */
+    public static void main (String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PathfinderBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+
+}
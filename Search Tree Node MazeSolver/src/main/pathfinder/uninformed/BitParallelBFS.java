@@ -0,0 +1,205 @@
+package main.pathfinder.uninformed;
+
+import java.util.*;
+
+/**
+ * Breadth-first search that advances a whole level of the frontier at a time
+ * with word-level bit operations. The maze's open cells, the visited set, and
+ * each level of the frontier are row bitmaps packed 64 cells to a long, so the
+ * next level is found 64 cells per operation: a frontier word's neighbors in
+ * its own row are the word shifted left and right by one (carrying the end bits
+ * into the adjacent words), its neighbors above and below are the same bits in
+ * the rows there, and of those, the new level keeps the ones that are open and
+ * not yet visited.
+ * <p>
+ * Each level is stored as the list of its nonzero words, in row-major order,
+ * so a level costs memory for the words it touches rather than for the whole
+ * maze, and the levels together hold no more words than there are reached
+ * cells. Once the goal is reached, the path is recovered by a backward pass
+ * over the stored levels: from the goal, each step moves to any neighbor in
+ * the level before, found by a binary search of that level's words.
+ */
+class BitParallelBFS {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final int rows, cols, words;
+
+    // Row bitmaps, words per row, of the open cells, the visited cells, and the
+    // next level being assembled
+    private final long[] open, visited, next;
+
+    // The stored levels: level d's words are at levelStart[d] until
+    // levelStart[d + 1], each a word index (row * words + word) and its bits
+    private int[] levelStart = new int[64], levelWord = new int[64];
+    private long[] levelBits = new long[64];
+    private int levels, stored;
+
+    // Word indices of the next level that received any bits
+    private int[] touched = new int[64];
+    private int touchedCount;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new BitParallelBFS over the given maze, packing its open cells.
+     *
+     * @param problem The maze to search.
+     */
+    BitParallelBFS (MazeProblem problem) {
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.words = (cols + 63) >>> 6;
+        if ((long) rows * words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze of " + rows + " x " + cols + " cells is too large to pack");
+        }
+        this.open = new long[rows * words];
+        this.visited = new long[rows * words];
+        this.next = new long[rows * words];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (!problem.isWall(col, row)) { open[row * words + (col >>> 6)] |= 1L << col; }
+            }
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds a shortest path from the problem's initial state to its goal.
+     *
+     * @return An ArrayList of actions leading from the initial state to the goal,
+     * of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    List<String> solve () {
+        MazeState initial = problem.getInitial(), goal = problem.getGoal();
+        if (initial == null || goal == null) { return null; }
+        int goalWord = goal.row * words + (goal.col >>> 6);
+        long goalBit = 1L << goal.col;
+        int startWord = initial.row * words + (initial.col >>> 6);
+        visited[startWord] |= 1L << initial.col;
+        levelStart[0] = 0;
+        store(startWord, 1L << initial.col);
+        levelStart[++levels] = stored;
+        if (startWord == goalWord && (1L << initial.col) == goalBit) { return new ArrayList<String>(); }
+        while (levelStart[levels] > levelStart[levels - 1]) {
+            expand(levelStart[levels - 1], levelStart[levels]);
+            boolean found = collect(goalWord, goalBit);
+            ensureLevels();
+            levelStart[++levels] = stored;
+            if (found) { return tracePath(goal); }
+        }
+        return null;
+    }
+
+    /**
+     * ORs the neighbors of one level's words into the next-level bitmap,
+     * recording which of its words were touched.
+     *
+     * @param from The index of the level's first stored word.
+     * @param to The index past the level's last stored word.
+     */
+    private void expand (int from, int to) {
+        touchedCount = 0;
+        for (int i = from; i < to; i++) {
+            int index = levelWord[i], row = index / words, word = index - row * words;
+            long bits = levelBits[i];
+            // Right and left neighbors within the row, carrying across words
+            spread(index, (bits << 1) | (bits >>> 1));
+            if (word + 1 < words && bits < 0) { spread(index + 1, 1L); }
+            if (word > 0 && (bits & 1) != 0) { spread(index - 1, Long.MIN_VALUE); }
+            // Neighbors above and below
+            if (row > 0) { spread(index - words, bits); }
+            if (row + 1 < rows) { spread(index + words, bits); }
+        }
+    }
+
+    /**
+     * ORs bits into a word of the next-level bitmap.
+     */
+    private void spread (int index, long bits) {
+        if (next[index] == 0) {
+            if (touchedCount == touched.length) { touched = Arrays.copyOf(touched, 2 * touchedCount); }
+            touched[touchedCount++] = index;
+        }
+        next[index] |= bits;
+    }
+
+    /**
+     * Masks the touched words of the next level to the open, unvisited cells,
+     * stores the nonzero ones as the new level in row-major order, and clears
+     * the next-level bitmap for reuse.
+     *
+     * @return Whether the new level includes the goal.
+     */
+    private boolean collect (int goalWord, long goalBit) {
+        Arrays.sort(touched, 0, touchedCount);
+        boolean found = false;
+        for (int i = 0; i < touchedCount; i++) {
+            int index = touched[i];
+            long bits = next[index] & open[index] & ~visited[index];
+            next[index] = 0;
+            if (bits == 0) { continue; }
+            visited[index] |= bits;
+            store(index, bits);
+            if (index == goalWord && (bits & goalBit) != 0) { found = true; }
+        }
+        return found;
+    }
+
+    /**
+     * Appends a word to the stored levels.
+     */
+    private void store (int index, long bits) {
+        if (stored == levelWord.length) {
+            levelWord = Arrays.copyOf(levelWord, 2 * stored);
+            levelBits = Arrays.copyOf(levelBits, 2 * stored);
+        }
+        levelWord[stored] = index;
+        levelBits[stored++] = bits;
+    }
+
+    /**
+     * Makes room for one more level boundary.
+     */
+    private void ensureLevels () {
+        if (levels + 1 == levelStart.length) { levelStart = Arrays.copyOf(levelStart, 2 * levelStart.length); }
+    }
+
+    /**
+     * @return Whether the given cell is in the given stored level.
+     */
+    private boolean inLevel (int level, int col, int row) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) { return false; }
+        int index = row * words + (col >>> 6);
+        int at = Arrays.binarySearch(levelWord, levelStart[level], levelStart[level + 1], index);
+        return at >= 0 && (levelBits[at] & (1L << col)) != 0;
+    }
+
+    /**
+     * Walks back from the goal, in the last stored level, through a neighbor in
+     * each level before it down to the start.
+     *
+     * @param goal The goal state.
+     * @return The actions leading from the start to the goal.
+     */
+    private List<String> tracePath (MazeState goal) {
+        int length = levels - 1, col = goal.col, row = goal.row;
+        String[] moves = new String[length];
+        for (int level = length - 1; level >= 0; level--) {
+            // The action names the move from the earlier cell onto this one
+            if (inLevel(level, col, row + 1)) { moves[level] = "U"; row++; }
+            else if (inLevel(level, col, row - 1)) { moves[level] = "D"; row--; }
+            else if (inLevel(level, col + 1, row)) { moves[level] = "L"; col++; }
+            else { moves[level] = "R"; col--; }
+        }
+        return new ArrayList<String>(Arrays.asList(moves));
+    }
+
+}
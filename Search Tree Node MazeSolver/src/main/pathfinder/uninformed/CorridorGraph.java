@@ -0,0 +1,239 @@
+package main.pathfinder.uninformed;
+
+import java.util.*;
+
+/**
+ * Sparse graph preprocessed from a MazeProblem, for labyrinth-style mazes made
+ * mostly of 1-wide corridors and dead ends. Dead-end pockets that hold neither
+ * the initial state nor the goal are pruned away, since no shortest path ever
+ * enters one; the remaining junctions, ends, initial state, and goal become
+ * nodes, and each corridor between two nodes is contracted into a pair of edges
+ * whose length is the number of moves along it. Pathfinder.solve(CorridorGraph)
+ * searches the graph and expands the corridors taken back into actions.
+ */
+public class CorridorGraph {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // Actions and their column and row offsets, in the order direction codes use
+    private static final String[] ACTIONS = {"U", "D", "L", "R"};
+    private static final int[] DCOL = {0, 0, -1, 1}, DROW = {-1, 1, 0, 0};
+
+    private final MazeProblem problem;
+    private final int cols;
+    private final boolean[] open;
+    private final int[] cellNode, nodeCell;
+
+    // Edges out of node n are edgeStart[n] .. edgeStart[n + 1] - 1
+    private final int[] edgeStart, edgeTarget, edgeLength;
+    private final byte[] edgeDirection;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new CorridorGraph by pruning and contracting the given maze.
+     */
+    private CorridorGraph (MazeProblem problem) {
+        this.problem = problem;
+        this.cols = problem.getCols();
+        int size = problem.getRows() * cols;
+        boolean[] kept = new boolean[size];
+        if (problem.getInitial() != null) { kept[index(problem.getInitial())] = true; }
+        if (problem.getGoal() != null) { kept[index(problem.getGoal())] = true; }
+
+        // Peel dead ends until every unkept cell has at least two open neighbors
+        open = new boolean[size];
+        for (int cell = 0; cell < size; cell++) { open[cell] = !problem.isWall(cell % cols, cell / cols); }
+        int[] degree = new int[size], stack = new int[size];
+        int top = 0;
+        for (int cell = 0; cell < size; cell++) {
+            if (!open[cell]) { continue; }
+            for (int dir = 0; dir < 4; dir++) {
+                if (neighbor(cell, dir) >= 0) { degree[cell]++; }
+            }
+            if (degree[cell] <= 1 && !kept[cell]) { stack[top++] = cell; }
+        }
+        while (top > 0) {
+            int cell = stack[--top];
+            open[cell] = false;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbor(cell, dir);
+                if (next >= 0 && --degree[next] == 1 && !kept[next]) { stack[top++] = next; }
+            }
+        }
+
+        // Every remaining cell that is not a plain corridor cell becomes a node
+        cellNode = new int[size];
+        Arrays.fill(cellNode, -1);
+        int nodes = 0, maxEdges = 0;
+        for (int cell = 0; cell < size; cell++) {
+            if (!open[cell] || (degree[cell] == 2 && !kept[cell])) { continue; }
+            cellNode[cell] = nodes++;
+            maxEdges += degree[cell];
+        }
+        nodeCell = new int[nodes];
+        for (int cell = 0; cell < size; cell++) {
+            if (cellNode[cell] >= 0) { nodeCell[cellNode[cell]] = cell; }
+        }
+
+        // Walk each corridor out of each node to the node at its other end
+        int[] targets = new int[maxEdges], lengths = new int[maxEdges];
+        byte[] directions = new byte[maxEdges];
+        edgeStart = new int[nodes + 1];
+        int edges = 0;
+        for (int node = 0; node < nodes; node++) {
+            edgeStart[node] = edges;
+            int from = nodeCell[node];
+            for (int dir = 0; dir < 4; dir++) {
+                int prev = from, cell = neighbor(from, dir), length = 1;
+                if (cell < 0) { continue; }
+                while (cellNode[cell] < 0) {
+                    int step = corridorStep(cell, prev);
+                    prev = cell;
+                    cell = step;
+                    length++;
+                }
+                if (cell == from) { continue; }
+                targets[edges] = cellNode[cell];
+                lengths[edges] = length;
+                directions[edges] = (byte) dir;
+                edges++;
+            }
+        }
+        edgeStart[nodes] = edges;
+        edgeTarget = Arrays.copyOf(targets, edges);
+        edgeLength = Arrays.copyOf(lengths, edges);
+        edgeDirection = Arrays.copyOf(directions, edges);
+    }
+
+
+    /**
+     * Builds the corridor graph of the given maze, from its initial state to its
+     * goal.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return The new CorridorGraph.
+     */
+    public static CorridorGraph build (MazeProblem problem) {
+        return new CorridorGraph(problem);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The MazeProblem this graph was built from.
+     */
+    public MazeProblem getProblem () {
+        return this.problem;
+    }
+
+    /**
+     * @return The number of nodes in the graph.
+     */
+    public int getNodeCount () {
+        return this.nodeCell.length;
+    }
+
+    /**
+     * @return The number of directed edges in the graph.
+     */
+    public int getEdgeCount () {
+        return this.edgeTarget.length;
+    }
+
+    /**
+     * @param state A MazeState in the maze.
+     * @return The state's node, or -1 if it is not a node.
+     */
+    int nodeOf (MazeState state) {
+        return cellNode[index(state)];
+    }
+
+    /**
+     * @param node A node.
+     * @return The index of the node's first outgoing edge.
+     */
+    int firstEdge (int node) {
+        return edgeStart[node];
+    }
+
+    /**
+     * @param node A node.
+     * @return One past the index of the node's last outgoing edge.
+     */
+    int endEdge (int node) {
+        return edgeStart[node + 1];
+    }
+
+    /**
+     * @param edge An edge index.
+     * @return The node at which the edge ends.
+     */
+    int target (int edge) {
+        return edgeTarget[edge];
+    }
+
+    /**
+     * @param edge An edge index.
+     * @return The number of moves along the edge.
+     */
+    int length (int edge) {
+        return edgeLength[edge];
+    }
+
+    /**
+     * Adds the actions along the given edge to a path, walking its corridor again.
+     *
+     * @param from The node at which the edge starts.
+     * @param edge The index of the edge.
+     * @param path The list of actions to add to.
+     */
+    void expand (int from, int edge, List<String> path) {
+        int prev = nodeCell[from], dir = edgeDirection[edge], cell = neighbor(prev, dir);
+        path.add(ACTIONS[dir]);
+        for (int i = 1; i < edgeLength[edge]; i++) {
+            int step = corridorStep(cell, prev);
+            for (dir = 0; neighbor(cell, dir) != step; dir++) {}
+            path.add(ACTIONS[dir]);
+            prev = cell;
+            cell = step;
+        }
+    }
+
+    /**
+     * @param state A MazeState in the maze.
+     * @return The state's cell index, row * cols + col.
+     */
+    private int index (MazeState state) {
+        return state.row * cols + state.col;
+    }
+
+    /**
+     * @return The neighbor of the cell in the given direction if it is open and
+     * was not pruned, otherwise -1.
+     */
+    private int neighbor (int cell, int dir) {
+        int col = cell % cols + DCOL[dir], row = cell / cols + DROW[dir];
+        if (problem.isWall(col, row)) { return -1; }
+        int next = row * cols + col;
+        return open[next] ? next : -1;
+    }
+
+    /**
+     * @param cell A corridor cell, which has exactly two open neighbors.
+     * @param prev The neighbor it was entered from.
+     * @return Its other open neighbor.
+     */
+    private int corridorStep (int cell, int prev) {
+        for (int dir = 0; dir < 4; dir++) {
+            int next = neighbor(cell, dir);
+            if (next >= 0 && next != prev) { return next; }
+        }
+        throw new IllegalStateException("Corridor cell " + cell + " has no way onward");
+    }
+
+}
@@ -0,0 +1,151 @@
+package main.pathfinder.uninformed;
+
+import java.util.*;
+
+/**
+ * Breadth-first graph search over a MazeProblem's cells, by cell index
+ * (row * cols + col). Each cell is marked in a visited bitset when first
+ * reached and queued exactly once, so a search takes time and memory linear in
+ * the maze's size: a bit and a parent index per cell, plus a ring buffer of
+ * queued cells that grows to the frontier's widest extent. Since every move
+ * costs 1, the first path to reach the goal is a shortest one.
+ * <p>
+ * An engine keeps its arrays between searches, reallocating only for a larger
+ * maze, so one engine can solve many mazes in turn without allocating per
+ * search; it is not safe to use from several threads at once.
+ */
+class GridBFS {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // Move offsets, in the order of the actions "U", "D", "L", "R"
+    private static final int[] DCOL = {0, 0, -1, 1}, DROW = {-1, 1, 0, 0};
+    private static final String[] ACTIONS = {"U", "D", "L", "R"};
+
+    private long[] visited = new long[0];
+    private int[] parent = new int[0];
+
+    // The queue of reached cells, a ring buffer whose length is a power of two
+    private int[] queue = new int[64];
+    private int head, tail;
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds a shortest path from the problem's initial state to its goal.
+     *
+     * @param problem The maze to search.
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return An ArrayList of actions leading from the initial state to the goal,
+     * of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    List<String> solve (MazeProblem problem, SearchStats stats) {
+        MazeState initial = problem.getInitial(), goal = problem.getGoal();
+        if (initial == null || goal == null) { return null; }
+        long started = (stats == null) ? 0 : System.nanoTime();
+        int rows = problem.getRows(), cols = problem.getCols(), size = rows * cols;
+        reset(size);
+        int start = initial.row * cols + initial.col, end = goal.row * cols + goal.col;
+        long expanded = 0, generated = 0, duplicates = 0;
+        int peak = 1;
+        visit(start);
+        parent[start] = -1;
+        push(start);
+        boolean found = start == end;
+        while (!found && head != tail) {
+            int cell = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            expanded++;
+            int col = cell % cols, row = cell / cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nextCol = col + DCOL[dir], nextRow = row + DROW[dir];
+                if (problem.isWall(nextCol, nextRow)) { continue; }
+                int next = nextRow * cols + nextCol;
+                if (isVisited(next)) {
+                    duplicates++;
+                    continue;
+                }
+                visit(next);
+                parent[next] = cell;
+                generated++;
+                if (next == end) {
+                    found = true;
+                    break;
+                }
+                push(next);
+            }
+            peak = Math.max(peak, (tail - head) & (queue.length - 1));
+        }
+        if (stats == null) { return found ? tracePath(end, cols) : null; }
+        long searched = System.nanoTime();
+        stats.addSearch(expanded, generated, duplicates, peak, searched - started);
+        if (!found) { return null; }
+        List<String> path = tracePath(end, cols);
+        stats.addTrace(System.nanoTime() - searched);
+        return path;
+    }
+
+    /**
+     * Readies the arrays for a search over the given number of cells, clearing
+     * the visited bits; parent entries are only read for visited cells, so they
+     * need no clearing.
+     */
+    private void reset (int size) {
+        int words = (size + 63) >>> 6;
+        if (visited.length < words) {
+            visited = new long[words];
+            parent = new int[size];
+        } else {
+            Arrays.fill(visited, 0, words, 0);
+            if (parent.length < size) { parent = new int[size]; }
+        }
+        head = tail = 0;
+    }
+
+    /**
+     * Adds a cell to the back of the queue, doubling the ring buffer if full.
+     */
+    private void push (int cell) {
+        queue[tail] = cell;
+        tail = (tail + 1) & (queue.length - 1);
+        if (tail == head) {
+            // Unroll the ring so that the doubled buffer holds it in order
+            int[] grown = new int[2 * queue.length];
+            int front = queue.length - head;
+            System.arraycopy(queue, head, grown, 0, front);
+            System.arraycopy(queue, 0, grown, front, head);
+            head = 0;
+            tail = queue.length;
+            queue = grown;
+        }
+    }
+
+    private boolean isVisited (int cell) {
+        return (visited[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private void visit (int cell) {
+        visited[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * Backtracks through the parent array from the given cell to the start.
+     *
+     * @param end The cell at which the path ends.
+     * @param cols The maze's number of columns.
+     * @return ArrayList of the directions taken to go from the start to the end.
+     */
+    private List<String> tracePath (int end, int cols) {
+        int length = 0;
+        for (int cell = end; parent[cell] >= 0; cell = parent[cell]) { length++; }
+        String[] moves = new String[length];
+        for (int cell = end, i = length - 1; parent[cell] >= 0; cell = parent[cell], i--) {
+            int delta = cell - parent[cell];
+            moves[i] = ACTIONS[(delta == -cols) ? 0 : (delta == cols) ? 1 : (delta == -1) ? 2 : 3];
+        }
+        return new ArrayList<String>(Arrays.asList(moves));
+    }
+
+}
@@ -0,0 +1,120 @@
+package main.pathfinder.uninformed;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from nonnegative long keys to int values, for key
+ * spaces too large to index an array by, such as the cells of mazes bigger than
+ * 2^31 cells or the tiles of an out-of-core maze; lookups neither box nor
+ * allocate, and keys can be removed.
+ */
+class LongMap {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final long EMPTY = -1;
+
+    private final int missing;
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new, empty LongMap.
+     *
+     * @param missing The value returned for keys that are not in the map.
+     */
+    LongMap (int missing) {
+        this.missing = missing;
+        this.keys = new long[16];
+        this.values = new int[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @param key A nonnegative key.
+     * @return The value stored for the key, or the missing value if there is none.
+     */
+    int get (long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) { return values[i]; }
+        }
+        return missing;
+    }
+
+    /**
+     * Stores a value for the given key, replacing any previous one.
+     *
+     * @param key A nonnegative key.
+     * @param value The value to store.
+     */
+    void put (long key, int value) {
+        if (2 * (size + 1) > keys.length) { grow(); }
+        int mask = keys.length - 1, i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) { i = (i + 1) & mask; }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Removes the given key, if present, shifting back any later keys of its
+     * probe run so that lookups never stop short at the freed slot.
+     *
+     * @param key A nonnegative key.
+     */
+    void remove (long key) {
+        int mask = keys.length - 1, i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) { return; }
+            i = (i + 1) & mask;
+        }
+        size--;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            // A key may move into the hole only if the hole lies on its probe path
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+    }
+
+    /**
+     * Doubles the table's capacity and re-inserts every key.
+     */
+    private void grow () {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) { put(oldKeys[i], oldValues[i]); }
+        }
+    }
+
+    /**
+     * @param key A key.
+     * @return A well-mixed hash of the key.
+     */
+    private static int hash (long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
@@ -0,0 +1,18 @@
+package main.pathfinder.uninformed;
+
+/**
+ * Read-only storage of a MazeProblem's cells, addressed by column and row;
+ * lets a maze be backed by its Strings or by any other store, such as tiles
+ * paged in from disk, that reads cells on demand.
+ */
+public interface MazeCells {
+
+    /**
+     * @param col Column of a cell within the maze's bounds.
+     * @param row Row of a cell within the maze's bounds.
+     * @return The maze character at (col, row): 'X' for a wall, and any other
+     * character for an open cell.
+     */
+    char getCell (int col, int row);
+
+}
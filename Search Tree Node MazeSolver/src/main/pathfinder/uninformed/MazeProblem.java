@@ -1,5 +1,7 @@
 package main.pathfinder.uninformed;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -11,8 +13,8 @@ public class MazeProblem {
 
     // Fields
     // -----------------------------------------------------------------------------
-    private String[] maze;
-    private int rows, cols;
+    private final MazeCells cells;
+    private final int rows, cols;
     private final MazeState INITIAL_STATE, GOAL_STATE;
     private static final Map<String, MazeState> TRANS_MAP = createTransitions();
     
@@ -56,7 +58,7 @@ public class MazeProblem {
      * </pre>
      */
     public MazeProblem (String[] maze) {
-        this.maze = maze;
+        this.cells = (col, row) -> maze[row].charAt(col);
         this.rows = maze.length;
         this.cols = (rows == 0) ? 0 : maze[0].length();
         MazeState foundInitial = null, foundGoal = null;
@@ -82,10 +84,66 @@ public class MazeProblem {
         this.GOAL_STATE = foundGoal;
     }
     
+    /**
+     * Constructs a new MazeProblem around cells read on demand from the given
+     * store, rather than from Strings held in memory. The maze is not scanned, so
+     * its initial and goal states are given rather than found.
+     * <p>
+     * The searches read the maze only through the store, but still keep
+     * bookkeeping for every cell, such as GridBFS's visited bit and parent
+     * index; a maze larger than memory should instead be backed by a TiledMaze,
+     * which every search handles by storing only the cells it reaches.
+     * 
+     * @param cells The store of the maze's cells.
+     * @param rows The number of rows in the maze.
+     * @param cols The number of columns in the maze.
+     * @param initial The initial state, or null if there is none.
+     * @param goal The goal state, or null if there is none.
+     */
+    public MazeProblem (MazeCells cells, int rows, int cols, MazeState initial, MazeState goal) {
+        if (rows < 0 || cols < 0) {
+            throw new IllegalArgumentException("Maze dimensions must not be negative");
+        }
+        this.cells = cells;
+        this.rows = rows;
+        this.cols = cols;
+        if ((initial != null && isWall(initial.col, initial.row)) || (goal != null && isWall(goal.col, goal.row))) {
+            throw new IllegalArgumentException("Initial and goal states must be open cells of the maze");
+        }
+        this.INITIAL_STATE = initial;
+        this.GOAL_STATE = goal;
+    }
+    
+    /**
+     * Constructs a new MazeProblem around an out-of-core tiled maze, whose tiles
+     * are read from disk as the maze's cells are queried. Pathfinder searches
+     * such a maze breadth-first while storing only the cells it reaches, so that
+     * neither the maze nor a table over all of its cells need fit in memory; the
+     * maze should stay open while the problem is in use.
+     * 
+     * @param tiled The opened tiled maze.
+     */
+    public MazeProblem (TiledMaze tiled) {
+        this(tiled, tiled.getRows(), tiled.getCols(), tiled.getInitial(), tiled.getGoal());
+    }
+    
     
     // Methods
     // -----------------------------------------------------------------------------
     
+    /**
+     * Writes this maze to a file in the tiled format that TiledMaze opens: a
+     * short header with the initial and goal cells, then the cells in square
+     * tiles of the given size, each of which can be read on its own.
+     * 
+     * @param file The file to write, replacing any existing file.
+     * @param tileSize The number of rows and columns of cells in each tile.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveTiled (Path file, int tileSize) throws IOException {
+        TiledMaze.write(this, file, tileSize);
+    }
+    
     /**
      * Returns the MazeState containing the initial state (the starting position
      * of the pathfinder)
@@ -106,6 +164,37 @@ public class MazeProblem {
         return this.GOAL_STATE;
     }
     
+    /**
+     * @return The number of rows in the maze.
+     */
+    int getRows () {
+        return this.rows;
+    }
+
+    /**
+     * @return The number of columns in the maze.
+     */
+    int getCols () {
+        return this.cols;
+    }
+
+    /**
+     * @return Whether the maze is backed by a TiledMaze, so that searches should
+     * store only the cells they reach rather than a table over every cell.
+     */
+    boolean isOutOfCore () {
+        return cells instanceof TiledMaze;
+    }
+
+    /**
+     * @param col Column of a position in the maze.
+     * @param row Row of a position in the maze.
+     * @return Whether the position is outside of the maze or holds a wall.
+     */
+    boolean isWall (int col, int row) {
+        return row < 0 || row >= rows || col < 0 || col >= cols || cells.getCell(col, row) == 'X';
+    }
+
     /**
      * Returns a map of the states that can be reached from the given input
      * state using any of the available actions.
@@ -130,9 +219,7 @@ public class MazeProblem {
             
             // If the given state *is* a valid transition (i.e., within
             // map bounds and no wall at the position)...
-            if (newState.row >= 0 && newState.row < rows &&
-                newState.col >= 0 && newState.col < cols &&
-                maze[newState.row].charAt(newState.col) != 'X') {
+            if (!isWall(newState.col, newState.row)) {
                 // ...then add it to the result!
                 result.put(action.getKey(), newState);
             }
@@ -161,7 +248,7 @@ public class MazeProblem {
         for (String action : possibleSoln) {
             MazeState actionMod = TRANS_MAP.get(action);
             movingState.add(actionMod);
-            if (maze[movingState.row].charAt(movingState.col) == 'X') {
+            if (isWall(movingState.col, movingState.row)) {
                 return new MazeTestResult(false, -1);
             }
             cost++;
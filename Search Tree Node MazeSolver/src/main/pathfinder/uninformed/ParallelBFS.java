@@ -0,0 +1,334 @@
+package main.pathfinder.uninformed;
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Level-synchronous, direction-optimizing breadth-first search (Beamer et al.)
+ * on a ForkJoinPool, for mazes too large for one thread. Each level is split
+ * into chunks that the pool's workers expand in parallel, and the search ends a
+ * level, waiting on every chunk, before it starts the next.
+ * <p>
+ * A level is expanded in one of two directions. Top-down, each worker takes a
+ * chunk of the frontier's cells and claims their unvisited neighbors by an
+ * atomic OR into the shared visited bitmap, so a cell reached from two chunks
+ * at once is claimed by exactly one. Bottom-up, each worker takes a range of
+ * the visited bitmap's words and looks for unvisited open cells with a
+ * neighbor on the frontier, which is held as a bitmap too, 64 cells per word
+ * operation as in BitParallelBFS; since no two workers share a word, no
+ * claiming is needed. Top-down costs work per frontier cell and bottom-up per
+ * word of the bitmap, so the search switches to bottom-up once the frontier
+ * outgrows a fraction (1 / ALPHA) of the bitmap's words, and back once it
+ * shrinks below a smaller fraction (1 / BETA), as Beamer's rule weighs the
+ * frontier's edges against those bottom-up would check. A frontier in a grid
+ * grows only with the maze's side, so bottom-up pays off in mazes of up to
+ * some hundreds of cells a side, and top-down carries the larger ones.
+ * <p>
+ * Cells are identified by row * stride + col, where the stride pads each row to
+ * whole words so that rows never share one.
+ */
+class ParallelBFS {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Beamer's switching thresholds, and the fewest items worth a chunk of their own
+    private static final int ALPHA = 14, BETA = 24, GRAIN = 1 << 12;
+
+    private final MazeProblem problem;
+    private final ForkJoinPool pool;
+    private final int rows, cols, words, stride, chunks;
+
+    // Row bitmaps of the open and visited cells, each cell's parent, and the
+    // frontier's bitmap while searching bottom-up, next to the one being built
+    private final long[] open, visited;
+    private final int[] parent;
+    private long[] front, next;
+
+    // The frontier's cells while searching top-down, next to the array the next
+    // level is gathered into, and each chunk's buffer of the cells it claimed
+    private int[] queue = new int[64], nextQueue = new int[64];
+    private final int[][] buffers;
+    private final int[] counts;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new ParallelBFS over the given maze, packing its open cells
+     * in parallel.
+     *
+     * @param problem The maze to search.
+     * @param pool The pool whose workers expand each level.
+     */
+    ParallelBFS (MazeProblem problem, ForkJoinPool pool) {
+        this.problem = problem;
+        this.pool = pool;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.words = (cols + 63) >>> 6;
+        this.stride = words << 6;
+        if ((long) rows * stride > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze of " + rows + " x " + cols + " cells is too large to search");
+        }
+        this.chunks = 4 * pool.getParallelism();
+        this.open = new long[rows * words];
+        this.visited = new long[rows * words];
+        this.parent = new int[rows * stride];
+        this.buffers = new int[chunks][];
+        this.counts = new int[chunks];
+        run(rows, parts(rows * words), (chunk, from, to) -> {
+            for (int row = from; row < to; row++) {
+                for (int col = 0; col < cols; col++) {
+                    if (!problem.isWall(col, row)) { open[row * words + (col >>> 6)] |= 1L << col; }
+                }
+            }
+        });
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds a shortest path from the problem's initial state to its goal.
+     *
+     * @return An ArrayList of actions leading from the initial state to the goal,
+     * of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    List<String> solve () {
+        MazeState initial = problem.getInitial(), goal = problem.getGoal();
+        if (initial == null || goal == null) { return null; }
+        int start = initial.row * stride + initial.col, end = goal.row * stride + goal.col;
+        visited[start >>> 6] |= 1L << start;
+        parent[start] = -1;
+        queue[0] = start;
+        int size = 1, previous = 0;
+        long scanned = (long) rows * words;
+        boolean bottomUp = false;
+        while (size > 0 && (visited[end >>> 6] & (1L << end)) == 0) {
+            if (!bottomUp && (long) size * ALPHA > scanned) {
+                toBitmap(size);
+                bottomUp = true;
+            } else if (bottomUp && (long) size * BETA < scanned && size < previous) {
+                toQueue(size);
+                bottomUp = false;
+            }
+            previous = size;
+            size = bottomUp ? bottomUpStep() : topDownStep(size);
+        }
+        return (size == 0) ? null : tracePath(end);
+    }
+
+    /**
+     * Expands the frontier's queued cells, each chunk claiming their unvisited
+     * neighbors into its own buffer, then gathers the buffers into the queue.
+     *
+     * @param size The number of queued cells.
+     * @return The number of cells in the new level.
+     */
+    private int topDownStep (int size) {
+        int parts = parts(size);
+        run(size, parts, (chunk, from, to) -> {
+            int[] buffer = (buffers[chunk] == null) ? new int[64] : buffers[chunk];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int cell = queue[i], row = cell / stride, col = cell - row * stride;
+                for (int dir = 0; dir < 4; dir++) {
+                    int next;
+                    switch (dir) {
+                    case 0: if (row == 0) { continue; } next = cell - stride; break;
+                    case 1: if (row + 1 == rows) { continue; } next = cell + stride; break;
+                    case 2: if (col == 0) { continue; } next = cell - 1; break;
+                    default: if (col + 1 == cols) { continue; } next = cell + 1; break;
+                    }
+                    int word = next >>> 6;
+                    long bit = 1L << next;
+                    // A plain read first skips most visited cells without an atomic
+                    if ((open[word] & bit) == 0 || (visited[word] & bit) != 0) { continue; }
+                    if (((long) WORDS.getAndBitwiseOr(visited, word, bit) & bit) != 0) { continue; }
+                    parent[next] = cell;
+                    if (count == buffer.length) { buffer = Arrays.copyOf(buffer, 2 * count); }
+                    buffer[count++] = next;
+                }
+            }
+            buffers[chunk] = buffer;
+            counts[chunk] = count;
+        });
+        int total = 0;
+        for (int chunk = 0; chunk < parts; chunk++) { total += counts[chunk]; }
+        if (nextQueue.length < total) { nextQueue = new int[Math.max(total, 2 * nextQueue.length)]; }
+        for (int chunk = 0, at = 0; chunk < parts; at += counts[chunk++]) {
+            System.arraycopy(buffers[chunk], 0, nextQueue, at, counts[chunk]);
+        }
+        int[] swap = queue;
+        queue = nextQueue;
+        nextQueue = swap;
+        return total;
+    }
+
+    /**
+     * Finds every unvisited open cell with a neighbor on the frontier bitmap,
+     * each chunk covering a range of words, and makes them the new frontier.
+     *
+     * @return The number of cells in the new level.
+     */
+    private int bottomUpStep () {
+        int total = rows * words, parts = parts(total);
+        run(total, parts, (chunk, from, to) -> {
+            int count = 0;
+            for (int w = from; w < to; w++) {
+                long candidates = open[w] & ~visited[w];
+                if (candidates == 0) {
+                    next[w] = 0;
+                    continue;
+                }
+                int row = w / words, word = w - row * words;
+                long here = front[w];
+                long fromLeft = (here << 1) | ((word > 0) ? front[w - 1] >>> 63 : 0);
+                long fromRight = (here >>> 1) | ((word + 1 < words) ? front[w + 1] << 63 : 0);
+                long fromAbove = (row > 0) ? front[w - words] : 0, fromBelow = (row + 1 < rows) ? front[w + words] : 0;
+                long hits = candidates & (fromLeft | fromRight | fromAbove | fromBelow);
+                next[w] = hits;
+                if (hits == 0) { continue; }
+                visited[w] |= hits;
+                count += Long.bitCount(hits);
+                for (long rest = hits; rest != 0; rest &= rest - 1) {
+                    long bit = rest & -rest;
+                    int cell = (w << 6) + Long.numberOfTrailingZeros(rest);
+                    parent[cell] = ((fromAbove & bit) != 0) ? cell - stride
+                        : ((fromBelow & bit) != 0) ? cell + stride
+                        : ((fromLeft & bit) != 0) ? cell - 1 : cell + 1;
+                }
+            }
+            counts[chunk] = count;
+        });
+        long[] swap = front;
+        front = next;
+        next = swap;
+        int size = 0;
+        for (int chunk = 0; chunk < parts; chunk++) { size += counts[chunk]; }
+        return size;
+    }
+
+    /**
+     * Switches to bottom-up: sets the queued cells' bits in a cleared frontier
+     * bitmap, atomically since cells from different chunks may share a word.
+     */
+    private void toBitmap (int size) {
+        if (front == null) {
+            front = new long[rows * words];
+            next = new long[rows * words];
+        } else {
+            Arrays.fill(front, 0);
+        }
+        run(size, parts(size), (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int cell = queue[i];
+                WORDS.getAndBitwiseOr(front, cell >>> 6, 1L << cell);
+            }
+        });
+    }
+
+    /**
+     * Switches to top-down: lists the frontier bitmap's cells in the queue, each
+     * chunk counting its words' cells and then writing them after the cells of
+     * the chunks before it.
+     */
+    private void toQueue (int size) {
+        int total = rows * words, parts = parts(total);
+        if (queue.length < size) { queue = new int[size]; }
+        run(total, parts, (chunk, from, to) -> {
+            int count = 0;
+            for (int w = from; w < to; w++) { count += Long.bitCount(front[w]); }
+            counts[chunk] = count;
+        });
+        int[] offsets = new int[parts];
+        for (int chunk = 1; chunk < parts; chunk++) { offsets[chunk] = offsets[chunk - 1] + counts[chunk - 1]; }
+        run(total, parts, (chunk, from, to) -> {
+            int at = offsets[chunk];
+            for (int w = from; w < to; w++) {
+                for (long rest = front[w]; rest != 0; rest &= rest - 1) {
+                    queue[at++] = (w << 6) + Long.numberOfTrailingZeros(rest);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The number of chunks to split the given number of items into.
+     */
+    private int parts (int items) {
+        return (int) Math.max(1, Math.min(chunks, (items + (long) GRAIN - 1) / GRAIN));
+    }
+
+    /**
+     * Runs the body over the given number of items split into chunks, on the
+     * pool unless there is only one chunk, and waits for every chunk to finish.
+     */
+    private void run (int items, int parts, ChunkBody body) {
+        if (parts == 1) {
+            body.run(0, 0, items);
+        } else {
+            pool.invoke(new ChunkTask(body, items, parts, 0, parts));
+        }
+    }
+
+    /**
+     * Walks back through the parent array from the given cell to the start.
+     *
+     * @param end The cell at which the path ends.
+     * @return ArrayList of the directions taken to go from the start to the end.
+     */
+    private List<String> tracePath (int end) {
+        int length = 0;
+        for (int cell = end; parent[cell] >= 0; cell = parent[cell]) { length++; }
+        String[] moves = new String[length];
+        for (int cell = end, i = length - 1; parent[cell] >= 0; cell = parent[cell], i--) {
+            int delta = cell - parent[cell];
+            moves[i] = (delta == -stride) ? "U" : (delta == stride) ? "D" : (delta == -1) ? "L" : "R";
+        }
+        return new ArrayList<String>(Arrays.asList(moves));
+    }
+
+    /**
+     * Work done on one chunk of a level's items.
+     */
+    private interface ChunkBody {
+        void run (int chunk, int from, int to);
+    }
+
+    /**
+     * Runs a range of chunks, splitting it in half until each task holds one
+     * chunk, so that idle workers steal halves from busy ones.
+     */
+    private static class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient ChunkBody body;
+        private final int items, parts, lo, hi;
+
+        ChunkTask (ChunkBody body, int items, int parts, int lo, int hi) {
+            this.body = body;
+            this.items = items;
+            this.parts = parts;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute () {
+            if (hi - lo == 1) {
+                body.run(lo, (int) ((long) items * lo / parts), (int) ((long) items * hi / parts));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(body, items, parts, lo, mid), new ChunkTask(body, items, parts, mid, hi));
+        }
+
+    }
+
+}
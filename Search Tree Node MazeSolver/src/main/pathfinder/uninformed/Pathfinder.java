@@ -1,14 +1,57 @@
 package main.pathfinder.uninformed;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 
 /**
- * Maze Pathfinding algorithm that implements a basic, uninformed, breadth-first tree search
+ * Maze Pathfinding algorithm that implements a basic, uninformed, breadth-first graph search
  * given a MazeProblem with specified initial, goal, and wall states.
  * @author Alex Armknecht, Anna Garren, Sophia Wagner
  */
 public class Pathfinder {
     
+    /**
+     * Search engines available for solving a maze; every mode returns a shortest
+     * path.
+     */
+    public enum Mode {
+        /** Breadth-first search, one queued cell at a time. */
+        BREADTH_FIRST,
+        /**
+         * Breadth-first search a whole level at a time, over packed row bitmaps
+         * that step 64 cells per word operation.
+         */
+        BIT_PARALLEL,
+        /**
+         * Breadth-first search a whole level at a time, each level split across
+         * the common ForkJoinPool's workers, expanding top-down from the frontier
+         * or bottom-up from the unvisited cells, whichever is less work.
+         */
+        PARALLEL
+    }
+
+    /**
+     * Result of one problem in a batch solved by solveAllUnordered: the problem's
+     * position in the batch and its path.
+     */
+    public static class BatchResult {
+
+        public final int INDEX;
+        public final List<String> PATH;
+
+        /**
+         * Constructor for a BatchResult.
+         * @param index The problem's position in the batch, counting from 0.
+         * @param path The problem's path, or null if it has none.
+         */
+        public BatchResult (int index, List<String> path) {
+            this.INDEX = index;
+            this.PATH = path;
+        }
+
+    }
+
     /**
      * Given a MazeProblem, which specifies the actions and transitions available in the
      * search, returns a solution to the problem as a sequence of actions that leads from
@@ -19,43 +62,170 @@ public class Pathfinder {
      * the goal state, of the format: ["R", "R", "L", ...]
      */
     public static List<String> solve (MazeProblem problem) {
-        SearchTreeNode initState = new SearchTreeNode(problem.getInitial(), null, null);
-        Queue<SearchTreeNode> frontier = new LinkedList<SearchTreeNode>();
-        frontier.add(initState); //add initial state to beginning of frontier
+        if (problem.isOutOfCore()) { return new SparseBFS(problem).solve(null); }
+        return new GridBFS().solve(problem, null);
+    }
+
+    /**
+     * Solves the given MazeProblem using the given search engine. Out-of-core
+     * mazes, backed by a TiledMaze, are too large for any engine's table over
+     * every cell, and are always searched breadth-first by one that stores only
+     * the cells it reaches.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param mode The search engine to use.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static List<String> solve (MazeProblem problem, Mode mode) {
+        if (problem.isOutOfCore()) { return new SparseBFS(problem).solve(null); }
+        switch (mode) {
+        case BIT_PARALLEL:
+            return new BitParallelBFS(problem).solve();
+        case PARALLEL:
+            return solve(problem, ForkJoinPool.commonPool());
+        default:
+            return solve(problem);
+        }
+    }
+
+    /**
+     * Solves the given MazeProblem with a breadth-first search whose every level
+     * is split across the given pool's workers, for mazes of hundreds of millions
+     * of cells. Levels are expanded top-down, each worker claiming the unvisited
+     * neighbors of part of the frontier, until the frontier grows large next to
+     * the unvisited cells; then they are expanded bottom-up, each worker checking
+     * part of the unvisited cells for a neighbor on the frontier, until it shrinks
+     * again. Out-of-core mazes are searched in place, as solve(MazeProblem, Mode)
+     * does.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param pool The pool whose workers expand each level.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static List<String> solve (MazeProblem problem, ForkJoinPool pool) {
+        if (problem.isOutOfCore()) { return new SparseBFS(problem).solve(null); }
+        return new ParallelBFS(problem, pool).solve();
+    }
+
+    /**
+     * Solves the given MazeProblem as solve(MazeProblem) does, adding the search's
+     * counters and timings to the given stats.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static List<String> solve (MazeProblem problem, SearchStats stats) {
+        if (problem.isOutOfCore()) { return new SparseBFS(problem).solve(stats); }
+        return new GridBFS().solve(problem, stats);
+    }
+
+    /**
+     * Solves a batch of MazeProblems in parallel on the common ForkJoinPool, with
+     * one worker per available processor, the calling thread among them.
+     *
+     * @param problems The MazeProblems to solve.
+     * @return Each problem's path, as solve(MazeProblem) finds it, or null if it
+     * has none, in the problems' iteration order.
+     */
+    public static List<List<String>> solveAll (Collection<MazeProblem> problems) {
+        return solveAll(problems, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Solves a batch of MazeProblems in parallel on the given executor, with a
+     * fixed number of workers that each take the next unsolved problem. The
+     * calling thread acts as one of the workers, so the executor runs the others;
+     * any executor will do, including a ForkJoinPool, which lets idle pool
+     * threads steal the workers, or a virtual-thread-per-task executor.
+     *
+     * @param problems The MazeProblems to solve.
+     * @param executor The executor to run workers on.
+     * @param workers The number of workers to solve on.
+     * @return Each problem's path, as solve(MazeProblem) finds it, or null if it
+     * has none, in the problems' iteration order.
+     */
+    public static List<List<String>> solveAll (Collection<MazeProblem> problems, Executor executor, int workers) {
+        return BatchSolver.solveOrdered(problems, executor, workers);
+    }
+
+    /**
+     * Solves a batch of MazeProblems in parallel on the given executor, streaming
+     * each result as soon as it is solved. At most the given number of results
+     * wait to be consumed; beyond that, workers pause until the stream catches
+     * up. Closing the stream, as a try-with-resources block does, stops the
+     * workers once they finish the problems they are on.
+     *
+     * @param problems The MazeProblems to solve.
+     * @param executor The executor to run workers on.
+     * @param workers The number of workers to solve on.
+     * @param buffer The most solved results to hold for the stream.
+     * @return The results, in the order they were solved.
+     */
+    public static Stream<BatchResult> solveAllUnordered (Collection<MazeProblem> problems, Executor executor, int workers, int buffer) {
+        return BatchSolver.solveUnordered(problems, executor, workers, buffer);
+    }
+
+    /**
+     * Solves a MazeProblem over its corridor graph, which for labyrinths of narrow
+     * corridors is many times smaller than the maze itself. Since the graph's
+     * edges span corridors of different lengths, it is searched uniform-cost
+     * (Dijkstra) rather than breadth-first, which still finds the shortest path.
+     *
+     * @param graph A CorridorGraph built from a MazeProblem by CorridorGraph.build.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    public static List<String> solve (CorridorGraph graph) {
+        MazeProblem problem = graph.getProblem();
+        if (problem.getInitial() == null || problem.getGoal() == null) { return null; }
+        int nodes = graph.getNodeCount(), start = graph.nodeOf(problem.getInitial()), goal = graph.nodeOf(problem.getGoal());
+        int[] dist = new int[nodes], parent = new int[nodes], parentEdge = new int[nodes];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[start] = 0;
+        parent[start] = -1;
+
+        // Frontier entries are ordered by distance; stale entries are skipped when popped
+        LongHeap frontier = new LongHeap();
+        frontier.push(LongHeap.entry(0, start));
         while (!frontier.isEmpty()) {
-            SearchTreeNode expandingNode = frontier.poll();
-            //generate children
-            Map<String, MazeState> availableMoves = new HashMap<>();
-            availableMoves = problem.getTransitions(expandingNode.state);
-            for (Map.Entry<String, MazeState> Entry : availableMoves.entrySet()) {
-                SearchTreeNode newChildNode =new SearchTreeNode(Entry.getValue(), Entry.getKey(), expandingNode); //create all available children
-                if (newChildNode.state.equals(problem.getGoal())) { //goal reached, now backtrack.
-                    return tracePath(newChildNode);
-                } else {
-                    frontier.add(newChildNode); //if not goal then add child to frontier
-                } 
-            }  
+            long entry = frontier.pop();
+            int node = LongHeap.state(entry), d = LongHeap.priority(entry);
+            if (d > dist[node]) { continue; }
+            if (node == goal) { return tracePath(graph, parent, parentEdge, goal); }
+            for (int edge = graph.firstEdge(node); edge < graph.endEdge(node); edge++) {
+                int next = graph.target(edge), nextDist = d + graph.length(edge);
+                if (nextDist < dist[next]) {
+                    dist[next] = nextDist;
+                    parent[next] = node;
+                    parentEdge[next] = edge;
+                    frontier.push(LongHeap.entry(nextDist, next));
+                }
+            }
         }
         return null;
     }
-    
+
     /**
-     * Is a private helper method that backtracks the path from the goal node.
-     * @param goalNode  the Node location of the goal state in the maze.
-     * @return ArrayList  of the directions took to go from the beginning to goal node. 
-     */
-    private static List<String> tracePath (SearchTreeNode goalNode) {
-        //start at goal node and create list going up
-        List<String> winningActions = new ArrayList<String>();
-        SearchTreeNode current = goalNode;
-        while (current.action != null) {
-            winningActions.add(current.action);
-            current = current.parent;
-        }
+     * Is a private helper method that backtracks a path over a corridor graph from
+     * the goal node, expanding every corridor taken into its actions.
+     * @param graph The CorridorGraph that was searched.
+     * @param parent The node from which each node was reached, -1 for the start.
+     * @param parentEdge The edge along which each node was reached.
+     * @param goal The goal node.
+     * @return ArrayList of the directions took to go from the beginning to goal node.
+     */
+    private static List<String> tracePath (CorridorGraph graph, int[] parent, int[] parentEdge, int goal) {
+        List<Integer> nodes = new ArrayList<Integer>();
+        for (int node = goal; parent[node] >= 0; node = parent[node]) { nodes.add(node); }
         ArrayList<String> correctOrder = new ArrayList<String>();
-        for (int i = winningActions.size() - 1; i >= 0; i--) {  //reverse the arrayList
-            correctOrder.add(winningActions.get(i));
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            int node = nodes.get(i);
+            graph.expand(parent[node], parentEdge[node], correctOrder);
         }
-        return correctOrder; 
+        return correctOrder;
     }
 }
@@ -0,0 +1,127 @@
+package main.pathfinder.uninformed;
+
+import java.util.*;
+
+/**
+ * Counters and phase timings of the searches it is passed to, for telling why a
+ * solve was slow: how many cells were expanded and queued, how many times a
+ * search came upon a cell it had already reached, the largest the frontier
+ * grew, and how the time split between searching and tracing back the path.
+ * <p>
+ * One SearchStats may be passed to many searches, summing their counters (the
+ * peak frontier being the largest of any); it is not safe to share between
+ * threads.
+ */
+public class SearchStats {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private long searches, expanded, generated, duplicates, peakFrontier;
+    private long searchNanos, traceNanos;
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of searches recorded.
+     */
+    public long getSearches () {
+        return this.searches;
+    }
+
+    /**
+     * @return The number of cells expanded, over every search recorded.
+     */
+    public long getExpanded () {
+        return this.expanded;
+    }
+
+    /**
+     * @return The number of cells reached and pushed onto the frontier.
+     */
+    public long getGenerated () {
+        return this.generated;
+    }
+
+    /**
+     * @return The number of moves onto a cell already reached in the same
+     * search, each of which was skipped rather than pushed again.
+     */
+    public long getDuplicates () {
+        return this.duplicates;
+    }
+
+    /**
+     * @return The most cells on any one search's frontier at once.
+     */
+    public long getPeakFrontier () {
+        return this.peakFrontier;
+    }
+
+    /**
+     * @return Nanoseconds spent searching for the goal.
+     */
+    public long getSearchNanos () {
+        return this.searchNanos;
+    }
+
+    /**
+     * @return Nanoseconds spent tracing back found paths.
+     */
+    public long getTraceNanos () {
+        return this.traceNanos;
+    }
+
+    /**
+     * Zeroes every counter and timing.
+     */
+    public void reset () {
+        searches = expanded = generated = duplicates = peakFrontier = 0;
+        searchNanos = traceNanos = 0;
+    }
+
+    /**
+     * Exports the counters and timings by name, for a metrics pipeline of plain
+     * counters.
+     *
+     * @return Each counter's value, keyed by names of the form "search.expanded",
+     * in a fixed order.
+     */
+    public Map<String, Long> toCounters () {
+        Map<String, Long> counters = new LinkedHashMap<String, Long>();
+        counters.put("search.searches", searches);
+        counters.put("search.expanded", expanded);
+        counters.put("search.generated", generated);
+        counters.put("search.duplicates", duplicates);
+        counters.put("search.peak_frontier", peakFrontier);
+        counters.put("search.search_nanos", searchNanos);
+        counters.put("search.trace_nanos", traceNanos);
+        return counters;
+    }
+
+    @Override
+    public String toString () {
+        return toCounters().toString();
+    }
+
+    /**
+     * Adds the time spent tracing back a found path.
+     */
+    void addTrace (long nanos) {
+        traceNanos += nanos;
+    }
+
+    /**
+     * Adds the totals of one finished search.
+     */
+    void addSearch (long expanded, long generated, long duplicates, long peakFrontier, long searchNanos) {
+        this.searches++;
+        this.expanded += expanded;
+        this.generated += generated;
+        this.duplicates += duplicates;
+        this.peakFrontier = Math.max(this.peakFrontier, peakFrontier);
+        this.searchNanos += searchNanos;
+    }
+
+}
@@ -0,0 +1,126 @@
+package main.pathfinder.uninformed;
+
+import java.util.*;
+
+/**
+ * Breadth-first graph search that stores only the cells it reaches, for mazes
+ * such as tiled, out-of-core ones whose per-cell bookkeeping alone would not
+ * fit in memory. Cells are long indices (row * cols + col), each given a slot
+ * through a LongMap when first reached; since a breadth-first search reaches
+ * cells in the order it expands them, the slots double as the queue, which is
+ * simply every slot from the next one to expand up to the last one given out.
+ */
+class SparseBFS {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    // Move offsets, in the order of the actions "U", "D", "L", "R"
+    private static final int[] DCOL = {0, 0, -1, 1}, DROW = {-1, 1, 0, 0};
+    private static final String[] ACTIONS = {"U", "D", "L", "R"};
+
+    private final MazeProblem problem;
+    private final int cols;
+
+    // Per-slot search state: each reached cell and the slot it was reached from
+    private final LongMap slotOf = new LongMap(-1);
+    private long[] cellOf = new long[64];
+    private int[] parent = new int[64];
+    private int slots;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new SparseBFS over the given maze.
+     *
+     * @param problem The maze to search.
+     */
+    SparseBFS (MazeProblem problem) {
+        this.problem = problem;
+        this.cols = problem.getCols();
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Finds a shortest path from the problem's initial state to its goal.
+     *
+     * @param stats The stats to add the search to, or null to record nothing.
+     * @return An ArrayList of actions leading from the initial state to the goal,
+     * of the format: ["R", "R", "L", ...], or null if there is none.
+     */
+    List<String> solve (SearchStats stats) {
+        MazeState initial = problem.getInitial(), goal = problem.getGoal();
+        if (initial == null || goal == null) { return null; }
+        long started = (stats == null) ? 0 : System.nanoTime();
+        long end = (long) goal.row * cols + goal.col, expanded = 0, generated = 0, duplicates = 0;
+        int peak = 1, head = 0, found = reach((long) initial.row * cols + initial.col, -1);
+        if (cellOf[found] != end) { found = -1; }
+        while (found < 0 && head < slots) {
+            int slot = head++;
+            expanded++;
+            int col = (int) (cellOf[slot] % cols), row = (int) (cellOf[slot] / cols);
+            for (int dir = 0; dir < 4; dir++) {
+                int nextCol = col + DCOL[dir], nextRow = row + DROW[dir];
+                if (problem.isWall(nextCol, nextRow)) { continue; }
+                long next = (long) nextRow * cols + nextCol;
+                if (slotOf.get(next) >= 0) {
+                    duplicates++;
+                    continue;
+                }
+                int nextSlot = reach(next, slot);
+                generated++;
+                if (next == end) {
+                    found = nextSlot;
+                    break;
+                }
+            }
+            peak = Math.max(peak, slots - head);
+        }
+        if (stats == null) { return (found < 0) ? null : tracePath(found); }
+        long searched = System.nanoTime();
+        stats.addSearch(expanded, generated, duplicates, peak, searched - started);
+        if (found < 0) { return null; }
+        List<String> path = tracePath(found);
+        stats.addTrace(System.nanoTime() - searched);
+        return path;
+    }
+
+    /**
+     * Gives a newly reached cell the next slot, which also queues it.
+     *
+     * @return The cell's slot.
+     */
+    private int reach (long cell, int from) {
+        if (slots == cellOf.length) {
+            cellOf = Arrays.copyOf(cellOf, 2 * slots);
+            parent = Arrays.copyOf(parent, 2 * slots);
+        }
+        int slot = slots++;
+        slotOf.put(cell, slot);
+        cellOf[slot] = cell;
+        parent[slot] = from;
+        return slot;
+    }
+
+    /**
+     * Walks the parent slots back from the given slot to the start.
+     *
+     * @param end The slot of the goal.
+     * @return ArrayList of the directions taken to go from the start to the goal.
+     */
+    private List<String> tracePath (int end) {
+        int length = 0;
+        for (int slot = end; parent[slot] >= 0; slot = parent[slot]) { length++; }
+        String[] moves = new String[length];
+        for (int slot = end, i = length - 1; parent[slot] >= 0; slot = parent[slot], i--) {
+            long delta = cellOf[slot] - cellOf[parent[slot]];
+            moves[i] = ACTIONS[(delta == -cols) ? 0 : (delta == cols) ? 1 : (delta == -1) ? 2 : 3];
+        }
+        return new ArrayList<String>(Arrays.asList(moves));
+    }
+
+}
@@ -13,7 +13,10 @@ import org.junit.rules.TestWatcher;
 import org.junit.rules.Timeout;
 import org.junit.runner.Description;
 
+import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Unit tests for Maze Pathfinder. Tests include completeness and
@@ -142,4 +145,196 @@ public class PathfinderTests {
         assertEquals(16, result.COST);
     }
 
+    @Test
+    public void testPathfinder_corridor() {
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI..X...X",
+            "XXX.X.X.X",
+            "X.....X.X",
+            "X.XXXXXXX",
+            "X...G...X",
+            "XXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        CorridorGraph graph = CorridorGraph.build(prob);
+        
+        // Every dead end is pruned, leaving a single corridor from I to G
+        assertEquals(2, graph.getNodeCount());
+        MazeTestResult result = prob.testSolution(Pathfinder.solve(graph));
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(11, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_batch() {
+        String[][] mazes = {
+            {"XXXX", "X.IX", "XG.X", "XXXX"},
+            {"XXXX", "XIGX", "XXXX"},
+            {"XXXXXXX", "XI....X", "XXXXX.X", "X.....X", "X.XXXXX", "X....GX", "XXXXXXX"}
+        };
+        List<MazeProblem> problems = new ArrayList<MazeProblem>();
+        for (String[] maze : mazes) { problems.add(new MazeProblem(maze)); }
+
+        // Paths come back in the problems' order, whichever worker solved each
+        List<List<String>> solutions = Pathfinder.solveAll(problems, ForkJoinPool.commonPool(), 2);
+        int[] costs = {2, 1, 16};
+        for (int i = 0; i < mazes.length; i++) {
+            MazeTestResult result = problems.get(i).testSolution(solutions.get(i));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(costs[i], result.COST);
+        }
+    }
+
+    @Test
+    public void testPathfinder_searchStats() {
+        String[] maze = {
+            "XXXX",
+            "X.IX",
+            "XG.X",
+            "XXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        SearchStats stats = new SearchStats();
+        MazeTestResult result = prob.testSolution(Pathfinder.solve(prob, stats));
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(2, result.COST);
+        
+        // The initial cell is found again from its neighbor, and skipped as visited
+        assertEquals(1, stats.getSearches());
+        assertTrue(stats.getDuplicates() > 0);
+        assertTrue(stats.getGenerated() > stats.getExpanded());
+        assertEquals(Long.valueOf(stats.getDuplicates()), stats.toCounters().get("search.duplicates"));
+    }
+
+    @Test
+    public void testPathfinder_openRoom() {
+        // A 60 x 60 room with no walls inside, where every cell has many shortest
+        // paths to it; each must be reached only once
+        String[] maze = new String[60];
+        for (int row = 0; row < 60; row++) {
+            StringBuilder line = new StringBuilder();
+            for (int col = 0; col < 60; col++) {
+                boolean edge = row == 0 || row == 59 || col == 0 || col == 59;
+                line.append(edge ? 'X' : '.');
+            }
+            maze[row] = line.toString();
+        }
+        maze[1] = "XI" + maze[1].substring(2);
+        maze[58] = maze[58].substring(0, 58) + "GX";
+        MazeProblem prob = new MazeProblem(maze);
+        List<String> solution = Pathfinder.solve(prob);
+        
+        MazeTestResult result = prob.testSolution(solution);
+        assertTrue(result.IS_SOLUTION);
+        assertEquals(114, result.COST);
+    }
+
+    @Test
+    public void testPathfinder_bitParallel() {
+        // Two 78-cell corridors joined at column 70, so that the path crosses the
+        // boundary between 64-cell words of the packed rows in both directions
+        StringBuilder wall = new StringBuilder(), corridor = new StringBuilder(), divider = new StringBuilder();
+        for (int col = 0; col < 80; col++) {
+            boolean edge = col == 0 || col == 79;
+            wall.append('X');
+            corridor.append(edge ? 'X' : '.');
+            divider.append(col == 70 ? '.' : 'X');
+        }
+        String open = corridor.toString();
+        String[] maze = {
+            wall.toString(),
+            "XI" + open.substring(2),
+            divider.toString(),
+            "XG" + open.substring(2),
+            wall.toString()
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        for (Pathfinder.Mode mode : Pathfinder.Mode.values()) {
+            MazeTestResult result = prob.testSolution(Pathfinder.solve(prob, mode));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(140, result.COST);
+        }
+    }
+
+    @Test
+    public void testPathfinder_parallel() {
+        // A 600 x 600 room, whose widest levels are large enough next to the maze
+        // that the search turns bottom-up, splitting them across the pool's
+        // workers, and back to top-down as they shrink toward the far corner
+        String[] maze = new String[600];
+        for (int row = 0; row < 600; row++) {
+            StringBuilder line = new StringBuilder();
+            for (int col = 0; col < 600; col++) {
+                boolean edge = row == 0 || row == 599 || col == 0 || col == 599;
+                line.append(edge ? 'X' : '.');
+            }
+            maze[row] = line.toString();
+        }
+        maze[1] = "XI" + maze[1].substring(2);
+        maze[598] = maze[598].substring(0, 598) + "GX";
+        MazeProblem prob = new MazeProblem(maze);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MazeTestResult result = prob.testSolution(Pathfinder.solve(prob, pool));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(1194, result.COST);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testPathfinder_cellStore() {
+        // A 40 x 40 room split by a wall at row 20 with one gap, whose cells are
+        // computed as they are read rather than stored
+        MazeCells cells = (col, row) -> {
+            boolean edge = row == 0 || row == 39 || col == 0 || col == 39;
+            return (edge || (row == 20 && col != 30)) ? 'X' : '.';
+        };
+        MazeProblem prob = new MazeProblem(cells, 40, 40, new MazeState(1, 1), new MazeState(1, 38));
+        for (Pathfinder.Mode mode : Pathfinder.Mode.values()) {
+            MazeTestResult result = prob.testSolution(Pathfinder.solve(prob, mode));
+            assertTrue(result.IS_SOLUTION);
+            assertEquals(95, result.COST);
+        }
+    }
+
+    @Test
+    public void testPathfinder_tiledFile() throws IOException {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.XXX.X",
+            "X.X.XGX",
+            "XXXXXXX"
+        };
+        MazeProblem original = new MazeProblem(maze);
+        Path file = Files.createTempFile("maze", ".tiles");
+        try {
+            original.saveTiled(file, 3);
+
+            // With room for a single 3x3 tile (2 bytes), every change of tile pages one out
+            try (TiledMaze tiled = TiledMaze.open(file, 2)) {
+                MazeProblem problem = new MazeProblem(tiled);
+                assertEquals(6, original.testSolution(Pathfinder.solve(problem)).COST);
+                assertEquals(2, tiled.getCachedBytes());
+                assertTrue(tiled.getHits() > 0);
+                assertTrue(tiled.getEvictions() > 0);
+                assertEquals(tiled.getMisses() - 1, tiled.getEvictions());
+
+                // Every entry point searches the tiled maze in place, and counts it
+                for (Pathfinder.Mode mode : Pathfinder.Mode.values()) {
+                    assertEquals(6, original.testSolution(Pathfinder.solve(problem, mode)).COST);
+                }
+                SearchStats stats = new SearchStats();
+                assertEquals(6, original.testSolution(Pathfinder.solve(problem, stats)).COST);
+                assertEquals(1, stats.getSearches());
+                assertTrue(stats.getExpanded() > 0 && stats.getGenerated() > 0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
 }